@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file;
+
+import org.openjdk.jmh.annotations.*;
+import ratpack.server.RatpackServer;
+import ratpack.server.ServerConfig;
+import ratpack.ssl.SSLContexts;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads of a static file, comparing the zero copy path used for plain HTTP with the chunked paths used for HTTPS.
+ * <p>
+ * The transfer parameter is one of:
+ * <ul>
+ * <li>{@code plain} - HTTP, sent with zero copy</li>
+ * <li>{@code tls} - HTTPS, read with positioned reads into pooled buffers</li>
+ * <li>{@code tlsMapped} - HTTPS, read through memory mapping</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FileTransferBenchmarks {
+
+  @Param({"plain", "tls", "tlsMapped"})
+  public String transfer;
+
+  @Param({"65536", "16777216"})
+  public int size;
+
+  @Param({"65536"})
+  public int chunkSize;
+
+  private Path baseDir;
+  private RatpackServer server;
+  private URL url;
+  private SSLSocketFactory socketFactory;
+
+  @Setup
+  public void setup() throws Exception {
+    baseDir = Files.createTempDirectory("file-transfer-benchmarks");
+    byte[] content = new byte[size];
+    new Random(0).nextBytes(content);
+    Files.createDirectory(baseDir.resolve("public"));
+    Files.write(baseDir.resolve("public/file.bin"), content);
+
+    ServerConfig.Builder serverConfig = ServerConfig.baseDir(baseDir).port(0).fileChunkSize(chunkSize);
+    if (!transfer.equals("plain")) {
+      try (InputStream keyStore = FileTransferBenchmarks.class.getResourceAsStream("keystore.jks")) {
+        serverConfig.ssl(SSLContexts.sslContext(keyStore, "password"));
+      }
+    }
+    if (transfer.equals("tlsMapped")) {
+      serverConfig.fileMappingThreshold(1);
+    }
+
+    server = RatpackServer.of(definition -> definition
+        .config(serverConfig)
+        .handlers(chain -> chain.assets("public"))
+    );
+    server.start();
+    url = new URL(server.getScheme() + "://localhost:" + server.getBindPort() + "/file.bin");
+
+    SSLContext clientContext = SSLContext.getInstance("TLS");
+    clientContext.init(null, new TrustManager[]{new TrustAllTrustManager()}, null);
+    socketFactory = clientContext.getSocketFactory();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    server.stop();
+    Files.delete(baseDir.resolve("public/file.bin"));
+    Files.delete(baseDir.resolve("public"));
+    Files.delete(baseDir);
+  }
+
+  @Benchmark
+  public long download() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    if (connection instanceof HttpsURLConnection) {
+      HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+      httpsConnection.setSSLSocketFactory(socketFactory);
+      httpsConnection.setHostnameVerifier((hostname, session) -> true);
+    }
+
+    byte[] buffer = new byte[65536];
+    long read = 0;
+    try (InputStream inputStream = connection.getInputStream()) {
+      int n;
+      while ((n = inputStream.read(buffer)) != -1) {
+        read += n;
+      }
+    }
+    return read;
+  }
+
+  private static class TrustAllTrustManager implements X509TrustManager {
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) {
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) {
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+      return new X509Certificate[0];
+    }
+  }
+
+}
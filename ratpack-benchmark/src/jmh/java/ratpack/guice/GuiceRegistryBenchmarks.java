@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.guice;
+
+import com.google.common.reflect.TypeToken;
+import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import org.openjdk.jmh.annotations.*;
+import ratpack.registry.Registry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry lookups against an injector with many bindings.
+ * <p>
+ * The {@code cold*} benchmarks use a new injector per invocation, measuring the cost of the first lookup (including any indexing) as seen by the first request after startup.
+ */
+@State(Scope.Thread)
+public class GuiceRegistryBenchmarks {
+
+  @Param({"100", "1000", "5000"})
+  public int bindings;
+
+  private Registry registry;
+  private Registry coldRegistry;
+
+  public static class Target {
+  }
+
+  public interface Marker {
+  }
+
+  public static class MarkerImpl implements Marker {
+  }
+
+  private Injector createInjector() {
+    return com.google.inject.Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        for (int i = 0; i < bindings; ++i) {
+          bind(String.class).annotatedWith(Names.named("string" + i)).toInstance("string" + i);
+          if (i % 100 == 0) {
+            bind(Marker.class).annotatedWith(Names.named("marker" + i)).toInstance(new MarkerImpl());
+          }
+        }
+        bind(Target.class).toInstance(new Target());
+      }
+    });
+  }
+
+  @Setup
+  public void setup() {
+    registry = Guice.justInTimeRegistry(createInjector());
+  }
+
+  @Setup(Level.Invocation)
+  public void setupCold() {
+    coldRegistry = Guice.registry(createInjector());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Measurement(iterations = 20)
+  public Object coldGetAll() {
+    return coldRegistry.getAll(Marker.class).iterator().next();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Measurement(iterations = 20)
+  public Object coldGet() {
+    return coldRegistry.get(Target.class);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public int nonCacheablePredicate() throws Exception {
+    int[] count = new int[1];
+    registry.each(TypeToken.of(Marker.class), m -> m != null, m -> ++count[0]);
+    return count[0];
+  }
+
+}
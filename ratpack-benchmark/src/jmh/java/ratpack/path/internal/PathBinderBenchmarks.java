@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.path.internal;
+
+import org.openjdk.jmh.annotations.*;
+import ratpack.path.PathBinders;
+import ratpack.path.PathBinding;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding a path with tokens by walking its segments, compared to the equivalent regex.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class PathBinderBenchmarks {
+
+  private TokenPathBinder binder;
+
+  @Setup
+  public void setup() {
+    binder = (TokenPathBinder) PathBinders.parse("author/:id/books/:bookId?", true);
+  }
+
+  @Benchmark
+  public Optional<PathBinding> segmentMatch() {
+    return binder.bind("author/123/books/456", Optional.empty());
+  }
+
+  @Benchmark
+  public Optional<PathBinding> segmentMismatch() {
+    return binder.bind("publisher/123/books/456", Optional.empty());
+  }
+
+  @Benchmark
+  public Optional<PathBinding> regexFallback() {
+    // paths with a leading separator are always tried with the regex (which does not match here)
+    return binder.bind("/author/123/books/456", Optional.empty());
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.path.internal;
+
+import org.openjdk.jmh.annotations.*;
+import ratpack.handling.Handler;
+import ratpack.path.PathBinders;
+import ratpack.path.PathBinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the path handler that binds a request path among a number of sibling routes, with the matching route last.
+ * <p>
+ * {@code linear} tries each route's binder in turn (as a plain chain does), {@code routed} uses a {@link PathRouter} to find the candidate routes first.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RoutingBenchmarks {
+
+  @Param({"10", "100", "300"})
+  public int routes;
+
+  private List<PathHandler> handlers;
+  private PathRouter router;
+  private String path;
+
+  @Setup
+  public void setup() {
+    handlers = new ArrayList<>(routes);
+    Handler handler = context -> {
+    };
+    for (int i = 0; i < routes; ++i) {
+      handlers.add(new PathHandler(PathBinders.parse("resource" + i + "/:id/items/:itemId", true), handler));
+    }
+    router = new PathRouter(handlers);
+    path = "resource" + (routes - 1) + "/123/items/456";
+  }
+
+  @Benchmark
+  public Optional<PathBinding> linear() {
+    for (PathHandler handler : handlers) {
+      Optional<PathBinding> binding = handler.getBinder().bind(path, Optional.empty());
+      if (binding.isPresent()) {
+        return binding;
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Benchmark
+  public Optional<PathBinding> routed() {
+    for (Handler handler : router.candidates(path)) {
+      Optional<PathBinding> binding = ((PathHandler) handler).getBinder().bind(path, Optional.empty());
+      if (binding.isPresent()) {
+        return binding;
+      }
+    }
+    return Optional.empty();
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ratpack.registry;
+
+import com.google.common.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import ratpack.registry.internal.OverlayRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups against a registry built as a chain of joined registries, as happens for the request registry of a nested handler chain.
+ * <p>
+ * The depth parameter is the number of joined layers, with the looked up object always living in the root layer.
+ * The overlay parameter selects between the cached join of {@link Registry#join(Registry)} and the flat {@link OverlayRegistry} used for request scoped registries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RegistryBenchmarks {
+
+  private static final TypeToken<Foo> FOO_TYPE = TypeToken.of(Foo.class);
+
+  @Param({"1", "3", "6", "10"})
+  public int depth;
+
+  @Param({"false", "true"})
+  public boolean overlay;
+
+  private Registry registry;
+
+  public static class Foo {
+  }
+
+  public static class Bar {
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Registry registry = Registries.registry().add(new Foo()).add(new Foo()).add("root").build();
+    for (int i = 1; i < depth; ++i) {
+      Registry layer = Registries.registry().add(new Bar()).add(Integer.valueOf(i)).build();
+      registry = overlay ? OverlayRegistry.join(registry, layer) : registry.join(layer);
+    }
+    this.registry = registry;
+  }
+
+  @Benchmark
+  public Foo getByClass() {
+    return registry.get(Foo.class);
+  }
+
+  @Benchmark
+  public Foo getByTypeToken() {
+    return registry.get(FOO_TYPE);
+  }
+
+  @Benchmark
+  public Optional<Foo> maybeGetByClass() {
+    return registry.maybeGet(Foo.class);
+  }
+
+  @Benchmark
+  public Optional<Long> maybeGetAbsentByClass() {
+    return registry.maybeGet(Long.class);
+  }
+
+  @Benchmark
+  public int getAllByClass() {
+    int i = 0;
+    for (Foo ignored : registry.getAll(Foo.class)) {
+      ++i;
+    }
+    return i;
+  }
+
+  @Benchmark
+  public int getAllByTypeToken() {
+    int i = 0;
+    for (Foo ignored : registry.getAll(FOO_TYPE)) {
+      ++i;
+    }
+    return i;
+  }
+
+}
@@ -26,12 +26,15 @@ import com.codahale.metrics.jvm.ThreadStatesGaugeSet;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Injector;
 import com.google.inject.matcher.Matchers;
+import io.netty.buffer.ByteBufAllocator;
 import ratpack.codahale.metrics.internal.*;
+import ratpack.exec.ExecController;
 import ratpack.func.Action;
 import ratpack.guice.ConfigurableModule;
 import ratpack.guice.HandlerDecoratingModule;
 import ratpack.guice.internal.GuiceUtil;
 import ratpack.handling.Handler;
+import ratpack.server.RatpackServer;
 
 import java.io.File;
 import java.time.Duration;
@@ -82,6 +85,11 @@ import static ratpack.util.ExceptionUtils.uncheck;
  * registered first in the modules list to ensure that <b>all</b> handlers are included in the metric.
  * </p>
  * <p>
+ * Request timers are named after the path binding of the handler that responded (e.g. {@code [author][:id][books]~GET~Request}),
+ * or a {@link RouteName} if one is available, so the number of timers does not grow with the number of distinct request paths.
+ * The number of timers is also capped by {@link Config#requestTimerLimit(int)}.
+ * </p>
+ * <p>
  * Additional custom metrics can be registered with the provided {@link MetricRegistry} instance
  * </p>
  * <p>
@@ -174,10 +182,14 @@ public class CodaHaleMetricsModule extends ConfigurableModule<CodaHaleMetricsMod
    */
   public static class Config {
     public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+    public static final int DEFAULT_REQUEST_TIMER_LIMIT = 1000;
 
     private boolean enabled;
     private boolean healthChecks;
     private boolean jvmMetrics;
+    private boolean serverMetrics;
+    private int requestTimerLimit = DEFAULT_REQUEST_TIMER_LIMIT;
+    private boolean hdrHistogram;
 
     private Jmx jmx = new Jmx();
     private Console console = new Console();
@@ -243,6 +255,78 @@ public class CodaHaleMetricsModule extends ConfigurableModule<CodaHaleMetricsMod
       return this;
     }
 
+    /**
+     * The state of server metrics collection.
+     *
+     * @return True if server metrics collection is enabled. False otherwise
+     */
+    public boolean isServerMetrics() {
+      return serverMetrics;
+    }
+
+    /**
+     * The state of server metrics reporting.
+     * <p>
+     * Server metrics are gauges for the internals of the server:
+     * the pending tasks and CPU utilization of each compute event loop ({@code ratpack.compute.*}),
+     * the blocking thread pool ({@code ratpack.blocking.*}), open and accepted connections ({@code ratpack.channels.*})
+     * and the arenas of the pooled buffer allocator ({@code netty.allocator.*}).
+     *
+     * @param serverMetrics True if server metrics are reported. False otherwise
+     * @return this
+     */
+    public Config serverMetrics(boolean serverMetrics) {
+      this.serverMetrics = serverMetrics;
+      return this;
+    }
+
+    /**
+     * The maximum number of distinct request and blocking timers.
+     *
+     * @return the maximum number of distinct request and blocking timers
+     */
+    public int getRequestTimerLimit() {
+      return requestTimerLimit;
+    }
+
+    /**
+     * Limits the number of distinct request and blocking timers.
+     * <p>
+     * Timers are created for each combination of route and request method.
+     * Once the limit has been reached, requests for further combinations are recorded by a shared {@code [other]} timer.
+     * Defaults to {@link #DEFAULT_REQUEST_TIMER_LIMIT}.
+     *
+     * @param requestTimerLimit the maximum number of distinct request and blocking timers
+     * @return this
+     * @see RouteName
+     */
+    public Config requestTimerLimit(int requestTimerLimit) {
+      this.requestTimerLimit = requestTimerLimit;
+      return this;
+    }
+
+    /**
+     * Whether request timers record into an {@link HdrHistogramReservoir}.
+     *
+     * @return True if request timers record into an {@link HdrHistogramReservoir}. False otherwise
+     */
+    public boolean isHdrHistogram() {
+      return hdrHistogram;
+    }
+
+    /**
+     * Set if request and blocking timers record into an {@link HdrHistogramReservoir}, instead of the default exponentially decaying reservoir.
+     * <p>
+     * Recording into an HdrHistogram is cheaper under concurrent load, and gives accurate high percentiles.
+     *
+     * @param hdrHistogram True if request timers should record into an {@link HdrHistogramReservoir}. False otherwise
+     * @return this
+     */
+    public Config hdrHistogram(boolean hdrHistogram) {
+      this.hdrHistogram = hdrHistogram;
+      return this;
+    }
+
     /**
      * Get the settings for the JMX metrics publisher.
      * @return the jmx publisher settings
@@ -498,9 +582,9 @@ public class CodaHaleMetricsModule extends ConfigurableModule<CodaHaleMetricsMod
     bind(JmxReporter.class).toProvider(JmxReporterProvider.class).in(SINGLETON);
     bind(ConsoleReporter.class).toProvider(ConsoleReporterProvider.class).in(SINGLETON);
     bind(CsvReporter.class).toProvider(CsvReporterProvider.class).in(SINGLETON);
-    bind(MetricRegistryPeriodicPublisher.class).in(SINGLETON);
     bind(MetricsBroadcaster.class).in(SINGLETON);
     bind(MetricRegistryJsonMapper.class).in(SINGLETON);
+    bind(RequestTimers.class).in(SINGLETON);
     bind(HealthCheckRegistry.class).in(SINGLETON);
     bind(HealthCheckResultRenderer.class).in(SINGLETON);
     bind(HealthCheckResultsRenderer.class).in(SINGLETON);
@@ -541,7 +625,12 @@ public class CodaHaleMetricsModule extends ConfigurableModule<CodaHaleMetricsMod
         metricRegistry.registerAll(new ThreadStatesGaugeSet());
         metricRegistry.registerAll(new MemoryUsageGaugeSet());
       }
-      return new RequestTimingHandler(handler);
+      if (config.isServerMetrics()) {
+        injector.getInstance(MetricRegistry.class).registerAll(new ServerMetricSet(
+          injector.getInstance(ExecController.class), injector.getInstance(RatpackServer.class), injector.getInstance(ByteBufAllocator.class)
+        ));
+      }
+      return new RequestTimingHandler(injector.getInstance(RequestTimers.class), handler);
     }
     return handler;
   }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * A {@link Reservoir} backed by an <a href="http://hdrhistogram.org/" target="_blank">HdrHistogram</a>.
+ * <p>
+ * Recording a value is wait-free and does not allocate, unlike the default exponentially decaying reservoir which takes a lock for each update.
+ * Values are recorded into an HdrHistogram {@link Recorder}, whose interval histograms are swapped out without blocking writers when a snapshot is taken.
+ * As all recorded values are kept (to the configured precision), high percentiles such as the 99.9th and 99.99th are accurate.
+ * Only non-negative values can be recorded.
+ * <p>
+ * Snapshots cover the values recorded since the start of the previous window, where windows are {@code window} long.
+ * That is, a snapshot always covers at least one full window, and at most two.
+ * <p>
+ * The reservoir can be used with any {@link com.codahale.metrics.Timer} or {@link com.codahale.metrics.Histogram},
+ * and is therefore reported by all of the reporters of the {@link com.codahale.metrics.MetricRegistry}.
+ * Request timers use this reservoir when {@link CodaHaleMetricsModule.Config#hdrHistogram(boolean)} is enabled.
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+  public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+  public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+  private final Recorder recorder;
+  private final Clock clock;
+  private final long windowNanos;
+
+  private Histogram intervalHistogram;
+  private Histogram previous;
+  private Histogram current;
+  private long windowStart;
+
+  /**
+   * Creates a reservoir with {@link #DEFAULT_SIGNIFICANT_DIGITS} significant digits and a window of {@link #DEFAULT_WINDOW}.
+   */
+  public HdrHistogramReservoir() {
+    this(DEFAULT_SIGNIFICANT_DIGITS, DEFAULT_WINDOW, Clock.defaultClock());
+  }
+
+  /**
+   * Creates a reservoir.
+   *
+   * @param significantDigits the number of significant decimal digits to which values are recorded (0 to 5)
+   * @param window the length of time that values are reported for
+   * @param clock the clock used to measure the window
+   */
+  public HdrHistogramReservoir(int significantDigits, Duration window, Clock clock) {
+    this.recorder = new Recorder(significantDigits);
+    this.clock = clock;
+    this.windowNanos = window.toNanos();
+    this.intervalHistogram = recorder.getIntervalHistogram();
+    this.previous = new Histogram(significantDigits);
+    this.current = new Histogram(significantDigits);
+    this.windowStart = clock.getTick();
+  }
+
+  @Override
+  public int size() {
+    return (int) Math.min(Integer.MAX_VALUE, snapshotHistogram().getTotalCount());
+  }
+
+  @Override
+  public void update(long value) {
+    recorder.recordValue(value);
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    return new HdrHistogramSnapshot(snapshotHistogram());
+  }
+
+  private synchronized Histogram snapshotHistogram() {
+    intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+    current.add(intervalHistogram);
+
+    long now = clock.getTick();
+    if (now - windowStart >= windowNanos) {
+      Histogram expired = previous;
+      previous = current;
+      current = expired;
+      current.reset();
+      windowStart = now;
+    }
+
+    Histogram histogram = previous.copy();
+    histogram.add(current);
+    return histogram;
+  }
+
+  private static class HdrHistogramSnapshot extends Snapshot {
+
+    private final Histogram histogram;
+
+    private HdrHistogramSnapshot(Histogram histogram) {
+      super(new long[0]);
+      this.histogram = histogram;
+    }
+
+    private boolean isEmpty() {
+      return histogram.getTotalCount() == 0;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0) {
+        throw new IllegalArgumentException(quantile + " is not in [0..1]");
+      }
+      return isEmpty() ? 0.0 : histogram.getValueAtPercentile(quantile * 100);
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(Integer.MAX_VALUE, histogram.getTotalCount());
+    }
+
+    @Override
+    public long[] getValues() {
+      long[] values = new long[size()];
+      int i = 0;
+      for (HistogramIterationValue value : histogram.recordedValues()) {
+        long count = value.getCountAtValueIteratedTo();
+        long highestEquivalent = histogram.highestEquivalentValue(value.getValueIteratedTo());
+        for (long c = 0; c < count && i < values.length; ++c) {
+          values[i++] = highestEquivalent;
+        }
+      }
+      return values;
+    }
+
+    @Override
+    public long getMax() {
+      return isEmpty() ? 0 : histogram.getMaxValue();
+    }
+
+    @Override
+    public double getMean() {
+      return isEmpty() ? 0.0 : histogram.getMean();
+    }
+
+    @Override
+    public long getMin() {
+      return isEmpty() ? 0 : histogram.getMinValue();
+    }
+
+    @Override
+    public double getStdDev() {
+      return histogram.getTotalCount() > 1 ? histogram.getStdDeviation() : 0.0;
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+      try {
+        for (long value : getValues()) {
+          out.printf("%d%n", value);
+        }
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+}
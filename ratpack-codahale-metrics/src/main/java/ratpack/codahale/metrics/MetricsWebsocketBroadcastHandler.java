@@ -16,12 +16,13 @@
 
 package ratpack.codahale.metrics;
 
-import ratpack.codahale.metrics.internal.MetricRegistryJsonMapper;
 import ratpack.codahale.metrics.internal.MetricsBroadcaster;
 import ratpack.handling.Context;
 import ratpack.handling.Handler;
 
-import static ratpack.stream.Streams.map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
 import static ratpack.websocket.WebSockets.websocketByteBufBroadcast;
 
 /**
@@ -34,20 +35,36 @@ import static ratpack.websocket.WebSockets.websocketByteBufBroadcast;
  * chain instanceof ratpack.handling.Chain;
  * chain.get("admin/metrics", new MetricsWebsocketBroadcastHandler());
  * </pre>
+ * <p>
+ * The first report sent to a client contains all metrics, and each subsequent report contains only the metrics that have changed since the previous one.
+ * Reports that only contain changes have a {@code "delta"} property of {@code true}.
+ * <p>
+ * Clients may restrict the reported metrics by specifying a regular expression as the {@code filter} query parameter (e.g. {@code admin/metrics?filter=^ratpack\\.}).
+ * Only metrics whose names contain a match for the expression are reported.
+ * An invalid expression results in a 400 response.
  */
 public class MetricsWebsocketBroadcastHandler implements Handler {
 
   @Override
   public void handle(final Context context) throws Exception {
     final MetricsBroadcaster broadcaster = context.get(MetricsBroadcaster.class);
-    final MetricRegistryJsonMapper mapper = context.get(MetricRegistryJsonMapper.class);
+
+    String filterParam = context.getRequest().getQueryParams().get("filter");
+    Pattern filter = null;
+    if (filterParam != null && !filterParam.isEmpty()) {
+      try {
+        filter = Pattern.compile(filterParam);
+      } catch (PatternSyntaxException e) {
+        context.clientError(400);
+        return;
+      }
+    }
 
     websocketByteBufBroadcast(
       context,
-      map(broadcaster, mapper)
+      broadcaster.reports(filter)
     );
   }
 
-
 }
 
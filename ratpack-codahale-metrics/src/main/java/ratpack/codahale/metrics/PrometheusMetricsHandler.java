@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics;
+
+import com.codahale.metrics.*;
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import ratpack.codahale.metrics.internal.PrometheusTextWriter;
+import ratpack.handling.Context;
+import ratpack.handling.Handler;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Handler that renders the {@link MetricRegistry} and health checks in the
+ * <a href="http://prometheus.io/docs/instrumenting/exposition_formats/" target="_blank">Prometheus text format</a>, for pull based collection.
+ * <p>
+ * This handler should be bound to an application path, and most likely only for the GET method…
+ * <pre class="java-chain-dsl">
+ * import ratpack.codahale.metrics.PrometheusMetricsHandler;
+ *
+ * chain instanceof ratpack.handling.Chain;
+ * chain.get("admin/prometheus", new PrometheusMetricsHandler());
+ * </pre>
+ * <p>
+ * Metric names are converted to valid Prometheus names by replacing each run of other characters with an underscore
+ * (e.g. {@code [root]~GET~Request} becomes {@code root_GET_Request}).
+ * Counters and gauges with numeric or boolean values are exposed as gauges, meters as counters with a {@code _total} suffix,
+ * and histograms and timers as summaries. Timer values are in seconds.
+ * The {@code _sum} of a summary is estimated as the mean of the sampled values multiplied by the count, as the underlying reservoirs do not record a total.
+ * If several metrics sanitize to the same Prometheus name, only the first is exposed, as a duplicate would make the whole report unparseable.
+ * Health checks are exposed as the {@code health_check_healthy} gauge, labelled with the health check name.
+ * <p>
+ * Health checks are run as a blocking operation, and the report is written straight into pooled buffers.
+ */
+public class PrometheusMetricsHandler implements Handler {
+
+  private static final double NANOS_TO_SECONDS = 1.0 / TimeUnit.SECONDS.toNanos(1);
+  private static final String HEALTH_CHECK_NAME = "health_check_healthy";
+  private static final byte[] HEALTH_CHECK = PrometheusTextWriter.name(HEALTH_CHECK_NAME).getBytes();
+
+  @Override
+  public void handle(Context context) throws Exception {
+    MetricRegistry metricRegistry = context.get(MetricRegistry.class);
+    HealthCheckRegistry healthCheckRegistry = context.get(HealthCheckRegistry.class);
+    ByteBufAllocator allocator = context.get(ByteBufAllocator.class);
+
+    context.blocking(healthCheckRegistry::runHealthChecks).then(healthChecks -> {
+      PrometheusTextWriter writer = new PrometheusTextWriter(allocator);
+      try {
+        Set<String> names = new HashSet<>();
+        writeHealthChecks(writer, names, healthChecks);
+        writeMetrics(writer, names, metricRegistry);
+      } catch (Exception e) {
+        writer.release();
+        throw e;
+      }
+      context.getResponse().send(PrometheusTextWriter.CONTENT_TYPE, writer.finish());
+    });
+  }
+
+  private static void writeMetrics(PrometheusTextWriter writer, Set<String> names, MetricRegistry metricRegistry) {
+    for (Map.Entry<String, Counter> entry : metricRegistry.getCounters().entrySet()) {
+      PrometheusTextWriter.Name name = PrometheusTextWriter.name(entry.getKey());
+      if (claim(names, name, "")) {
+        byte[] bytes = name.getBytes();
+        writer.type(bytes, "", "gauge").sample(bytes, "", entry.getValue().getCount());
+      }
+    }
+
+    for (@SuppressWarnings("rawtypes") Map.Entry<String, Gauge> entry : metricRegistry.getGauges().entrySet()) {
+      Object value;
+      try {
+        value = entry.getValue().getValue();
+      } catch (Exception e) {
+        continue;
+      }
+      PrometheusTextWriter.Name name = PrometheusTextWriter.name(entry.getKey());
+      if ((value instanceof Number || value instanceof Boolean) && claim(names, name, "")) {
+        byte[] bytes = name.getBytes();
+        writer.type(bytes, "", "gauge");
+        if (value instanceof Boolean) {
+          writer.sample(bytes, "", (Boolean) value ? 1 : 0);
+        } else if (value instanceof Double || value instanceof Float) {
+          writer.sample(bytes, "", ((Number) value).doubleValue());
+        } else {
+          writer.sample(bytes, "", ((Number) value).longValue());
+        }
+      }
+    }
+
+    for (Map.Entry<String, Meter> entry : metricRegistry.getMeters().entrySet()) {
+      PrometheusTextWriter.Name name = PrometheusTextWriter.name(entry.getKey());
+      if (claim(names, name, "_total")) {
+        byte[] bytes = name.getBytes();
+        writer.type(bytes, "_total", "counter").sample(bytes, "_total", entry.getValue().getCount());
+      }
+    }
+
+    for (Map.Entry<String, Histogram> entry : metricRegistry.getHistograms().entrySet()) {
+      PrometheusTextWriter.Name name = PrometheusTextWriter.name(entry.getKey());
+      if (claim(names, name, "", "_count", "_sum")) {
+        Histogram histogram = entry.getValue();
+        writeSummary(writer, name.getBytes(), histogram.getSnapshot(), histogram.getCount(), 1.0);
+      }
+    }
+
+    for (Map.Entry<String, Timer> entry : metricRegistry.getTimers().entrySet()) {
+      PrometheusTextWriter.Name name = PrometheusTextWriter.name(entry.getKey());
+      if (claim(names, name, "", "_count", "_sum")) {
+        Timer timer = entry.getValue();
+        writeSummary(writer, name.getBytes(), timer.getSnapshot(), timer.getCount(), NANOS_TO_SECONDS);
+      }
+    }
+  }
+
+  private static void writeSummary(PrometheusTextWriter writer, byte[] name, Snapshot snapshot, long count, double factor) {
+    writer.type(name, "", "summary")
+      .quantile(name, "0.5", snapshot.getMedian() * factor)
+      .quantile(name, "0.75", snapshot.get75thPercentile() * factor)
+      .quantile(name, "0.95", snapshot.get95thPercentile() * factor)
+      .quantile(name, "0.98", snapshot.get98thPercentile() * factor)
+      .quantile(name, "0.99", snapshot.get99thPercentile() * factor)
+      .quantile(name, "0.999", snapshot.get999thPercentile() * factor)
+      .sample(name, "_sum", snapshot.getMean() * count * factor)
+      .sample(name, "_count", count);
+  }
+
+  // Reserves the sample names for a metric, returning false if any of them have already been written.
+  // Sample names are cached with the sanitized name, so no strings are built for each report.
+  private static boolean claim(Set<String> names, PrometheusTextWriter.Name name, String... suffixes) {
+    for (String suffix : suffixes) {
+      if (names.contains(name.sample(suffix))) {
+        return false;
+      }
+    }
+    for (String suffix : suffixes) {
+      names.add(name.sample(suffix));
+    }
+    return true;
+  }
+
+  private static void writeHealthChecks(PrometheusTextWriter writer, Set<String> names, SortedMap<String, HealthCheck.Result> healthChecks) {
+    names.add(HEALTH_CHECK_NAME);
+    if (healthChecks.isEmpty()) {
+      return;
+    }
+    writer.type(HEALTH_CHECK, "", "gauge");
+    for (Map.Entry<String, HealthCheck.Result> entry : healthChecks.entrySet()) {
+      writer.labelled(HEALTH_CHECK, "name", entry.getKey(), entry.getValue().isHealthy() ? 1 : 0);
+    }
+  }
+
+}
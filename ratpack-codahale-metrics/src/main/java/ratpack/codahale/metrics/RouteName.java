@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics;
+
+/**
+ * A name for the route that handles a request, used to name request timing metrics.
+ * <p>
+ * By default, requests are timed against the description of the contextual {@link ratpack.path.PathBinding} of the handler that responded
+ * (e.g. {@code author/:id/books}), so that requests for different paths matching the same pattern share a timer.
+ * Adding a route name to the context registry overrides this.
+ * <pre class="groovy-ratpack-dsl">
+ * import ratpack.codahale.metrics.CodaHaleMetricsModule
+ * import ratpack.codahale.metrics.RouteName
+ * import static ratpack.groovy.Groovy.ratpack
+ * import static ratpack.registry.Registries.just
+ *
+ * ratpack {
+ *   bindings {
+ *     add new CodaHaleMetricsModule(), { it.enable(true) }
+ *   }
+ *
+ *   handlers {
+ *     prefix("api") {
+ *       handler {
+ *         next(just(RouteName, RouteName.of("api")))
+ *       }
+ *       get("books/:id") {
+ *         render "book"
+ *       }
+ *     }
+ *   }
+ * }
+ * </pre>
+ * <p>
+ * Route names should be drawn from a small, fixed set, as each distinct name results in a distinct timer.
+ *
+ * @see CodaHaleMetricsModule.Config#requestTimerLimit(int)
+ */
+public final class RouteName {
+
+  private final String name;
+
+  private RouteName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Creates a route name.
+   *
+   * @param name the name of the route
+   * @return a route name
+   */
+  public static RouteName of(String name) {
+    return new RouteName(name);
+  }
+
+  /**
+   * The name of the route.
+   *
+   * @return the name of the route
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    return name.equals(((RouteName) o).name);
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -16,35 +16,44 @@
 
 package ratpack.codahale.metrics.internal;
 
-import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.Timer;
 import ratpack.exec.ExecInterceptor;
-import ratpack.http.Request;
+import ratpack.exec.internal.BlockingTiming;
+import ratpack.handling.Context;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times blocking operations, separating the time spent waiting for a thread in the blocking pool from the time spent executing.
+ */
 public class BlockingExecTimingInterceptor implements ExecInterceptor {
 
-  private final MetricRegistry metricRegistry;
-  private final Request request;
+  private final RequestTimers requestTimers;
+  private final Context context;
 
-  public BlockingExecTimingInterceptor(MetricRegistry metricRegistry, Request request) {
-    this.metricRegistry = metricRegistry;
-    this.request = request;
+  public BlockingExecTimingInterceptor(RequestTimers requestTimers, Context context) {
+    this.requestTimers = requestTimers;
+    this.context = context;
   }
 
   @Override
   public void intercept(ExecType type, Runnable continuation) {
     if (type == ExecType.BLOCKING) {
-      String tag = buildBlockingTimerTag(request.getUri(), request.getMethod().getName());
-      Timer.Context timer = metricRegistry.timer(tag).time();
-      continuation.run();
-      timer.stop();
+      long start = System.nanoTime();
+      if (BlockingTiming.isBlocking()) {
+        long wait = start - BlockingTiming.getSubmittedAt();
+        requestTimers.blockingWaitTimer(context).update(wait, TimeUnit.NANOSECONDS);
+        requestTimers.blockingPoolWaitTimer().update(wait, TimeUnit.NANOSECONDS);
+      }
+      try {
+        continuation.run();
+      } finally {
+        long execution = System.nanoTime() - start;
+        requestTimers.blockingTimer(context).update(execution, TimeUnit.NANOSECONDS);
+        requestTimers.blockingPoolExecutionTimer().update(execution, TimeUnit.NANOSECONDS);
+      }
     } else {
       continuation.run();
     }
   }
 
-  private String buildBlockingTimerTag(String requestUri, String requestMethod) {
-    return (requestUri.equals("/") ? "[root" : requestUri.replaceFirst("/", "[").replace("/", "][")) + "]~" + requestMethod + "~Blocking";
-  }
-
 }
@@ -32,6 +32,7 @@ import java.io.OutputStream;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBuf> {
 
@@ -54,6 +55,19 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
 
   @Override
   public ByteBuf apply(MetricRegistry metricRegistry) throws Exception {
+    return apply(metricRegistry, name -> true, false);
+  }
+
+  /**
+   * Serializes the metrics whose names are accepted by the given predicate.
+   *
+   * @param metricRegistry the registry to serialize metrics from
+   * @param include which metrics to serialize
+   * @param delta whether the metrics are only those that have changed since the previous report
+   * @return the serialized metrics
+   * @throws Exception if the metrics cannot be serialized
+   */
+  public ByteBuf apply(MetricRegistry metricRegistry, Predicate<String> include, boolean delta) throws Exception {
     ByteBuf byteBuf = byteBufAllocator.ioBuffer();
     try {
       OutputStream out = new ByteBufOutputStream(byteBuf);
@@ -61,11 +75,12 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
 
       json.writeStartObject();
       json.writeNumberField("timestamp", clock.getTime());
-      writeTimers(json, metricRegistry.getTimers());
-      writeGauges(json, metricRegistry.getGauges());
-      writeMeters(json, metricRegistry.getMeters());
-      writeCounters(json, metricRegistry.getCounters());
-      writeHistograms(json, metricRegistry.getHistograms());
+      json.writeBooleanField("delta", delta);
+      writeTimers(json, metricRegistry.getTimers(), include);
+      writeGauges(json, metricRegistry.getGauges(), include);
+      writeMeters(json, metricRegistry.getMeters(), include);
+      writeCounters(json, metricRegistry.getCounters(), include);
+      writeHistograms(json, metricRegistry.getHistograms(), include);
       json.writeEndObject();
 
       json.flush();
@@ -78,9 +93,12 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
     }
   }
 
-  private void writeHistograms(JsonGenerator json, SortedMap<String, Histogram> histograms) throws IOException {
+  private void writeHistograms(JsonGenerator json, SortedMap<String, Histogram> histograms, Predicate<String> include) throws IOException {
     json.writeArrayFieldStart("histograms");
     for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      if (!include.test(entry.getKey())) {
+        continue;
+      }
       Histogram histogram = entry.getValue();
 
       json.writeStartObject();
@@ -103,9 +121,12 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
     json.writeEndArray();
   }
 
-  private void writeCounters(JsonGenerator json, SortedMap<String, Counter> counters) throws IOException {
+  private void writeCounters(JsonGenerator json, SortedMap<String, Counter> counters, Predicate<String> include) throws IOException {
     json.writeArrayFieldStart("counters");
     for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      if (!include.test(entry.getKey())) {
+        continue;
+      }
       Counter counter = entry.getValue();
 
       json.writeStartObject();
@@ -116,9 +137,12 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
     json.writeEndArray();
   }
 
-  private void writeMeters(JsonGenerator json, SortedMap<String, Meter> meters) throws IOException {
+  private void writeMeters(JsonGenerator json, SortedMap<String, Meter> meters, Predicate<String> include) throws IOException {
     json.writeArrayFieldStart("meters");
     for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+      if (!include.test(entry.getKey())) {
+        continue;
+      }
       Meter meter = entry.getValue();
 
       json.writeStartObject();
@@ -133,9 +157,12 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
     json.writeEndArray();
   }
 
-  private void writeTimers(JsonGenerator json, SortedMap<String, Timer> timers) throws IOException {
+  private void writeTimers(JsonGenerator json, SortedMap<String, Timer> timers, Predicate<String> include) throws IOException {
     json.writeArrayFieldStart("timers");
     for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+      if (!include.test(entry.getKey())) {
+        continue;
+      }
       Timer timer = entry.getValue();
 
       json.writeStartObject();
@@ -163,9 +190,12 @@ public class MetricRegistryJsonMapper implements Function<MetricRegistry, ByteBu
   }
 
   @SuppressWarnings("rawtypes")
-  private void writeGauges(JsonGenerator json, SortedMap<String, Gauge> gauges) throws IOException {
+  private void writeGauges(JsonGenerator json, SortedMap<String, Gauge> gauges, Predicate<String> include) throws IOException {
     json.writeArrayFieldStart("gauges");
     for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+      if (!include.test(entry.getKey())) {
+        continue;
+      }
       Gauge gauge = entry.getValue();
 
       json.writeStartObject();
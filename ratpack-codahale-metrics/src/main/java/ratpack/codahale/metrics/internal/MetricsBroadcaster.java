@@ -16,18 +16,210 @@
 
 package ratpack.codahale.metrics.internal;
 
-import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.*;
+import io.netty.buffer.ByteBuf;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.codahale.metrics.CodaHaleMetricsModule;
+import ratpack.exec.ExecController;
 
 import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * A message broadcaster for sending metrics to its subscribers.
+ * <p>
+ * While there are subscribers, the metric registry is checked each reporting interval for metrics that have changed since the previous check.
+ * A metric has changed if its count (for counters, meters, histograms and timers) or value (for gauges) has changed.
+ * The changed metrics are serialized once per distinct subscriber filter, and each subscriber receives a retained duplicate of the shared buffer.
+ * <p>
+ * Subscribers receive all metrics (matching their filter) in their first report, and only changed metrics after that.
+ * A subscriber that has no outstanding demand when a report is made misses that report, and receives all metrics in its next report.
  */
-public class MetricsBroadcaster extends ratpack.stream.internal.MulticastPublisher<MetricRegistry> {
+public class MetricsBroadcaster {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricsBroadcaster.class);
+
+  private final MetricRegistry metricRegistry;
+  private final MetricRegistryJsonMapper mapper;
+  private final ScheduledExecutorService executor;
+  private final long intervalMillis;
+
+  private final Set<BroadcastSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private ScheduledFuture<?> ticker;
+
+  // Only accessed by the ticker, which never runs concurrently with itself
+  private Map<String, Object> previousState = Collections.emptyMap();
 
   @Inject
-  public MetricsBroadcaster(MetricRegistryPeriodicPublisher publisher) {
-    super(publisher);
+  public MetricsBroadcaster(MetricRegistry metricRegistry, MetricRegistryJsonMapper mapper, CodaHaleMetricsModule.Config config, ExecController execController) {
+    this.metricRegistry = metricRegistry;
+    this.mapper = mapper;
+    this.executor = execController.getExecutor();
+    this.intervalMillis = config.getWebSocket().getReporterInterval().toMillis();
+  }
+
+  /**
+   * A publisher of metric reports.
+   *
+   * @param filter a pattern that the names of reported metrics must contain a match for, or {@code null} to report all metrics
+   * @return a publisher of metric reports
+   */
+  public Publisher<ByteBuf> reports(Pattern filter) {
+    return subscriber -> subscriber.onSubscribe(new BroadcastSubscription(subscriber, filter));
+  }
+
+  private synchronized void subscribed(BroadcastSubscription subscription) {
+    if (subscriptions.add(subscription) && ticker == null) {
+      ticker = executor.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private synchronized void unsubscribed(BroadcastSubscription subscription) {
+    if (subscriptions.remove(subscription) && subscriptions.isEmpty() && ticker != null) {
+      ticker.cancel(false);
+      ticker = null;
+      previousState = Collections.emptyMap();
+    }
+  }
+
+  private void tick() {
+    try {
+      broadcast(changedMetrics());
+    } catch (Exception e) {
+      LOGGER.warn("Failed to broadcast metrics", e);
+    }
+  }
+
+  private Set<String> changedMetrics() {
+    Map<String, Metric> metrics = metricRegistry.getMetrics();
+    Map<String, Object> state = new HashMap<>(metrics.size() * 2);
+    Set<String> changed = new HashSet<>();
+    for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+      Object value = stateOf(entry.getValue());
+      state.put(entry.getKey(), value);
+      if (!Objects.equals(value, previousState.get(entry.getKey()))) {
+        changed.add(entry.getKey());
+      }
+    }
+    previousState = state;
+    return changed;
+  }
+
+  private static Object stateOf(Metric metric) {
+    if (metric instanceof Counting) {
+      return ((Counting) metric).getCount();
+    } else if (metric instanceof Gauge) {
+      try {
+        return ((Gauge<?>) metric).getValue();
+      } catch (Exception e) {
+        return null;
+      }
+    } else {
+      return null;
+    }
+  }
+
+  private void broadcast(Set<String> changed) throws Exception {
+    Map<String, ByteBuf> fullReports = new HashMap<>();
+    Map<String, ByteBuf> deltaReports = new HashMap<>();
+    try {
+      for (BroadcastSubscription subscription : subscriptions) {
+        boolean full = subscription.needsFullReport;
+        if (!full && !subscription.anyMatch(changed)) {
+          continue;
+        }
+        if (!subscription.claimDemand()) {
+          subscription.needsFullReport = true;
+          continue;
+        }
+
+        Map<String, ByteBuf> reports = full ? fullReports : deltaReports;
+        ByteBuf report = reports.get(subscription.filterKey);
+        if (report == null) {
+          report = full
+            ? mapper.apply(metricRegistry, subscription::matches, false)
+            : mapper.apply(metricRegistry, name -> changed.contains(name) && subscription.matches(name), true);
+          reports.put(subscription.filterKey, report);
+        }
+
+        subscription.needsFullReport = false;
+        subscription.subscriber.onNext(report.duplicate().retain());
+      }
+    } finally {
+      fullReports.values().forEach(ByteBuf::release);
+      deltaReports.values().forEach(ByteBuf::release);
+    }
+  }
+
+  private class BroadcastSubscription implements Subscription {
+
+    private final Subscriber<? super ByteBuf> subscriber;
+    private final Pattern filter;
+    private final String filterKey;
+    private final AtomicLong demand = new AtomicLong();
+    private volatile boolean needsFullReport = true;
+    private volatile boolean cancelled;
+
+    private BroadcastSubscription(Subscriber<? super ByteBuf> subscriber, Pattern filter) {
+      this.subscriber = subscriber;
+      this.filter = filter;
+      this.filterKey = filter == null ? "" : filter.pattern();
+    }
+
+    private boolean matches(String name) {
+      return filter == null || filter.matcher(name).find();
+    }
+
+    private boolean anyMatch(Set<String> names) {
+      for (String name : names) {
+        if (matches(name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean claimDemand() {
+      while (true) {
+        long current = demand.get();
+        if (current == 0) {
+          return false;
+        }
+        if (current == Long.MAX_VALUE || demand.compareAndSet(current, current - 1)) {
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public void request(long n) {
+      if (cancelled) {
+        return;
+      }
+      if (n < 1) {
+        cancel();
+        subscriber.onError(new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0."));
+        return;
+      }
+      demand.getAndUpdate(current -> current + n < current ? Long.MAX_VALUE : current + n);
+      subscribed(this);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      unsubscribed(this);
+    }
   }
 
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4) directly into a chain of buffers.
+ * <p>
+ * Output is written into fixed size chunks from the allocator, which are joined into a composite buffer when {@link #finish() finished},
+ * so a large report is never copied to grow a buffer.
+ * Metric names are sanitized once and cached as bytes, along with the names of their samples, and numbers are formatted into a reused builder,
+ * so writing a metric does not create intermediate strings.
+ * <p>
+ * Instances are not thread safe, and are intended to be used for a single report.
+ */
+public class PrometheusTextWriter {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final int CHUNK_SIZE = 8192;
+  private static final int MAX_CACHED_NAMES = 10000;
+
+  private static final ConcurrentMap<String, Name> NAMES = new ConcurrentHashMap<>();
+
+  private final ByteBufAllocator allocator;
+  private final CompositeByteBuf buffer;
+  private final StringBuilder number = new StringBuilder(32);
+  private ByteBuf chunk;
+
+  public PrometheusTextWriter(ByteBufAllocator allocator) {
+    this.allocator = allocator;
+    this.buffer = allocator.compositeBuffer(Integer.MAX_VALUE);
+    this.chunk = allocator.ioBuffer(CHUNK_SIZE, CHUNK_SIZE);
+  }
+
+  /**
+   * A sanitized metric name, along with the names of the samples derived from it.
+   */
+  public static final class Name {
+
+    private final String name;
+    private final byte[] bytes;
+    private final ConcurrentMap<String, String> samples = new ConcurrentHashMap<>(4);
+
+    private Name(String name) {
+      this.name = name;
+      this.bytes = name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The ASCII bytes of the sanitized name.
+     *
+     * @return the ASCII bytes of the sanitized name
+     */
+    public byte[] getBytes() {
+      return bytes;
+    }
+
+    /**
+     * The name of a sample of this metric, i.e. the sanitized name followed by the suffix.
+     * <p>
+     * Sample names are cached, so that they can be compared across metrics on each report without being rebuilt.
+     *
+     * @param suffix the sample suffix (e.g. {@code _total})
+     * @return the sample name
+     */
+    public String sample(String suffix) {
+      String sample = samples.get(suffix);
+      if (sample == null) {
+        sample = name + suffix;
+        samples.put(suffix, sample);
+      }
+      return sample;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * Converts a metric name to a valid Prometheus metric name, by replacing each run of invalid characters with an underscore.
+   * <p>
+   * For example, {@code [author][:id][books]~GET~Request} becomes {@code author_id_books_GET_Request}.
+   *
+   * @param name the metric name
+   * @return the sanitized name
+   */
+  public static Name name(String name) {
+    Name sanitized = NAMES.get(name);
+    if (sanitized == null) {
+      sanitized = new Name(sanitize(name));
+      if (NAMES.size() >= MAX_CACHED_NAMES) {
+        NAMES.clear();
+      }
+      NAMES.put(name, sanitized);
+    }
+    return sanitized;
+  }
+
+  private static String sanitize(String name) {
+    StringBuilder sanitized = new StringBuilder(name.length());
+    boolean separate = false;
+    for (int i = 0; i < name.length(); ++i) {
+      char c = name.charAt(i);
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+        if (separate && sanitized.length() > 0) {
+          sanitized.append('_');
+        }
+        separate = false;
+        sanitized.append(c);
+      } else {
+        separate = true;
+      }
+    }
+    if (sanitized.length() == 0 || Character.isDigit(sanitized.charAt(0))) {
+      sanitized.insert(0, '_');
+    }
+    return sanitized.toString();
+  }
+
+  public PrometheusTextWriter type(byte[] name, String suffix, String type) {
+    ascii("# TYPE ").bytes(name).ascii(suffix).ascii(" ").ascii(type).newLine();
+    return this;
+  }
+
+  public PrometheusTextWriter sample(byte[] name, String suffix, double value) {
+    bytes(name).ascii(suffix).ascii(" ").number(value).newLine();
+    return this;
+  }
+
+  public PrometheusTextWriter sample(byte[] name, String suffix, long value) {
+    bytes(name).ascii(suffix).ascii(" ").number(value).newLine();
+    return this;
+  }
+
+  public PrometheusTextWriter quantile(byte[] name, String quantile, double value) {
+    bytes(name).ascii("{quantile=\"").ascii(quantile).ascii("\"} ").number(value).newLine();
+    return this;
+  }
+
+  public PrometheusTextWriter labelled(byte[] name, String label, String labelValue, long value) {
+    bytes(name).ascii("{").ascii(label).ascii("=\"").labelValue(labelValue).ascii("\"} ").number(value).newLine();
+    return this;
+  }
+
+  private PrometheusTextWriter labelValue(String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == '"') {
+        ascii(c == '\\' ? "\\\\" : "\\\"");
+      } else if (c == '\n') {
+        ascii("\\n");
+      } else if (c < 0x80) {
+        ensure(1);
+        chunk.writeByte(c);
+      } else {
+        // Rare; label values are health check names
+        bytes(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return this;
+  }
+
+  private PrometheusTextWriter number(double value) {
+    if (Double.isNaN(value)) {
+      return ascii("NaN");
+    } else if (Double.isInfinite(value)) {
+      return ascii(value > 0 ? "+Inf" : "-Inf");
+    } else {
+      number.setLength(0);
+      number.append(value);
+      return ascii(number);
+    }
+  }
+
+  private PrometheusTextWriter number(long value) {
+    number.setLength(0);
+    number.append(value);
+    return ascii(number);
+  }
+
+  private PrometheusTextWriter newLine() {
+    ensure(1);
+    chunk.writeByte('\n');
+    return this;
+  }
+
+  private PrometheusTextWriter ascii(CharSequence chars) {
+    int length = chars.length();
+    ensure(length);
+    for (int i = 0; i < length; ++i) {
+      chunk.writeByte(chars.charAt(i));
+    }
+    return this;
+  }
+
+  private PrometheusTextWriter bytes(byte[] bytes) {
+    ensure(bytes.length);
+    chunk.writeBytes(bytes);
+    return this;
+  }
+
+  private void ensure(int length) {
+    if (chunk.writableBytes() < length) {
+      addChunk();
+      int size = Math.max(CHUNK_SIZE, length);
+      chunk = allocator.ioBuffer(size, size);
+    }
+  }
+
+  private void addChunk() {
+    if (chunk.isReadable()) {
+      buffer.addComponent(chunk);
+      buffer.writerIndex(buffer.writerIndex() + chunk.readableBytes());
+    } else {
+      chunk.release();
+    }
+  }
+
+  /**
+   * Completes the report.
+   *
+   * @return the buffer containing the report
+   */
+  public ByteBuf finish() {
+    addChunk();
+    chunk = null;
+    return buffer;
+  }
+
+  /**
+   * Releases the buffers written so far, for when the report cannot be completed.
+   */
+  public void release() {
+    if (chunk != null) {
+      chunk.release();
+      chunk = null;
+    }
+    buffer.release();
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics.internal;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import ratpack.codahale.metrics.CodaHaleMetricsModule;
+import ratpack.codahale.metrics.HdrHistogramReservoir;
+import ratpack.codahale.metrics.RouteName;
+import ratpack.handling.Context;
+import ratpack.path.PathBinding;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the request and blocking {@link Timer timers} for the route that is handling a request.
+ * <p>
+ * The route is the {@link RouteName} in the context registry if there is one,
+ * otherwise the {@link PathBinding#getDescription() description} of the contextual path binding.
+ * Timers are named after the route and the request method, for example a {@code GET} request bound with
+ * {@code author/:id/books} is timed by {@code [author][:id][books]~GET~Request}.
+ * Blocking operations are timed by {@code ~Blocking} (time spent executing) and {@code ~BlockingWait} (time spent waiting for a blocking thread) timers.
+ * <p>
+ * Timer names are built once per route and method, and timers are cached so that looking one up does not go through the metric registry.
+ * Once {@link CodaHaleMetricsModule.Config#getRequestTimerLimit()} timers have been created, requests for new routes
+ * or methods are timed by the shared {@code [other]~Request}, {@code [other]~Blocking} and {@code [other]~BlockingWait} timers.
+ * <p>
+ * Blocking operations are also timed for the blocking thread pool as a whole, by the {@code ratpack.blocking.execution} and {@code ratpack.blocking.wait} timers.
+ * <p>
+ * If {@link CodaHaleMetricsModule.Config#isHdrHistogram()}, timers record into a {@link HdrHistogramReservoir}.
+ */
+public class RequestTimers {
+
+  public static final String OTHER_REQUEST_TIMER = "[other]~Request";
+  public static final String OTHER_BLOCKING_TIMER = "[other]~Blocking";
+  public static final String OTHER_BLOCKING_WAIT_TIMER = "[other]~BlockingWait";
+  public static final String BLOCKING_POOL_EXECUTION_TIMER = "ratpack.blocking.execution";
+  public static final String BLOCKING_POOL_WAIT_TIMER = "ratpack.blocking.wait";
+
+  private enum Kind {
+    REQUEST("~Request", OTHER_REQUEST_TIMER),
+    BLOCKING("~Blocking", OTHER_BLOCKING_TIMER),
+    BLOCKING_WAIT("~BlockingWait", OTHER_BLOCKING_WAIT_TIMER);
+
+    private final String suffix;
+    private final String other;
+
+    Kind(String suffix, String other) {
+      this.suffix = suffix;
+      this.other = other;
+    }
+  }
+
+  private final MetricRegistry metricRegistry;
+  private final int limit;
+  private final boolean hdrHistogram;
+
+  private final ConcurrentMap<String, RouteTimers> routes = new ConcurrentHashMap<>();
+  private final AtomicInteger timerCount = new AtomicInteger();
+  private final Timer[] otherTimers = new Timer[Kind.values().length];
+  private volatile Timer blockingPoolExecutionTimer;
+  private volatile Timer blockingPoolWaitTimer;
+
+  private static class RouteTimers {
+    private final String prefix;
+    private final List<ConcurrentMap<String, Timer>> timers = new ArrayList<>(Kind.values().length);
+
+    private RouteTimers(String route) {
+      this.prefix = (route.isEmpty() ? "[root" : "[" + route.replace("/", "][")) + "]~";
+      for (Kind ignored : Kind.values()) {
+        timers.add(new ConcurrentHashMap<>(4));
+      }
+    }
+  }
+
+  @Inject
+  public RequestTimers(MetricRegistry metricRegistry, CodaHaleMetricsModule.Config config) {
+    this(metricRegistry, config.getRequestTimerLimit(), config.isHdrHistogram());
+  }
+
+  public RequestTimers(MetricRegistry metricRegistry, int limit, boolean hdrHistogram) {
+    this.metricRegistry = metricRegistry;
+    this.limit = limit;
+    this.hdrHistogram = hdrHistogram;
+  }
+
+  public Timer requestTimer(Context context) {
+    return timer(context, Kind.REQUEST);
+  }
+
+  public Timer blockingTimer(Context context) {
+    return timer(context, Kind.BLOCKING);
+  }
+
+  public Timer blockingWaitTimer(Context context) {
+    return timer(context, Kind.BLOCKING_WAIT);
+  }
+
+  public Timer blockingPoolExecutionTimer() {
+    Timer timer = blockingPoolExecutionTimer;
+    if (timer == null) {
+      timer = newTimer(BLOCKING_POOL_EXECUTION_TIMER);
+      blockingPoolExecutionTimer = timer;
+    }
+    return timer;
+  }
+
+  public Timer blockingPoolWaitTimer() {
+    Timer timer = blockingPoolWaitTimer;
+    if (timer == null) {
+      timer = newTimer(BLOCKING_POOL_WAIT_TIMER);
+      blockingPoolWaitTimer = timer;
+    }
+    return timer;
+  }
+
+  private Timer timer(Context context, Kind kind) {
+    String name = route(context);
+    RouteTimers route = routes.get(name);
+    if (route == null) {
+      if (routes.size() >= limit) {
+        return other(kind);
+      }
+      route = routes.computeIfAbsent(name, RouteTimers::new);
+    }
+
+    String method = context.getRequest().getMethod().getName();
+    ConcurrentMap<String, Timer> timers = route.timers.get(kind.ordinal());
+    Timer timer = timers.get(method);
+    if (timer == null) {
+      if (timerCount.get() >= limit) {
+        return other(kind);
+      }
+      String prefix = route.prefix;
+      timer = timers.computeIfAbsent(method, m -> {
+        timerCount.incrementAndGet();
+        return newTimer(prefix + m + kind.suffix);
+      });
+    }
+    return timer;
+  }
+
+  private Timer other(Kind kind) {
+    Timer timer = otherTimers[kind.ordinal()];
+    if (timer == null) {
+      timer = newTimer(kind.other);
+      otherTimers[kind.ordinal()] = timer;
+    }
+    return timer;
+  }
+  private Timer newTimer(String name) {
+    if (hdrHistogram) {
+      try {
+        return metricRegistry.register(name, new Timer(new HdrHistogramReservoir()));
+      } catch (IllegalArgumentException e) {
+        // already registered
+        return metricRegistry.timer(name);
+      }
+    } else {
+      return metricRegistry.timer(name);
+    }
+  }
+
+  private static String route(Context context) {
+    return context.maybeGet(RouteName.class)
+      .map(RouteName::getName)
+      .orElseGet(() -> context.maybeGet(PathBinding.class).map(PathBinding::getDescription).orElse(""));
+  }
+
+}
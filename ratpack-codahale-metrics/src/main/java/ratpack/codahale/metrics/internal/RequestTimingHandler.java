@@ -16,62 +16,83 @@
 
 package ratpack.codahale.metrics.internal;
 
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import ratpack.func.Action;
 import ratpack.handling.Context;
 import ratpack.handling.Handler;
+import ratpack.handling.RequestOutcome;
 import ratpack.http.Request;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A handler implementation that collects {@link Timer} metrics for a {@link Request}.
  * <p>
- * Metrics are grouped by {@link ratpack.http.Request#getUri()} and {@link ratpack.http.Request#getMethod()}.
+ * Metrics are grouped by the route that handled the request and {@link ratpack.http.Request#getMethod()}.
+ * The route is the description of the {@link ratpack.path.PathBinding} of the handler that responded, unless a {@link ratpack.codahale.metrics.RouteName} was given.
  * For example, the following requests...
  *
  * <pre>
  * /
  * /book
  * /author/1/books
- * /js/jquery.min.js
- * /css/bootstrap.min.css
+ * /author/2/books
  * </pre>
  *
- * will be reported as...
+ * handled by the routes {@code get()}, {@code get("book")} and {@code get("author/:id/books")} will be reported as...
  *
  * <pre>
  * [root]~GET~Request
  * [book]~GET~Request
- * [author][1][books]~GET~Request
- * [js][jquery.min.js]~GET~Request
- * [css][bootstrap.min.css]~GET~Request
+ * [author][:id][books]~GET~Request
  * </pre>
  *
+ * @see RequestTimers
  */
 public class RequestTimingHandler implements Handler {
 
+  private final RequestTimers requestTimers;
   private final Handler rest;
 
-  public RequestTimingHandler(Handler rest) {
+  public RequestTimingHandler(RequestTimers requestTimers, Handler rest) {
+    this.requestTimers = requestTimers;
     this.rest = rest;
   }
 
   @Override
   public void handle(final Context context) throws Exception {
-    final MetricRegistry metricRegistry = context.get(MetricRegistry.class);
-    final Request request = context.getRequest();
-    BlockingExecTimingInterceptor blockingExecTimingInterceptor = new BlockingExecTimingInterceptor(metricRegistry, request);
+    BlockingExecTimingInterceptor blockingExecTimingInterceptor = new BlockingExecTimingInterceptor(requestTimers, context);
 
     context.addInterceptor(blockingExecTimingInterceptor, () -> {
-      String tag = buildRequestTimerTag(request.getUri(), request.getMethod().getName());
-      final Timer.Context timer = metricRegistry.timer(tag).time();
-      context.onClose(thing -> timer.stop());
+      RequestTiming timing = new RequestTiming(context);
+      context.getResponse().beforeSend(timing);
+      context.onClose(timing);
       context.insert(rest);
     });
   }
 
-  private String buildRequestTimerTag(String requestUri, String requestMethod) {
-    return (requestUri.equals("/") ? "[root" : requestUri.replaceFirst("/", "[").replace("/", "][")) + "]~" + requestMethod + "~Request";
+  /**
+   * The route is only known once a handler responds, at which point the context reflects that handler's registry.
+   * The timer is resolved before the response is sent where possible, and when the request completes otherwise.
+   */
+  private class RequestTiming implements Action<Object> {
+    private final Context context;
+    private final long start = System.nanoTime();
+    private Timer timer;
+
+    private RequestTiming(Context context) {
+      this.context = context;
+    }
+
+    @Override
+    public void execute(Object event) {
+      if (timer == null) {
+        timer = requestTimers.requestTimer(context);
+      }
+      if (event instanceof RequestOutcome) {
+        timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
   }
 
 }
-
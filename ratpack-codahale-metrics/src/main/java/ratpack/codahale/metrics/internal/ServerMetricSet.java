@@ -0,0 +1,196 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics.internal;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.ImmutableMap;
+import io.netty.buffer.*;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import ratpack.exec.ExecController;
+import ratpack.server.RatpackServer;
+import ratpack.server.internal.ChannelCounter;
+import ratpack.server.internal.NettyRatpackServer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Gauges for the internals of the server: the compute event loops, the blocking thread pool, connections and the pooled buffer allocator.
+ */
+public class ServerMetricSet implements MetricSet {
+
+  private static final long UTILIZATION_SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ExecController execController;
+  private final RatpackServer server;
+  private final ByteBufAllocator allocator;
+
+  public ServerMetricSet(ExecController execController, RatpackServer server, ByteBufAllocator allocator) {
+    this.execController = execController;
+    this.server = server;
+    this.allocator = allocator;
+  }
+
+  @Override
+  public ImmutableMap<String, Metric> getMetrics() {
+    ImmutableMap.Builder<String, Metric> metrics = ImmutableMap.builder();
+    computeMetrics(metrics);
+    blockingMetrics(metrics);
+    channelMetrics(metrics);
+    allocatorMetrics(metrics);
+    return metrics.build();
+  }
+
+  private void computeMetrics(ImmutableMap.Builder<String, Metric> metrics) {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    boolean cpuTime = threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+
+    int i = 0;
+    for (EventExecutor executor : execController.getEventLoopGroup()) {
+      String prefix = "ratpack.compute." + i++ + ".";
+      if (executor instanceof SingleThreadEventExecutor) {
+        SingleThreadEventExecutor loop = (SingleThreadEventExecutor) executor;
+        metrics.put(prefix + "pending-tasks", (Gauge<Integer>) loop::pendingTasks);
+      }
+      if (cpuTime) {
+        metrics.put(prefix + "utilization", new UtilizationGauge(executor, threads));
+      }
+    }
+  }
+
+  private void blockingMetrics(ImmutableMap.Builder<String, Metric> metrics) {
+    ExecutorService blockingExecutor = execController.getBlockingExecutor();
+    if (blockingExecutor instanceof ThreadPoolExecutor) {
+      ThreadPoolExecutor pool = (ThreadPoolExecutor) blockingExecutor;
+      metrics.put("ratpack.blocking.pool-size", (Gauge<Integer>) pool::getPoolSize);
+      metrics.put("ratpack.blocking.largest-pool-size", (Gauge<Integer>) pool::getLargestPoolSize);
+      metrics.put("ratpack.blocking.active-threads", (Gauge<Integer>) pool::getActiveCount);
+      metrics.put("ratpack.blocking.queue-size", (Gauge<Integer>) () -> pool.getQueue().size());
+      metrics.put("ratpack.blocking.completed-tasks", (Gauge<Long>) pool::getCompletedTaskCount);
+    }
+  }
+
+  private void channelMetrics(ImmutableMap.Builder<String, Metric> metrics) {
+    if (server instanceof NettyRatpackServer) {
+      ChannelCounter channels = ((NettyRatpackServer) server).getChannelCounter();
+      metrics.put("ratpack.channels.open", (Gauge<Integer>) channels::getOpen);
+      metrics.put("ratpack.channels.accepted", (Gauge<Long>) channels::getAccepted);
+    }
+  }
+
+  private void allocatorMetrics(ImmutableMap.Builder<String, Metric> metrics) {
+    if (allocator instanceof PooledByteBufAllocator) {
+      PooledByteBufAllocator pooled = (PooledByteBufAllocator) allocator;
+      arenaMetrics(metrics, "netty.allocator.direct.", pooled.directArenas());
+      arenaMetrics(metrics, "netty.allocator.heap.", pooled.heapArenas());
+    }
+  }
+
+  private static void arenaMetrics(ImmutableMap.Builder<String, Metric> metrics, String prefix, List<PoolArenaMetric> arenas) {
+    metrics.put(prefix + "arenas", (Gauge<Integer>) arenas::size);
+    metrics.put(prefix + "used", (Gauge<Long>) () -> sum(arenas, ServerMetricSet::usedBytes));
+    metrics.put(prefix + "active-allocations", (Gauge<Long>) () -> sum(arenas, PoolArenaMetric::numActiveAllocations));
+    metrics.put(prefix + "allocations", (Gauge<Long>) () -> sum(arenas, PoolArenaMetric::numAllocations));
+    metrics.put(prefix + "deallocations", (Gauge<Long>) () -> sum(arenas, PoolArenaMetric::numDeallocations));
+  }
+
+  private static long usedBytes(PoolArenaMetric arena) {
+    long used = 0;
+    for (PoolChunkListMetric chunkList : arena.chunkLists()) {
+      for (PoolChunkMetric chunk : chunkList) {
+        used += chunk.chunkSize() - chunk.freeBytes();
+      }
+    }
+    return used;
+  }
+
+  private static long sum(List<PoolArenaMetric> arenas, ToLongFunction<PoolArenaMetric> metric) {
+    long sum = 0;
+    for (PoolArenaMetric arena : arenas) {
+      sum += metric.applyAsLong(arena);
+    }
+    return sum;
+  }
+
+  /**
+   * The share of wall clock time that an event loop thread spent on the CPU, sampled at most once a second.
+   * <p>
+   * Event loops block in the selector when idle, so CPU time is a measure of how busy the loop is.
+   */
+  private static class UtilizationGauge implements Gauge<Double> {
+
+    private final EventExecutor executor;
+    private final ThreadMXBean threads;
+
+    private volatile Thread thread;
+    private long lastCpuTime = -1;
+    private long lastSampleTime;
+    private double utilization = Double.NaN;
+
+    private UtilizationGauge(EventExecutor executor, ThreadMXBean threads) {
+      this.executor = executor;
+      this.threads = threads;
+    }
+
+    @Override
+    public synchronized Double getValue() {
+      Thread thread = this.thread;
+      if (thread == null) {
+        captureThread();
+        return utilization;
+      }
+
+      long now = System.nanoTime();
+      long cpuTime = threads.getThreadCpuTime(thread.getId());
+      if (cpuTime == -1) {
+        return Double.NaN;
+      }
+      if (lastCpuTime == -1) {
+        lastCpuTime = cpuTime;
+        lastSampleTime = now;
+      } else if (now - lastSampleTime >= UTILIZATION_SAMPLE_NANOS) {
+        utilization = Math.min(1.0, (cpuTime - lastCpuTime) / (double) (now - lastSampleTime));
+        lastCpuTime = cpuTime;
+        lastSampleTime = now;
+      }
+      return utilization;
+    }
+
+    private void captureThread() {
+      // Never block waiting on the loop, as the gauge may be read from the loop itself
+      if (executor.inEventLoop()) {
+        thread = Thread.currentThread();
+      } else {
+        try {
+          executor.execute(() -> thread = Thread.currentThread());
+        } catch (RejectedExecutionException ignore) {
+          // shutting down
+        }
+      }
+    }
+  }
+
+}
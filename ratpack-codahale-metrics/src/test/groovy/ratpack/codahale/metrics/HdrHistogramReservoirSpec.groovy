@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics
+
+import com.codahale.metrics.Clock
+import com.codahale.metrics.Timer
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class HdrHistogramReservoirSpec extends Specification {
+
+  long tick = 0
+  def clock = new Clock() {
+    @Override
+    long getTick() {
+      tick
+    }
+  }
+  def reservoir = new HdrHistogramReservoir(3, Duration.ofSeconds(10), clock)
+
+  def "empty snapshot"() {
+    when:
+    def snapshot = reservoir.snapshot
+
+    then:
+    snapshot.size() == 0
+    snapshot.min == 0
+    snapshot.max == 0
+    snapshot.mean == 0
+    snapshot.median == 0
+    snapshot.values.length == 0
+  }
+
+  def "reports high percentiles"() {
+    when:
+    (1..10000).each { reservoir.update(it) }
+    def snapshot = reservoir.snapshot
+
+    then:
+    snapshot.size() == 10000
+    snapshot.min == 1
+    snapshot.max in (10000..10010)
+    snapshot.median in (4995..5005)
+    snapshot.get999thPercentile() in (9985..10000)
+    snapshot.getValue(0.9999) in (9994..10010)
+    snapshot.values.length == 10000
+  }
+
+  def "snapshots cover the current and previous windows"() {
+    when:
+    reservoir.update(1)
+    tick = TimeUnit.SECONDS.toNanos(5)
+
+    then:
+    reservoir.snapshot.size() == 1
+
+    when:
+    tick = TimeUnit.SECONDS.toNanos(12)
+    reservoir.update(2)
+
+    then:
+    reservoir.snapshot.size() == 2
+
+    when:
+    tick = TimeUnit.SECONDS.toNanos(25)
+    reservoir.update(3)
+
+    then:
+    reservoir.snapshot.size() == 1
+    reservoir.snapshot.min == 3
+  }
+
+  def "can back a timer"() {
+    given:
+    def timer = new Timer(reservoir)
+
+    when:
+    timer.update(5, TimeUnit.MILLISECONDS)
+
+    then:
+    timer.count == 1
+    Math.abs(timer.snapshot.max - TimeUnit.MILLISECONDS.toNanos(5)) <= TimeUnit.MILLISECONDS.toNanos(5) / 1000
+  }
+
+}
@@ -32,6 +32,8 @@ import spock.util.concurrent.PollingConditions
 import java.time.Duration
 import java.util.concurrent.TimeUnit
 
+import static ratpack.registry.Registries.just
+
 class MetricsSpec extends RatpackGroovyDslSpec {
 
   @SuppressWarnings("GroovyUnusedDeclaration")
@@ -343,6 +345,98 @@ class MetricsSpec extends RatpackGroovyDslSpec {
     (1.._) * reporter.onGaugeAdded(!null, { it.class.name.startsWith("com.codahale.metrics.jvm.MemoryUsageGaugeSet") })
   }
 
+  def "request timers are named after the route rather than the request path"() {
+    def reporter = Mock(MetricRegistryListener)
+
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true) }
+    }
+
+    handlers { MetricRegistry metrics ->
+      metrics.addListener(reporter)
+
+      prefix("author/:id") {
+        get("books") {
+          render ""
+        }
+      }
+      prefix("named") {
+        handler {
+          next(just(RouteName, RouteName.of("custom")))
+        }
+        get(":id") {
+          render ""
+        }
+      }
+    }
+
+    when:
+    get("author/1/books")
+    get("author/2/books")
+    get("named/1")
+    get("named/2")
+
+    then:
+    1 * reporter.onTimerAdded("[author][:id][books]~GET~Request", !null)
+    1 * reporter.onTimerAdded("[custom]~GET~Request", !null)
+    0 * reporter.onTimerAdded(_, _)
+  }
+
+  def "number of request timers is limited"() {
+    def reporter = Mock(MetricRegistryListener)
+
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true).requestTimerLimit(1) }
+    }
+
+    handlers { MetricRegistry metrics ->
+      metrics.addListener(reporter)
+
+      get("a") {
+        render ""
+      }
+      get("b") {
+        render ""
+      }
+    }
+
+    when:
+    get("a")
+    get("b")
+    get("b")
+
+    then:
+    1 * reporter.onTimerAdded("[a]~GET~Request", !null)
+    1 * reporter.onTimerAdded("[other]~Request", !null)
+    0 * reporter.onTimerAdded(_, _)
+  }
+
+  def "can collect server metrics"() {
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true).serverMetrics(true) }
+    }
+
+    handlers { MetricRegistry metrics ->
+      handler {
+        def gauges = metrics.gauges
+        render([
+          gauges["ratpack.compute.0.pending-tasks"].value >= 0,
+          gauges["ratpack.blocking.pool-size"].value >= 0,
+          gauges["ratpack.channels.open"].value >= 1,
+          gauges["ratpack.channels.accepted"].value >= 1,
+          gauges["netty.allocator.direct.arenas"].value >= 0,
+          gauges["netty.allocator.direct.used"].value >= 0,
+        ].join(","))
+      }
+    }
+
+    expect:
+    text == "true,true,true,true,true,true"
+  }
+
   def "can use metrics endpoint"() {
     given:
     bindings {
@@ -376,11 +470,7 @@ class MetricsSpec extends RatpackGroovyDslSpec {
 
     then:
     new JsonSlurper().parseText(client.received.poll(2, TimeUnit.SECONDS)).with {
-      timers.size() == 2
-      timers[0].name == "[admin][metrics-report]~GET~Request"
-      timers[0].count == 0
-      timers[1].name == "[root]~GET~Request"
-      timers[1].count == 2
+      timers.find { it.name == "[root]~GET~Request" }.count == 2
 
       gauges.size() == 1
       gauges[0].name == "fooGauge"
@@ -403,16 +493,12 @@ class MetricsSpec extends RatpackGroovyDslSpec {
     2.times { getText() }
 
     then:
-    new JsonSlurper().parseText(client.received.poll(2, TimeUnit.SECONDS)).with {
-      timers.size() == 2
-      timers[0].name == "[admin][metrics-report]~GET~Request"
-      timers[0].count == 0
-      timers[1].name == "[root]~GET~Request"
-      timers[1].count == 4
+    receiveUntil(client) { it.counters.find { it.name == "fooCounter" }?.count == 4 }.with {
+      delta == true
 
-      gauges.size() == 1
-      gauges[0].name == "fooGauge"
-      gauges[0].value == 2
+      timers.find { it.name == "[root]~GET~Request" }.count == 4
+
+      gauges.size() == 0
 
       meters.size() == 1
       meters[0].name == "fooMeter"
@@ -431,13 +517,90 @@ class MetricsSpec extends RatpackGroovyDslSpec {
     client?.closeBlocking()
   }
 
-  def RecordingWebSocketClient openWsClient() {
-    new RecordingWebSocketClient(new URI("ws://localhost:$server.bindPort/admin/metrics-report"))
+  def "can filter metrics reported by metrics endpoint"() {
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true).webSocket { it.reporterInterval(Duration.ofSeconds(1)) } }
+    }
+    handlers { MetricRegistry metrics ->
+      get {
+        metrics.meter("fooMeter").mark()
+        metrics.counter("fooCounter").inc()
+        render "foo"
+      }
+
+      get("admin/metrics-report", new MetricsWebsocketBroadcastHandler())
+    }
+
+    and:
+    getText()
+
+    when:
+    def client = openWsClient("filter=fooCounter")
+    client.connectBlocking()
+
+    then:
+    new JsonSlurper().parseText(client.received.poll(2, TimeUnit.SECONDS)).with {
+      delta == false
+      timers.size() == 0
+      meters.size() == 0
+      counters.size() == 1
+      counters[0].name == "fooCounter"
+      counters[0].count == 1
+    }
+
+    when:
+    getText()
+
+    then:
+    new JsonSlurper().parseText(client.received.poll(2, TimeUnit.SECONDS)).with {
+      delta == true
+      meters.size() == 0
+      counters.size() == 1
+      counters[0].count == 2
+    }
+
+    cleanup:
+    client?.closeBlocking()
+  }
+
+  def "metrics endpoint rejects invalid filter"() {
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true) }
+    }
+    handlers {
+      get("admin/metrics-report", new MetricsWebsocketBroadcastHandler())
+    }
+
+    expect:
+    get("admin/metrics-report?filter=%5B").statusCode == 400
+  }
+
+  def RecordingWebSocketClient openWsClient(String query = null) {
+    new RecordingWebSocketClient(new URI("ws://localhost:$server.bindPort/admin/metrics-report${query ? "?$query" : ""}"))
+  }
+
+  def receiveUntil(RecordingWebSocketClient client, Closure<Boolean> condition) {
+    def message = null
+    5.times {
+      if (message == null) {
+        def text = client.received.poll(2, TimeUnit.SECONDS)
+        def report = text ? new JsonSlurper().parseText(text) : null
+        if (report && condition(report)) {
+          message = report
+        }
+      }
+    }
+    message
   }
 
   def "can collect blocking metrics"() {
     def reporter = Mock(MetricRegistryListener)
     def blockingTimer
+    def blockingWaitTimer
+    def poolTimer
+    def poolWaitTimer
 
     given:
     bindings {
@@ -463,6 +626,48 @@ class MetricsSpec extends RatpackGroovyDslSpec {
     1 * reporter.onTimerAdded("[foo]~GET~Blocking", !null) >> { arguments ->
       blockingTimer = arguments[1]
     }
+    1 * reporter.onTimerAdded("[foo]~GET~BlockingWait", !null) >> { arguments ->
+      blockingWaitTimer = arguments[1]
+    }
+    1 * reporter.onTimerAdded("ratpack.blocking.execution", !null) >> { arguments ->
+      poolTimer = arguments[1]
+    }
+    1 * reporter.onTimerAdded("ratpack.blocking.wait", !null) >> { arguments ->
+      poolWaitTimer = arguments[1]
+    }
     blockingTimer.count == 2
+    blockingWaitTimer.count == 2
+    poolTimer.count == 2
+    poolWaitTimer.count == 2
+  }
+
+  def "blocking wait time excludes execution time"() {
+    MetricRegistry registry
+
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true) }
+    }
+
+    handlers { MetricRegistry metrics ->
+      registry = metrics
+
+      get("foo") {
+        blocking {
+          sleep 100
+        } then {
+          render ""
+        }
+      }
+    }
+
+    when:
+    get("foo")
+
+    then:
+    def executionNanos = registry.timers["[foo]~GET~Blocking"].snapshot.max
+    def waitNanos = registry.timers["[foo]~GET~BlockingWait"].snapshot.max
+    executionNanos >= TimeUnit.MILLISECONDS.toNanos(100)
+    waitNanos < TimeUnit.MILLISECONDS.toNanos(100)
   }
 }
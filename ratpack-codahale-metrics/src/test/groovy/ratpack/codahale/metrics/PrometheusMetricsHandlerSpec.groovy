@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.codahale.metrics
+
+import com.codahale.metrics.MetricRegistry
+import com.codahale.metrics.SharedMetricRegistries
+import com.codahale.metrics.health.HealthCheck
+import ratpack.codahale.metrics.internal.PrometheusTextWriter
+import ratpack.test.internal.RatpackGroovyDslSpec
+
+class PrometheusMetricsHandlerSpec extends RatpackGroovyDslSpec {
+
+  static class FooHealthCheck extends NamedHealthCheck {
+
+    @SuppressWarnings("UnnecessaryQualifiedReference")
+    protected HealthCheck.Result check() throws Exception {
+      HealthCheck.Result.healthy()
+    }
+
+    def String getName() {
+      "foo \"check\""
+    }
+  }
+
+  def setup() {
+    SharedMetricRegistries.clear()
+  }
+
+  def "renders metrics and health checks in prometheus text format"() {
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true).healthChecks(true) }
+      bind FooHealthCheck
+    }
+
+    handlers { MetricRegistry metrics ->
+      metrics.register("fooGauge", new com.codahale.metrics.Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+          2
+        }
+      })
+      metrics.register("nonNumericGauge", new com.codahale.metrics.Gauge<String>() {
+        @Override
+        public String getValue() {
+          "foo"
+        }
+      })
+
+      get {
+        metrics.counter("foo.counter").inc()
+        metrics.meter("fooMeter").mark()
+        metrics.histogram("fooHistogram").update(3)
+        render "foo"
+      }
+      get("prometheus", new PrometheusMetricsHandler())
+    }
+
+    when:
+    2.times { getText() }
+    def lines = getText("prometheus").readLines()
+
+    then:
+    response.headers.get("Content-Type") == PrometheusTextWriter.CONTENT_TYPE
+    lines.containsAll([
+      "# TYPE fooGauge gauge",
+      "fooGauge 2",
+      "# TYPE foo_counter gauge",
+      "foo_counter 2",
+      "# TYPE fooMeter_total counter",
+      "fooMeter_total 2",
+      "# TYPE fooHistogram summary",
+      'fooHistogram{quantile="0.5"} 3.0',
+      "fooHistogram_sum 6.0",
+      "fooHistogram_count 2",
+      "# TYPE root_GET_Request summary",
+      "# TYPE health_check_healthy gauge",
+      'health_check_healthy{name="foo \\"check\\""} 1'
+    ])
+    !lines.any { it.contains("nonNumericGauge") }
+  }
+
+  def "metrics with colliding sanitized names are only exposed once"() {
+    given:
+    bindings {
+      add new CodaHaleMetricsModule(), { it.enable(true) }
+    }
+
+    handlers { MetricRegistry metrics ->
+      metrics.counter("foo.count").inc()
+      metrics.counter("foo_count").inc(2)
+      metrics.histogram("foo").update(1)
+      get("prometheus", new PrometheusMetricsHandler())
+    }
+
+    when:
+    def lines = getText("prometheus").readLines()
+
+    then:
+    lines.findAll { it.startsWith("# TYPE foo") } == ["# TYPE foo_count gauge"]
+    lines.findAll { it.startsWith("foo") } == ["foo_count 1"]
+  }
+
+  def "metric names are sanitized"() {
+    expect:
+    new String(PrometheusTextWriter.name(name).bytes, "US-ASCII") == sanitized
+
+    where:
+    name                                | sanitized
+    "[root]~GET~Request"                | "root_GET_Request"
+    "[author][:id][books]~GET~Request"  | "author_id_books_GET_Request"
+    "jvm.memory.heap.used"              | "jvm_memory_heap_used"
+    "1xx"                               | "_1xx"
+  }
+
+  def "sample names are built once per metric name"() {
+    given:
+    def name = PrometheusTextWriter.name("requests.served")
+
+    expect:
+    name.sample("_total") == "requests_served_total"
+    name.sample("_total").is(PrometheusTextWriter.name("requests.served").sample("_total"))
+  }
+
+}
@@ -71,6 +71,9 @@ public class ServerConfigDeserializer extends JsonDeserializer<ServerConfig> {
     if (serverNode.hasNonNull("compressResponses")) {
       builder.compressResponses(serverNode.get("compressResponses").asBoolean());
     }
+    if (serverNode.hasNonNull("flattenHandlers")) {
+      builder.flattenHandlers(serverNode.get("flattenHandlers").asBoolean());
+    }
     if (serverNode.hasNonNull("compressionMinSize")) {
       builder.compressionMinSize(serverNode.get("compressionMinSize").asLong());
     }
@@ -83,6 +86,21 @@ public class ServerConfigDeserializer extends JsonDeserializer<ServerConfig> {
     if (serverNode.hasNonNull("indexFiles")) {
       builder.indexFiles(toList(codec, serverNode.get("indexFiles")));
     }
+    if (serverNode.hasNonNull("precompressedAssetEncodings")) {
+      builder.precompressedAssetEncodings(toList(codec, serverNode.get("precompressedAssetEncodings")));
+    }
+    if (serverNode.hasNonNull("assetCacheSize")) {
+      builder.assetCacheSize(serverNode.get("assetCacheSize").asLong());
+    }
+    if (serverNode.hasNonNull("assetMetadataCacheSize")) {
+      builder.assetMetadataCacheSize(serverNode.get("assetMetadataCacheSize").asLong());
+    }
+    if (serverNode.hasNonNull("fileChunkSize")) {
+      builder.fileChunkSize(serverNode.get("fileChunkSize").asInt());
+    }
+    if (serverNode.hasNonNull("fileMappingThreshold")) {
+      builder.fileMappingThreshold(serverNode.get("fileMappingThreshold").asLong());
+    }
     if (serverNode.hasNonNull("ssl")) {
       builder.ssl(codec.treeToValue(serverNode.get("ssl"), SSLContext.class));
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.exec.internal;
+
+/**
+ * Exposes when the blocking operation executing on the current thread was submitted, so that interceptors can separate queueing time from execution time.
+ */
+public abstract class BlockingTiming {
+
+  private static final ThreadLocal<long[]> SUBMITTED_AT = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+  static void enter(long submittedAtNanos) {
+    long[] holder = SUBMITTED_AT.get();
+    holder[0] = submittedAtNanos;
+    holder[1] = 1;
+  }
+
+  static void exit() {
+    SUBMITTED_AT.get()[1] = 0;
+  }
+
+  /**
+   * Whether the current thread is executing a blocking operation submitted via {@link ratpack.exec.ExecControl#blocking(java.util.concurrent.Callable)}.
+   *
+   * @return whether {@link #getSubmittedAt()} is known
+   */
+  public static boolean isBlocking() {
+    return SUBMITTED_AT.get()[1] == 1;
+  }
+
+  /**
+   * The {@link System#nanoTime()} at which the blocking operation executing on the current thread was submitted.
+   * <p>
+   * Only meaningful if {@link #isBlocking()}.
+   *
+   * @return the time the current blocking operation was submitted, in nanos
+   */
+  public static long getSubmittedAt() {
+    return SUBMITTED_AT.get()[0];
+  }
+
+}
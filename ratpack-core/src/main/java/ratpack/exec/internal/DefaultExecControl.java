@@ -141,8 +141,11 @@ public class DefaultExecControl implements ExecControl {
   public <T> Promise<T> blocking(final Callable<T> blockingOperation) {
     final ExecutionBacking backing = getBacking();
     return directPromise(f ->
-        backing.streamSubscribe((streamHandle) -> CompletableFuture.supplyAsync(() -> {
+        backing.streamSubscribe((streamHandle) -> {
+          long submittedAt = System.nanoTime();
+          CompletableFuture.supplyAsync(() -> {
             List<Result<T>> holder = Lists.newArrayListWithCapacity(1);
+            BlockingTiming.enter(submittedAt);
             try {
               backing.intercept(ExecInterceptor.ExecType.BLOCKING, backing.getInterceptors(), () ->
                   holder.add(0, Result.success(blockingOperation.call()))
@@ -150,9 +153,12 @@ public class DefaultExecControl implements ExecControl {
               return holder.get(0);
             } catch (Exception e) {
               return Result.<T>failure(e);
+            } finally {
+              BlockingTiming.exit();
             }
           }, execController.getBlockingExecutor()
-        ).thenAcceptAsync(v -> streamHandle.complete(() -> f.accept(v)), backing.getEventLoop()))
+          ).thenAcceptAsync(v -> streamHandle.complete(() -> f.accept(v)), backing.getEventLoop());
+        })
     );
   }
 
@@ -16,45 +16,120 @@
 
 package ratpack.file;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 import ratpack.api.Nullable;
-import ratpack.util.ExceptionUtils;
+import ratpack.file.internal.FileSystemChecksumIndex;
 
-import java.util.concurrent.ExecutionException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * A checksum service that caches the checksums calculated by another service.
+ * <p>
+ * If created with a file system binding, cached checksums are recalculated when the file's last modified time or size changes.
+ * To avoid reading a file's attributes on every request, a cached checksum is only revalidated if it was last validated more than a second ago,
+ * so a change may take up to a second to be reflected.
+ * Otherwise, checksums are cached for the life of the service.
+ * <p>
+ * When created by {@link FileSystemChecksumServices#service(ratpack.server.ServerConfig)}, the cache is seeded from an index persisted in the base dir,
+ * so that only files that changed since the index was written need their checksums recalculated.
+ */
 public class CachingFileSystemChecksumService implements FileSystemChecksumService {
 
   private static class Entry {
     private final String checksum;
-    private Entry(String checksum) {
+    private final long lastModified;
+    private final long size;
+    private volatile long validUntil;
+
+    private Entry(String checksum, long lastModified, long size, long validUntil) {
       this.checksum = checksum;
+      this.lastModified = lastModified;
+      this.size = size;
+      this.validUntil = validUntil;
     }
   }
 
+  private static final long UNKNOWN = -1;
+  private static final long DEFAULT_REVALIDATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
   private final FileSystemChecksumService delegate;
+  private final FileSystemBinding fileSystemBinding;
+  private final long revalidateIntervalNanos;
 
   public CachingFileSystemChecksumService(FileSystemChecksumService delegate) {
+    this(delegate, null);
+  }
+
+  public CachingFileSystemChecksumService(FileSystemChecksumService delegate, @Nullable FileSystemBinding fileSystemBinding) {
+    this(delegate, fileSystemBinding, DEFAULT_REVALIDATE_INTERVAL_NANOS);
+  }
+
+  CachingFileSystemChecksumService(FileSystemChecksumService delegate, @Nullable FileSystemBinding fileSystemBinding, long revalidateIntervalNanos) {
     this.delegate = delegate;
+    this.fileSystemBinding = fileSystemBinding;
+    this.revalidateIntervalNanos = revalidateIntervalNanos;
   }
 
-  private final LoadingCache<String, Entry> cache = CacheBuilder.newBuilder().build(new CacheLoader<String, Entry>() {
-    @Override
-    public Entry load(String key) throws Exception {
-      return new Entry(delegate.checksum(key));
-    }
-  });
+  private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
 
   @Nullable
   @Override
   public String checksum(String path) throws Exception {
-    try {
-      return cache.get(path).checksum;
-    } catch (ExecutionException | UncheckedExecutionException e) {
-      throw ExceptionUtils.toException(e.getCause());
+    Entry entry = cache.get(path);
+    long now = System.nanoTime();
+    if (entry != null && (fileSystemBinding == null || now - entry.validUntil < 0)) {
+      return entry.checksum;
+    }
+
+    long lastModified = UNKNOWN;
+    long size = UNKNOWN;
+    if (fileSystemBinding != null) {
+      Path file = fileSystemBinding.file(path);
+      if (file != null && Files.exists(file)) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        lastModified = attributes.lastModifiedTime().toMillis();
+        size = attributes.size();
+      }
+    }
+
+    if (entry == null || entry.lastModified != lastModified || entry.size != size) {
+      entry = new Entry(delegate.checksum(path), lastModified, size, now + revalidateIntervalNanos);
+      cache.put(path, entry);
+    } else {
+      entry.validUntil = now + revalidateIntervalNanos;
+    }
+    return entry.checksum;
+  }
+
+  /**
+   * Caches the given checksums, which are used for as long as the files' last modified times and sizes are unchanged.
+   * They are validated against the files when first used.
+   */
+  void seed(Iterable<? extends FileSystemChecksumIndex.Entry> entries) {
+    long now = System.nanoTime();
+    for (FileSystemChecksumIndex.Entry entry : entries) {
+      cache.putIfAbsent(entry.getPath(), new Entry(entry.getChecksum(), entry.getLastModified(), entry.getSize(), now));
+    }
+  }
+
+  /**
+   * The cached checksums of the given paths, that were calculated for a known last modified time and size.
+   */
+  List<FileSystemChecksumIndex.Entry> entries(Iterable<String> paths) {
+    List<FileSystemChecksumIndex.Entry> entries = new ArrayList<>();
+    for (String path : paths) {
+      Entry entry = cache.get(path);
+      if (entry != null && entry.checksum != null && entry.lastModified != UNKNOWN) {
+        entries.add(new FileSystemChecksumIndex.Entry(path, entry.size, entry.lastModified, entry.checksum));
+      }
     }
+    return entries;
   }
 
 }
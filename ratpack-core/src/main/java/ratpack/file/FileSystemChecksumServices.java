@@ -16,48 +16,48 @@
 
 package ratpack.file;
 
+import ratpack.file.internal.Adler32Checksummer;
 import ratpack.file.internal.DefaultFileSystemChecksumService;
+import ratpack.file.internal.FileSystemChecksumIndex;
 import ratpack.file.internal.FileSystemChecksumServicePopulater;
 import ratpack.func.Function;
 import ratpack.server.ServerConfig;
 
 import java.io.InputStream;
-import java.util.concurrent.Executors;
-import java.util.zip.Adler32;
-import java.util.zip.Checksum;
+import java.nio.file.Path;
 
 public abstract class FileSystemChecksumServices {
 
+  private static final int POPULATION_PARALLELISM = 4;
+
   private FileSystemChecksumServices() {
   }
 
+  /**
+   * Creates a checksum service for the files of the base dir.
+   * <p>
+   * Outside of development, checksums are cached and the checksums of all files are calculated in the background on creation.
+   * The checksums are persisted to a {@code .ratpack-checksums} file in the base dir once calculated,
+   * and read back on the next creation so that only files that have changed since need to be read.
+   *
+   * @param serverConfig the server config
+   * @return a checksum service
+   */
   public static FileSystemChecksumService service(ServerConfig serverConfig) {
     Function<InputStream, String> checksummer = new Adler32Checksummer();
     DefaultFileSystemChecksumService service = new DefaultFileSystemChecksumService(serverConfig.getBaseDir(), checksummer);
     if (serverConfig.isDevelopment()) {
       return service;
     } else {
-      CachingFileSystemChecksumService cachingService = new CachingFileSystemChecksumService(service);
-      new FileSystemChecksumServicePopulater(serverConfig.getBaseDir().getFile(), cachingService, Executors.newFixedThreadPool(5), 4).start();
+      CachingFileSystemChecksumService cachingService = new CachingFileSystemChecksumService(service, serverConfig.getBaseDir());
+      Path baseDir = serverConfig.getBaseDir().getFile();
+      Path indexFile = baseDir.resolve(FileSystemChecksumIndex.FILE_NAME);
+      cachingService.seed(FileSystemChecksumIndex.read(indexFile));
+      new FileSystemChecksumServicePopulater(baseDir, cachingService, POPULATION_PARALLELISM, paths ->
+          FileSystemChecksumIndex.write(indexFile, cachingService.entries(paths))
+      ).start();
       return cachingService;
     }
   }
 
-  private static class Adler32Checksummer implements Function<InputStream, String> {
-    private static final int BUFFER_SIZE = 8192;
-
-    @Override
-    public String apply(InputStream inputStream) throws Exception {
-      byte[] buffer = new byte[BUFFER_SIZE];
-      Checksum checksum = new Adler32();
-      int read = inputStream.read(buffer, 0, BUFFER_SIZE);
-      while (read != -1) {
-        checksum.update(buffer, 0, read);
-        read = inputStream.read(buffer, 0, BUFFER_SIZE);
-      }
-
-      return Long.toHexString(checksum.getValue());
-    }
-  }
-
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file;
+
+import ratpack.api.Nullable;
+import ratpack.func.Pair;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates fingerprinted URLs for static assets, which can be cached without ever being revalidated.
+ * <p>
+ * A fingerprinted URL has the checksum of the asset's content inserted into its file name, before the extension (e.g. {@code /assets/app-1a2b3c4d.js}).
+ * Asset handlers (see {@link ratpack.handling.Chain#assets(String, String...)}) serve requests for a fingerprinted name that doesn't exist with the content of the asset.
+ * If the fingerprint matches the asset's current content, the response has a {@code Cache-Control} header of {@value #CACHE_CONTROL}.
+ * Requests with an out of date fingerprint are served the current content, without the far future caching.
+ * <p>
+ * Asset handlers check fingerprints against the same checksums as are used by {@link FileSystemChecksumServices#service(ratpack.server.ServerConfig)},
+ * so the checksum service given to this class should be one created by that method.
+ * <p>
+ * An instance is typically added to the registry, so that handlers and templates can generate asset URLs with {@link #url(String)}.
+ * URLs are generated from an in memory map, so never block the calling thread.
+ * Checksums are calculated (and periodically rechecked) on the given executor, which should be the
+ * {@link ratpack.exec.ExecController#getBlockingExecutor() blocking executor}.
+ * Until the checksum of an asset is known, its URL is generated without a fingerprint.
+ */
+public class FingerprintedAssets {
+
+  /**
+   * The {@code Cache-Control} header value for responses to requests with up to date fingerprints.
+   */
+  public static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+  private static final Pattern FINGERPRINTED_NAME = Pattern.compile("(.+)-([0-9a-f]+)(\\.[^.]*)?");
+  private static final long RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static class Url {
+    private final String url;
+    private final long checkedAt;
+
+    private Url(String url, long checkedAt) {
+      this.url = url;
+      this.checkedAt = checkedAt;
+    }
+  }
+
+  private final FileSystemChecksumService checksumService;
+  private final String path;
+  private final String urlPrefix;
+  private final Executor executor;
+  private final ConcurrentMap<String, Url> urls = new ConcurrentHashMap<>();
+  private final Set<String> checking = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Constructor.
+   *
+   * @param checksumService the checksum service for files relative to the base dir
+   * @param path the path of the assets directory, relative to the base dir
+   * @param urlPrefix the URL path that the assets directory is served at
+   * @param executor the executor to calculate checksums on, which may block
+   */
+  public FingerprintedAssets(FileSystemChecksumService checksumService, String path, String urlPrefix, Executor executor) {
+    this.checksumService = checksumService;
+    this.path = trimSlashes(path);
+    this.urlPrefix = trimSlashes(urlPrefix);
+    this.executor = executor;
+  }
+
+  /**
+   * The fingerprinted URL of the given asset.
+   * <p>
+   * If the checksum of the asset is not yet known, or the asset has no checksum (e.g. it does not exist), its URL is returned without a fingerprint.
+   * This method never blocks; the checksum is calculated in the background for subsequent calls.
+   * Known checksums are rechecked in the background at most once a second, so a changed asset gets a new URL shortly after it changes.
+   *
+   * @param asset the path of the asset, relative to the assets directory
+   * @return the URL of the asset
+   */
+  public String url(String asset) {
+    String trimmed = trimSlashes(asset);
+    Url url = urls.get(trimmed);
+    if (url == null || System.nanoTime() - url.checkedAt > RECHECK_NANOS) {
+      check(trimmed);
+    }
+    return url == null ? "/" + join(urlPrefix, trimmed) : url.url;
+  }
+
+  private void check(String asset) {
+    if (!checking.add(asset)) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          String checksum;
+          try {
+            checksum = checksumService.checksum(join(path, asset));
+          } catch (Exception e) {
+            checksum = null;
+          }
+          urls.put(asset, new Url("/" + join(urlPrefix, checksum == null ? asset : fingerprint(asset, checksum)), System.nanoTime()));
+        } finally {
+          checking.remove(asset);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      checking.remove(asset);
+    }
+  }
+
+  /**
+   * Inserts the checksum into the file name of the given path, before its extension.
+   *
+   * @param path the path
+   * @param checksum the checksum of the file
+   * @return the fingerprinted path
+   */
+  public static String fingerprint(String path, String checksum) {
+    int nameStart = path.lastIndexOf('/') + 1;
+    int extensionStart = path.lastIndexOf('.');
+    if (extensionStart <= nameStart) {
+      return path + "-" + checksum;
+    } else {
+      return path.substring(0, extensionStart) + "-" + checksum + path.substring(extensionStart);
+    }
+  }
+
+  /**
+   * Splits a fingerprinted file name into the original file name and the fingerprint.
+   *
+   * @param name the file name
+   * @return the original file name and the fingerprint, or {@code null} if the name is not fingerprinted
+   */
+  @Nullable
+  public static Pair<String, String> unfingerprint(String name) {
+    Matcher matcher = FINGERPRINTED_NAME.matcher(name);
+    if (!matcher.matches()) {
+      return null;
+    }
+    String extension = matcher.group(3);
+    return Pair.of(extension == null ? matcher.group(1) : matcher.group(1) + extension, matcher.group(2));
+  }
+
+  private static String join(String left, String right) {
+    return left.isEmpty() ? right : left + "/" + right;
+  }
+
+  private static String trimSlashes(String path) {
+    int start = 0;
+    int end = path.length();
+    while (start < end && path.charAt(start) == '/') {
+      ++start;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      --end;
+    }
+    return path.substring(start, end);
+  }
+
+}
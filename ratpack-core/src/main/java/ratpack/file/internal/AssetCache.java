@@ -0,0 +1,311 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import ratpack.api.Nullable;
+import ratpack.func.Pair;
+import ratpack.http.internal.HttpHeaderDateFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in memory cache of small static assets, held in pooled direct buffers.
+ * <p>
+ * Entries hold the content of the file and its precompressed variants, along with the values of the headers needed to serve them,
+ * so that a cached asset can be served without leaving the event loop.
+ * The cache is bounded by the total size of the cached content, evicting the least recently used entries when full.
+ * <p>
+ * Entries are invalidated by a {@link FileSystemWatcher}.
+ * Nothing is cached if the watcher is not {@link FileSystemWatcher#isWatching() watching}.
+ */
+public class AssetCache implements FileSystemWatcher.Listener {
+
+  public static final long MAX_FILE_SIZE = 1024 * 1024;
+  public static final String GZIP = "gzip";
+
+  public static class Variant {
+    private final String encoding;
+    private final ByteBuf content;
+    private final String etag;
+    // Guards the cache's reference to the content, so that it is never retained after being released.
+    // A released pooled buffer may already be in use elsewhere, so retaining it can't be relied upon to fail.
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private Variant(String encoding, ByteBuf content, String etag) {
+      this.encoding = encoding;
+      this.content = content;
+      this.etag = etag;
+    }
+
+    /**
+     * The content encoding of this variant, or {@code null} if it is not encoded.
+     */
+    @Nullable
+    public String getEncoding() {
+      return encoding;
+    }
+
+    public String getETag() {
+      return etag;
+    }
+
+    /**
+     * A retained duplicate of the content of this variant, or {@code null} if the entry was released in the meantime.
+     */
+    @Nullable
+    public ByteBuf retainedContent() {
+      int current;
+      do {
+        current = references.get();
+        if (current == 0) {
+          return null;
+        }
+      } while (!references.compareAndSet(current, current + 1));
+      ByteBuf retained = content.duplicate().retain();
+      release();
+      return retained;
+    }
+
+    private void release() {
+      if (references.decrementAndGet() == 0) {
+        content.release();
+      }
+    }
+  }
+
+  public static class Entry {
+    private final String contentType;
+    private final long lastModified;
+    private final String lastModifiedHeader;
+    private final List<Variant> variants;
+    private final int weight;
+
+    private Entry(String contentType, long lastModified, List<Variant> variants) {
+      this.contentType = contentType;
+      this.lastModified = lastModified;
+      this.lastModifiedHeader = HttpHeaderDateFormat.get().format(new Date(lastModified));
+      this.variants = variants;
+      int weight = 0;
+      for (Variant variant : variants) {
+        weight += variant.content.capacity();
+      }
+      this.weight = weight;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public String getLastModifiedHeader() {
+      return lastModifiedHeader;
+    }
+
+    /**
+     * The variants of this entry, the unencoded variant first and then encoded variants in order of preference.
+     */
+    public List<Variant> getVariants() {
+      return variants;
+    }
+
+    private void release() {
+      variants.forEach(Variant::release);
+    }
+  }
+
+  private final FileSystemWatcher watcher;
+  private final ByteBufAllocator allocator;
+  private final long maxFileSize;
+  private final Predicate<? super Pair<Long, String>> shouldCompress;
+  private final Cache<Path, Entry> cache;
+
+  /**
+   * Constructor.
+   *
+   * @param watcher the watcher that invalidates entries
+   * @param allocator the allocator for cached content
+   * @param maxSize the maximum total size of cached content, in bytes
+   * @param shouldCompress which assets to gzip in memory, or {@code null} to not compress assets
+   */
+  public AssetCache(FileSystemWatcher watcher, ByteBufAllocator allocator, long maxSize, @Nullable Predicate<? super Pair<Long, String>> shouldCompress) {
+    this.watcher = watcher;
+    this.allocator = allocator;
+    this.maxFileSize = Math.min(MAX_FILE_SIZE, maxSize / 16);
+    this.shouldCompress = shouldCompress;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxSize)
+      .weigher((Path path, Entry entry) -> entry.weight)
+      .removalListener((RemovalNotification<Path, Entry> notification) -> notification.getValue().release())
+      .build();
+    watcher.addListener(this);
+  }
+
+  @Nullable
+  public Entry get(Path file) {
+    return watcher.isWatching() ? cache.getIfPresent(file) : null;
+  }
+
+  public boolean isCacheable(Path file, BasicFileAttributes attributes) {
+    return watcher.isWatching() && attributes.isRegularFile() && attributes.size() <= maxFileSize && file.startsWith(watcher.getRoot());
+  }
+
+  /**
+   * Reads the file and its precompressed siblings into a new cache entry.
+   * <p>
+   * The entry is only cached if the file system did not change while it was being read.
+   * If it is not cached, it is released and {@code null} is returned.
+   * This method does blocking IO.
+   *
+   * @param file the file
+   * @param attributes the attributes of the file
+   * @param contentType the content type of the file
+   * @param precompressedEncodings the encodings of precompressed siblings to read, in order of preference
+   * @return the new entry, or {@code null} if it was not cached
+   * @throws Exception if the file cannot be read
+   */
+  @Nullable
+  public Entry load(Path file, BasicFileAttributes attributes, String contentType, List<String> precompressedEncodings) throws Exception {
+    long generation = watcher.getGeneration();
+
+    List<Variant> variants = new ArrayList<>(precompressedEncodings.size() + 2);
+    ByteBuf content = read(file, attributes.size());
+    boolean gzipped = false;
+    try {
+      variants.add(variant(null, content));
+
+      for (String encoding : precompressedEncodings) {
+        Path encodedFile = file.resolveSibling(file.getFileName().toString() + AssetHandler.extension(encoding));
+        if (Files.isRegularFile(encodedFile)) {
+          BasicFileAttributes encodedAttributes = Files.readAttributes(encodedFile, BasicFileAttributes.class);
+          if (encodedAttributes.size() <= maxFileSize && encodedAttributes.lastModifiedTime().compareTo(attributes.lastModifiedTime()) >= 0) {
+            ByteBuf encodedContent = read(encodedFile, encodedAttributes.size());
+            try {
+              variants.add(variant(encoding, encodedContent));
+            } catch (Exception e) {
+              encodedContent.release();
+              throw e;
+            }
+            gzipped |= encoding.equalsIgnoreCase(GZIP);
+          }
+        }
+      }
+
+      if (!gzipped && shouldCompress != null && contentType != null && shouldCompress.apply(Pair.of((long) content.readableBytes(), contentType))) {
+        ByteBuf compressed = gzip(content);
+        if (compressed.readableBytes() < content.readableBytes()) {
+          try {
+            variants.add(variant(GZIP, compressed));
+          } catch (Exception e) {
+            compressed.release();
+            throw e;
+          }
+        } else {
+          compressed.release();
+        }
+      }
+    } catch (Exception e) {
+      if (variants.isEmpty()) {
+        content.release();
+      }
+      variants.forEach(variant -> variant.content.release());
+      throw e;
+    }
+
+    Entry entry = new Entry(contentType, attributes.lastModifiedTime().toMillis(), ImmutableList.copyOf(variants));
+    if (!watcher.isWatching()) {
+      entry.release();
+      return null;
+    }
+    // Put before checking the generation, so that a change reported in the meantime either removes the entry or is detected here
+    cache.put(file, entry);
+    if (watcher.getGeneration() != generation) {
+      // releases the entry, unless it has already been replaced or removed (and released)
+      cache.asMap().remove(file, entry);
+      return null;
+    }
+    return entry;
+  }
+
+  private Variant variant(String encoding, ByteBuf content) throws Exception {
+    String checksum = new Adler32Checksummer().apply(new ByteBufInputStream(content.duplicate()));
+    return new Variant(encoding, content, FileETagCache.etag(checksum, content.readableBytes()));
+  }
+
+  private ByteBuf read(Path file, long size) throws IOException {
+    ByteBuf buffer = allocator.directBuffer((int) size);
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      while (buffer.isWritable() && buffer.writeBytes(inputStream, buffer.writableBytes()) >= 0) {
+        // keep reading
+      }
+      return buffer;
+    } catch (IOException | RuntimeException e) {
+      buffer.release();
+      throw e;
+    }
+  }
+
+  private ByteBuf gzip(ByteBuf content) throws IOException {
+    ByteBuf compressed = allocator.directBuffer(content.readableBytes());
+    try (GZIPOutputStream outputStream = new GZIPOutputStream(new ByteBufOutputStream(compressed))) {
+      content.getBytes(content.readerIndex(), outputStream, content.readableBytes());
+    } catch (IOException | RuntimeException e) {
+      compressed.release();
+      throw e;
+    }
+    return compressed;
+  }
+
+  @Override
+  public void changed(Path path) {
+    cache.invalidate(path);
+    String name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      // may be a precompressed sibling
+      cache.invalidate(path.resolveSibling(name.substring(0, dot)));
+    }
+    // may be a directory
+    cache.asMap().keySet().removeIf(key -> key.startsWith(path));
+  }
+
+  @Override
+  public void overflow() {
+    cache.invalidateAll();
+  }
+
+}
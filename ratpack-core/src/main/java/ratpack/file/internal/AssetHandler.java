@@ -17,25 +17,80 @@
 package ratpack.file.internal;
 
 import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import ratpack.api.Nullable;
+import ratpack.file.FingerprintedAssets;
+import ratpack.file.MimeTypes;
+import ratpack.func.Action;
+import ratpack.func.Pair;
 import ratpack.handling.Context;
 import ratpack.handling.Handler;
+import ratpack.http.Headers;
+import ratpack.http.MutableHeaders;
 import ratpack.http.Request;
+import ratpack.http.Response;
 import ratpack.path.PathBinding;
+import ratpack.server.ServerConfig;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 
-import static ratpack.file.internal.DefaultFileRenderer.readAttributes;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
 import static ratpack.file.internal.DefaultFileRenderer.sendFile;
 import static ratpack.util.ExceptionUtils.uncheck;
 
 public class AssetHandler implements Handler {
 
   private final ImmutableList<String> indexFiles;
+  private final ImmutableList<String> precompressedEncodings;
+  private final FileETagCache etags = new FileETagCache();
+
+  private static final Asset MISSING = new Asset(null, null, null, null, null);
+
+  private static class Asset {
+    private final BasicFileAttributes attributes;
+    private final String etag;
+    private final Path encodedFile;
+    private final BasicFileAttributes encodedAttributes;
+    private final String encoding;
+    private final AssetCache.Entry cached;
+
+    private Asset(BasicFileAttributes attributes, String etag, Path encodedFile, BasicFileAttributes encodedAttributes, String encoding) {
+      this.attributes = attributes;
+      this.etag = etag;
+      this.encodedFile = encodedFile;
+      this.encodedAttributes = encodedAttributes;
+      this.encoding = encoding;
+      this.cached = null;
+    }
+
+    private Asset(BasicFileAttributes attributes, AssetCache.Entry cached) {
+      this.attributes = attributes;
+      this.etag = cached.getVariants().get(0).getETag();
+      this.encodedFile = null;
+      this.encodedAttributes = null;
+      this.encoding = null;
+      this.cached = cached;
+    }
+  }
 
   public AssetHandler(ImmutableList<String> indexFiles) {
+    this(indexFiles, ImmutableList.of());
+  }
+
+  public AssetHandler(ImmutableList<String> indexFiles, ImmutableList<String> precompressedEncodings) {
     this.indexFiles = indexFiles;
+    this.precompressedEncodings = precompressedEncodings;
   }
 
   public void handle(Context context) throws Exception {
@@ -60,13 +115,303 @@ public class AssetHandler implements Handler {
     }
   }
 
+  /**
+   * Reads the attributes of the file, and its entity tag if it is a regular file, in a single blocking operation.
+   * <p>
+   * If the file has a precompressed sibling in an encoding the client accepts, that file's attributes and entity tag are read instead.
+   * If the file can be cached, it is read into the cache along with all of its precompressed siblings.
+   * <p>
+   * If everything needed is in the file metadata cache, no blocking operation is needed.
+   */
+  private void readAsset(Context context, Path file, Action<? super Asset> then) throws Exception {
+    List<String> encodings = acceptedEncodings(context);
+    AssetCache cache = cache(context);
+    FileMetadataCache metadata = context.maybeGet(FileMetadataCache.class).orElse(null);
+    if (metadata != null) {
+      Asset asset = cachedAsset(metadata, cache, file, encodings);
+      if (asset != null) {
+        then.execute(asset == MISSING ? null : asset);
+        return;
+      }
+    }
+
+    String contentType = cache == null ? null : context.get(MimeTypes.class).getContentType(file.getFileName().toString());
+    context.blocking(() -> {
+      BasicFileAttributes attributes = readAttributes(metadata, file);
+      if (attributes == null) {
+        return null;
+      }
+      if (!attributes.isRegularFile()) {
+        return new Asset(attributes, null, null, null, null);
+      }
+
+      if (cache != null && cache.isCacheable(file, attributes)) {
+        AssetCache.Entry entry = cache.load(file, attributes, contentType, precompressedEncodings);
+        if (entry != null) {
+          return new Asset(attributes, entry);
+        }
+      }
+
+      for (String encoding : encodings) {
+        Path encodedFile = file.resolveSibling(file.getFileName().toString() + extension(encoding));
+        BasicFileAttributes encodedAttributes = readAttributes(metadata, encodedFile);
+        if (isFresh(encodedAttributes, attributes)) {
+          return new Asset(attributes, etags.etag(encodedFile, encodedAttributes), encodedFile, encodedAttributes, encoding);
+        }
+      }
+
+      return new Asset(attributes, etags.etag(file, attributes), null, null, null);
+    }).then(then);
+  }
+
+  /**
+   * The asset, from cached attributes and entity tags only.
+   *
+   * @return the asset, {@link #MISSING} if the file does not exist, or {@code null} if anything needed is not cached
+   */
+  @Nullable
+  private Asset cachedAsset(FileMetadataCache metadata, @Nullable AssetCache cache, Path file, List<String> encodings) {
+    FileMetadataCache.Metadata fileMetadata = metadata.get(file);
+    if (fileMetadata == null) {
+      return null;
+    }
+    BasicFileAttributes attributes = fileMetadata.getAttributes();
+    if (attributes == null) {
+      return MISSING;
+    }
+    if (!attributes.isRegularFile()) {
+      return new Asset(attributes, null, null, null, null);
+    }
+    if (cache != null && cache.isCacheable(file, attributes)) {
+      // needs loading into the cache
+      return null;
+    }
+
+    for (String encoding : encodings) {
+      Path encodedFile = file.resolveSibling(file.getFileName().toString() + extension(encoding));
+      FileMetadataCache.Metadata encodedMetadata = metadata.get(encodedFile);
+      if (encodedMetadata == null) {
+        return null;
+      }
+      BasicFileAttributes encodedAttributes = encodedMetadata.getAttributes();
+      if (isFresh(encodedAttributes, attributes)) {
+        String etag = etags.getIfPresent(encodedFile, encodedAttributes);
+        return etag == null ? null : new Asset(attributes, etag, encodedFile, encodedAttributes, encoding);
+      }
+    }
+
+    String etag = etags.getIfPresent(file, attributes);
+    return etag == null ? null : new Asset(attributes, etag, null, null, null);
+  }
+
+  @Nullable
+  private static BasicFileAttributes readAttributes(@Nullable FileMetadataCache metadata, Path file) throws IOException {
+    if (metadata != null) {
+      return metadata.read(file);
+    } else if (Files.exists(file)) {
+      return Files.readAttributes(file, BasicFileAttributes.class);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Whether the precompressed file exists and is at least as new as the asset.
+   */
+  private static boolean isFresh(@Nullable BasicFileAttributes encodedAttributes, BasicFileAttributes attributes) {
+    return encodedAttributes != null
+      && encodedAttributes.isRegularFile()
+      && encodedAttributes.lastModifiedTime().compareTo(attributes.lastModifiedTime()) >= 0;
+  }
+
+  /**
+   * The asset cache, if there is one and the request can be served from it.
+   * <p>
+   * Range requests are always served from the file.
+   */
+  @Nullable
+  private static AssetCache cache(Context context) {
+    Request request = context.getRequest();
+    if (!request.getMethod().isGet() || request.getHeaders().contains(HttpHeaderNames.RANGE)) {
+      return null;
+    }
+    return context.maybeGet(AssetCache.class).orElse(null);
+  }
+
+  private List<String> acceptedEncodings(Context context) {
+    if (precompressedEncodings.isEmpty()) {
+      return Collections.emptyList();
+    }
+    String acceptEncoding = context.getRequest().getHeaders().get(HttpHeaderNames.ACCEPT_ENCODING);
+    if (acceptEncoding == null) {
+      return Collections.emptyList();
+    }
+    List<String> accepted = new ArrayList<>(precompressedEncodings.size());
+    for (String encoding : precompressedEncodings) {
+      if (accepts(acceptEncoding, encoding)) {
+        accepted.add(encoding);
+      }
+    }
+    return accepted;
+  }
+
+  /**
+   * Whether the given {@code Accept-Encoding} header value accepts the encoding, i.e. names it (or {@code *}) with a non zero quality.
+   */
+  static boolean accepts(String acceptEncoding, String encoding) {
+    Boolean wildcard = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      boolean acceptable = quality(parts) > 0;
+      if (name.equalsIgnoreCase(encoding)) {
+        return acceptable;
+      } else if (name.equals("*")) {
+        wildcard = acceptable;
+      }
+    }
+    return wildcard != null && wildcard;
+  }
+
+  private static float quality(String[] parts) {
+    for (int i = 1; i < parts.length; ++i) {
+      String param = parts[i].trim();
+      if (param.startsWith("q=") || param.startsWith("Q=")) {
+        try {
+          return Float.parseFloat(param.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  static String extension(String encoding) {
+    return encoding.equalsIgnoreCase("gzip") ? ".gz" : "." + encoding;
+  }
+
+  /**
+   * Sends the cached asset, choosing the first encoded variant the client accepts.
+   *
+   * @return false if the entry was evicted before it could be sent
+   */
+  private boolean sendCached(Context context, AssetCache.Entry entry) {
+    List<AssetCache.Variant> variants = entry.getVariants();
+    AssetCache.Variant variant = variants.get(0);
+    String acceptEncoding = variants.size() > 1 ? context.getRequest().getHeaders().get(HttpHeaderNames.ACCEPT_ENCODING) : null;
+    if (acceptEncoding != null) {
+      for (AssetCache.Variant encoded : variants.subList(1, variants.size())) {
+        if (accepts(acceptEncoding, encoded.getEncoding())) {
+          variant = encoded;
+          break;
+        }
+      }
+    }
+
+    ByteBuf content = variant.retainedContent();
+    if (content == null) {
+      return false;
+    }
+
+    Response response = context.getResponse();
+    MutableHeaders headers = response.getHeaders();
+    if (variants.size() > 1 || !precompressedEncodings.isEmpty()) {
+      headers.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+    }
+    headers.set(HttpHeaderNames.ETAG, variant.getETag());
+    headers.set(HttpHeaderNames.LAST_MODIFIED, entry.getLastModifiedHeader());
+    headers.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+
+    if (isNotModified(context.getRequest().getHeaders(), entry, variant.getETag())) {
+      content.release();
+      response.status(NOT_MODIFIED.code()).send();
+      return true;
+    }
+
+    response.contentTypeIfNotSet(entry.getContentType());
+    if (variant.getEncoding() != null) {
+      headers.set(HttpHeaderNames.CONTENT_ENCODING, variant.getEncoding());
+    } else if (context.get(ServerConfig.class).isCompressResponses()) {
+      headers.set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.IDENTITY);
+    }
+    response.send(content);
+    return true;
+  }
+
+  private static boolean isNotModified(Headers requestHeaders, AssetCache.Entry entry, String etag) {
+    String ifNoneMatch = requestHeaders.get(HttpHeaderNames.IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      return FileETagCache.matches(ifNoneMatch, etag);
+    }
+    Date ifModifiedSince = requestHeaders.getDate(HttpHeaderNames.IF_MODIFIED_SINCE);
+    return ifModifiedSince != null && ifModifiedSince.getTime() / 1000 == entry.getLastModified() / 1000;
+  }
+
+  private void sendAsset(Context context, Path file, Asset asset) {
+    if (asset.cached != null && sendCached(context, asset.cached)) {
+      return;
+    }
+    if (!precompressedEncodings.isEmpty()) {
+      context.getResponse().getHeaders().add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+    }
+    if (asset.encodedFile == null) {
+      sendFile(context, file, asset.attributes, asset.etag);
+    } else {
+      Response response = context.getResponse();
+      response.contentTypeIfNotSet(() -> context.get(MimeTypes.class).getContentType(file.getFileName().toString()));
+      response.getHeaders().set(HttpHeaderNames.CONTENT_ENCODING, asset.encoding);
+      sendFile(context, asset.encodedFile, asset.encodedAttributes, asset.etag);
+    }
+  }
+
   private void servePath(final Context context, final Path file) throws Exception {
-    readAttributes(context, file, attributes -> {
+    servePath(context, file, null);
+  }
+
+  /**
+   * Serves the file, or if it does not exist and its name is fingerprinted, the file with the fingerprint removed.
+   *
+   * @param fingerprint the fingerprint that was removed from the requested file name, if any
+   */
+  private void servePath(final Context context, final Path file, @Nullable final String fingerprint) throws Exception {
+    if (FileSystemChecksumIndex.isIndexFile(file)) {
+      // lists every file in the base dir, so is never served
+      context.next();
+      return;
+    }
+
+    AssetCache cache = cache(context);
+    AssetCache.Entry cached = cache == null ? null : cache.get(file);
+    if (cached != null) {
+      boolean immutable = fingerprint != null && FileETagCache.hasChecksum(cached.getVariants().get(0).getETag(), fingerprint);
+      if (immutable) {
+        context.getResponse().getHeaders().set(HttpHeaderNames.CACHE_CONTROL, FingerprintedAssets.CACHE_CONTROL);
+      }
+      if (sendCached(context, cached)) {
+        return;
+      }
+      if (immutable) {
+        context.getResponse().getHeaders().remove(HttpHeaderNames.CACHE_CONTROL);
+      }
+    }
+
+    readAsset(context, file, asset -> {
+      BasicFileAttributes attributes = asset == null ? null : asset.attributes;
       if (attributes == null) {
-        context.next();
+        Pair<String, String> unfingerprinted = fingerprint == null ? FingerprintedAssets.unfingerprint(file.getFileName().toString()) : null;
+        if (unfingerprinted == null) {
+          context.next();
+        } else {
+          servePath(context, file.resolveSibling(unfingerprinted.left), unfingerprinted.right);
+        }
       } else if (attributes.isRegularFile()) {
-        sendFile(context, file, attributes);
-      } else if (attributes.isDirectory()) {
+        if (fingerprint == null) {
+          sendAsset(context, file, asset);
+        } else {
+          sendFingerprinted(context, file, asset, fingerprint);
+        }
+      } else if (attributes.isDirectory() && fingerprint == null) {
         maybeSendFile(context, file, 0);
       } else {
         context.next();
@@ -74,17 +419,46 @@ public class AssetHandler implements Handler {
     });
   }
 
+  /**
+   * Sends the asset, with far future caching if the fingerprint is the checksum of its current content.
+   * <p>
+   * A stale fingerprint still gets the current content, but without far future caching.
+   */
+  private void sendFingerprinted(Context context, Path file, Asset asset, String fingerprint) throws Exception {
+    String etag = asset.encodedFile == null ? asset.etag : etags.getIfPresent(file, asset.attributes);
+    if (etag == null) {
+      context.blocking(() -> etags.etag(file, asset.attributes)).then(identityEtag -> {
+        sendFingerprinted(context, file, asset, fingerprint, identityEtag);
+      });
+    } else {
+      sendFingerprinted(context, file, asset, fingerprint, etag);
+    }
+  }
+
+  private void sendFingerprinted(Context context, Path file, Asset asset, String fingerprint, String identityEtag) {
+    if (FileETagCache.hasChecksum(identityEtag, fingerprint)) {
+      context.getResponse().getHeaders().set(HttpHeaderNames.CACHE_CONTROL, FingerprintedAssets.CACHE_CONTROL);
+    }
+    sendAsset(context, file, asset);
+  }
+
   private void maybeSendFile(final Context context, final Path file, final int i) throws Exception {
     if (i == indexFiles.size()) {
       context.next();
     } else {
       String name = indexFiles.get(i);
       final Path indexFile = file.resolve(name);
-      readAttributes(context, indexFile, attributes -> {
-        if (attributes != null && attributes.isRegularFile()) {
-          String path = context.getRequest().getPath();
+      String path = context.getRequest().getPath();
+      AssetCache cache = cache(context);
+      AssetCache.Entry cached = cache == null ? null : cache.get(indexFile);
+      if (cached != null && (path.endsWith("/") || path.isEmpty()) && sendCached(context, cached)) {
+        return;
+      }
+
+      readAsset(context, indexFile, asset -> {
+        if (asset != null && asset.attributes.isRegularFile()) {
           if (path.endsWith("/") || path.isEmpty()) {
-            sendFile(context, indexFile, attributes);
+            sendAsset(context, indexFile, asset);
           } else {
             context.redirect(currentUriWithTrailingSlash(context));
           }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An inclusive range of bytes of a representation, as requested by the {@code Range} header.
+ */
+public class ByteRange {
+
+  public static final String BYTES_UNIT = "bytes";
+
+  private final long first;
+  private final long last;
+
+  public ByteRange(long first, long last) {
+    this.first = first;
+    this.last = last;
+  }
+
+  public long getFirst() {
+    return first;
+  }
+
+  public long getLast() {
+    return last;
+  }
+
+  public long getLength() {
+    return last - first + 1;
+  }
+
+  /**
+   * The value of the {@code Content-Range} header for this range.
+   *
+   * @param size the size of the complete representation
+   * @return the content range header value
+   */
+  public String toContentRange(long size) {
+    return BYTES_UNIT + " " + first + "-" + last + "/" + size;
+  }
+
+  /**
+   * Parses the value of a {@code Range} header, for a representation of the given size.
+   * <p>
+   * Returns {@code null} if the header is not a syntactically valid byte range set, in which case it should be ignored.
+   * Returns an empty list if none of the ranges are satisfiable.
+   * Otherwise, returns the satisfiable ranges in ascending order, with overlapping and adjacent ranges coalesced.
+   *
+   * @param header the value of the range header
+   * @param size the size of the representation
+   * @return the requested ranges
+   */
+  public static List<ByteRange> parse(String header, long size) {
+    String value = header.trim();
+    if (!value.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length()) || value.length() <= BYTES_UNIT.length() || value.charAt(BYTES_UNIT.length()) != '=') {
+      return null;
+    }
+
+    List<ByteRange> ranges = new ArrayList<>();
+    boolean specified = false;
+    for (String spec : value.substring(BYTES_UNIT.length() + 1).split(",")) {
+      spec = spec.trim();
+      if (spec.isEmpty()) {
+        continue;
+      }
+      specified = true;
+      int dash = spec.indexOf('-');
+      if (dash < 0) {
+        return null;
+      }
+      String firstPart = spec.substring(0, dash).trim();
+      String lastPart = spec.substring(dash + 1).trim();
+      try {
+        if (firstPart.isEmpty()) {
+          // suffix range, i.e. the last N bytes
+          if (lastPart.isEmpty()) {
+            return null;
+          }
+          long suffixLength = parseNonNegative(lastPart);
+          if (suffixLength > 0 && size > 0) {
+            ranges.add(new ByteRange(Math.max(0, size - suffixLength), size - 1));
+          }
+        } else {
+          long first = parseNonNegative(firstPart);
+          long last = lastPart.isEmpty() ? Long.MAX_VALUE : parseNonNegative(lastPart);
+          if (last < first) {
+            return null;
+          }
+          if (first < size) {
+            ranges.add(new ByteRange(first, Math.min(last, size - 1)));
+          }
+        }
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    // a byte range set must contain at least one range spec (RFC 7233 section 2.1)
+    return specified ? coalesce(ranges) : null;
+  }
+
+  private static long parseNonNegative(String value) {
+    long parsed = Long.parseLong(value);
+    if (parsed < 0) {
+      throw new NumberFormatException(value);
+    }
+    return parsed;
+  }
+
+  private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+    if (ranges.size() < 2) {
+      return ranges;
+    }
+    Collections.sort(ranges, (left, right) -> Long.compare(left.first, right.first));
+    ImmutableList.Builder<ByteRange> coalesced = ImmutableList.builder();
+    ByteRange current = ranges.get(0);
+    for (ByteRange next : ranges.subList(1, ranges.size())) {
+      if (next.first <= current.last + 1) {
+        current = new ByteRange(current.first, Math.max(current.last, next.last));
+      } else {
+        coalesced.add(current);
+        current = next;
+      }
+    }
+    coalesced.add(current);
+    return coalesced.build();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ByteRange that = (ByteRange) o;
+    return first == that.first && last == that.last;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(first) + Long.hashCode(last);
+  }
+
+  @Override
+  public String toString() {
+    return first + "-" + last;
+  }
+}
@@ -17,11 +17,13 @@
 package ratpack.file.internal;
 
 import io.netty.handler.codec.http.HttpHeaderNames;
+import ratpack.api.Nullable;
 import ratpack.exec.ExecControl;
 import ratpack.file.MimeTypes;
 import ratpack.func.Action;
 import ratpack.handling.Context;
 import ratpack.http.Response;
+import ratpack.http.internal.HttpHeaderConstants;
 import ratpack.render.RendererSupport;
 import ratpack.util.ExceptionUtils;
 
@@ -46,31 +48,58 @@ public class DefaultFileRenderer extends RendererSupport<Path> {
   }
 
   public static void sendFile(Context context, Path file, BasicFileAttributes attributes) {
+    sendFile(context, file, attributes, null);
+  }
+
+  /**
+   * Sends the file, using the given entity tag (if not null) to respond to {@code If-None-Match} headers.
+   * <p>
+   * As per RFC 7232, {@code If-Modified-Since} is ignored if the request has an {@code If-None-Match} header and the entity tag is known.
+   */
+  public static void sendFile(Context context, Path file, BasicFileAttributes attributes, @Nullable String etag) {
     if (!context.getRequest().getMethod().isGet()) {
       context.clientError(405);
       return;
     }
 
     Date date = new Date(attributes.lastModifiedTime().toMillis());
+    final String ifNoneMatch = context.getRequest().getHeaders().get(HttpHeaderNames.IF_NONE_MATCH);
+    Response response = context.getResponse();
+
+    if (etag != null) {
+      response.getHeaders().set(HttpHeaderNames.ETAG, etag);
+      if (ifNoneMatch != null) {
+        response.getHeaders().setDate(HttpHeaderConstants.LAST_MODIFIED, date);
+        if (FileETagCache.matches(ifNoneMatch, etag)) {
+          response.status(NOT_MODIFIED.code()).send();
+        } else {
+          send(context, file, attributes);
+        }
+        return;
+      }
+    }
 
     context.lastModified(date, () -> {
-      final String ifNoneMatch = context.getRequest().getHeaders().get(HttpHeaderNames.IF_NONE_MATCH);
-      Response response = context.getResponse();
       if (ifNoneMatch != null && ifNoneMatch.trim().equals("*")) {
         response.status(NOT_MODIFIED.code()).send();
         return;
       }
 
-      response.contentTypeIfNotSet(() -> context.get(MimeTypes.class).getContentType(file.getFileName().toString()));
-
-      try {
-        response.sendFile(attributes, file);
-      } catch (Exception e) {
-        throw ExceptionUtils.uncheck(e);
-      }
+      send(context, file, attributes);
     });
   }
 
+  private static void send(Context context, Path file, BasicFileAttributes attributes) {
+    Response response = context.getResponse();
+    response.contentTypeIfNotSet(() -> context.get(MimeTypes.class).getContentType(file.getFileName().toString()));
+
+    try {
+      response.sendFile(attributes, file);
+    } catch (Exception e) {
+      throw ExceptionUtils.uncheck(e);
+    }
+  }
+
   public static void readAttributes(ExecControl execContext, Path file, Action<? super BasicFileAttributes> then) throws Exception {
     execContext.blocking(() -> {
       if (Files.exists(file)) {
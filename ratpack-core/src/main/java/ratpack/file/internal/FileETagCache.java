@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ratpack.api.Nullable;
+import ratpack.func.Function;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Calculates strong entity tags for files from a checksum of their content.
+ * <p>
+ * Entity tags are cached by path, and only recalculated when the file's last modified time or size changes.
+ * The cache is bounded, so that serving a large number of distinct files doesn't retain an entry for each.
+ */
+public class FileETagCache {
+
+  public static final long DEFAULT_MAX_ENTRIES = 10000;
+
+  private static class Entry {
+    private final long lastModified;
+    private final long size;
+    private final String etag;
+
+    private Entry(long lastModified, long size, String etag) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.etag = etag;
+    }
+  }
+
+  private final Function<? super InputStream, ? extends String> checksummer;
+  private final Cache<Path, Entry> cache;
+
+  public FileETagCache() {
+    this(new Adler32Checksummer(), DEFAULT_MAX_ENTRIES);
+  }
+
+  public FileETagCache(Function<? super InputStream, ? extends String> checksummer, long maxEntries) {
+    this.checksummer = checksummer;
+    this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+  }
+
+  /**
+   * The entity tag of the given file, calculating it if it is not cached for the file's current attributes.
+   * <p>
+   * This method may read the file, so must be called from a blocking thread.
+   *
+   * @param file the file
+   * @param attributes the current attributes of the file
+   * @return the file's entity tag, including quotes
+   * @throws Exception if the file cannot be read
+   */
+  public String etag(Path file, BasicFileAttributes attributes) throws Exception {
+    String etag = getIfPresent(file, attributes);
+    if (etag != null) {
+      return etag;
+    }
+
+    String checksum;
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      checksum = checksummer.apply(inputStream);
+    }
+    long size = attributes.size();
+    etag = etag(checksum, size);
+    cache.put(file, new Entry(attributes.lastModifiedTime().toMillis(), size, etag));
+    return etag;
+  }
+
+  /**
+   * The cached entity tag of the given file, if it was calculated for the file's current attributes.
+   *
+   * @param file the file
+   * @param attributes the current attributes of the file
+   * @return the file's entity tag, or {@code null} if it is not cached
+   */
+  @Nullable
+  public String getIfPresent(Path file, BasicFileAttributes attributes) {
+    Entry entry = cache.getIfPresent(file);
+    if (entry != null && entry.lastModified == attributes.lastModifiedTime().toMillis() && entry.size == attributes.size()) {
+      return entry.etag;
+    }
+    return null;
+  }
+
+  /**
+   * The entity tag for content with the given checksum and size.
+   *
+   * @param checksum the checksum of the content
+   * @param size the size of the content
+   * @return the entity tag, including quotes
+   */
+  public static String etag(String checksum, long size) {
+    return "\"" + checksum + "-" + Long.toHexString(size) + "\"";
+  }
+
+  /**
+   * Whether the given entity tag, as created by this class, is for content with the given checksum.
+   *
+   * @param etag the entity tag, including quotes
+   * @param checksum the checksum
+   * @return whether the entity tag is for content with the given checksum
+   */
+  public static boolean hasChecksum(String etag, String checksum) {
+    return etag.length() > checksum.length() + 2
+      && etag.charAt(0) == '"'
+      && etag.startsWith(checksum, 1)
+      && etag.charAt(checksum.length() + 1) == '-';
+  }
+
+  /**
+   * Whether the value of an {@code If-None-Match} header matches the given entity tag.
+   * <p>
+   * Uses the weak comparison function, as required for {@code If-None-Match}.
+   *
+   * @param ifNoneMatch the header value
+   * @param etag the current entity tag
+   * @return whether the header matches
+   */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    String expected = opaque(etag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.equals("*") || opaque(candidate).equals(expected)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String opaque(String etag) {
+    return etag.startsWith("W/") ? etag.substring(2) : etag;
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ratpack.api.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A bounded cache of the attributes of files, including whether they exist.
+ * <p>
+ * Entries are invalidated by a {@link FileSystemWatcher}, so that cached attributes can be used without checking the file system.
+ * Nothing is cached if the watcher is not {@link FileSystemWatcher#isWatching() watching}.
+ */
+public class FileMetadataCache implements FileSystemWatcher.Listener {
+
+  public static class Metadata {
+    private static final Metadata MISSING = new Metadata(null);
+
+    private final BasicFileAttributes attributes;
+
+    private Metadata(BasicFileAttributes attributes) {
+      this.attributes = attributes;
+    }
+
+    /**
+     * The attributes of the file, or {@code null} if it does not exist.
+     */
+    @Nullable
+    public BasicFileAttributes getAttributes() {
+      return attributes;
+    }
+  }
+
+  private final FileSystemWatcher watcher;
+  private final Cache<Path, Metadata> cache;
+
+  /**
+   * Constructor.
+   *
+   * @param watcher the watcher that invalidates entries
+   * @param maxEntries the maximum number of files to cache the attributes of
+   */
+  public FileMetadataCache(FileSystemWatcher watcher, long maxEntries) {
+    this.watcher = watcher;
+    this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+    watcher.addListener(this);
+  }
+
+  /**
+   * The cached metadata of the file.
+   *
+   * @param file the file
+   * @return the metadata, or {@code null} if it is not cached
+   */
+  @Nullable
+  public Metadata get(Path file) {
+    return watcher.isWatching() ? cache.getIfPresent(file) : null;
+  }
+
+  /**
+   * Reads the attributes of the file, caching them if the file system did not change while they were being read.
+   * This method does blocking IO.
+   *
+   * @param file the file
+   * @return the attributes of the file, or {@code null} if it does not exist
+   * @throws IOException if the attributes cannot be read
+   */
+  @Nullable
+  public BasicFileAttributes read(Path file) throws IOException {
+    long generation = watcher.getGeneration();
+    Metadata metadata = Files.exists(file) ? new Metadata(Files.readAttributes(file, BasicFileAttributes.class)) : Metadata.MISSING;
+    if (watcher.isWatching() && file.startsWith(watcher.getRoot())) {
+      // Put before checking the generation, so that a change reported in the meantime either removes the entry or is detected here
+      cache.put(file, metadata);
+      if (watcher.getGeneration() != generation) {
+        cache.asMap().remove(file, metadata);
+      }
+    }
+    return metadata.attributes;
+  }
+
+  @Override
+  public void changed(Path path) {
+    cache.invalidate(path);
+    cache.invalidate(path.getParent());
+    // may be a directory
+    cache.asMap().keySet().removeIf(key -> key.startsWith(path));
+  }
+
+  @Override
+  public void overflow() {
+    cache.invalidateAll();
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes the checksums of files, along with the size and last modified time they were calculated for.
+ * <p>
+ * The index is a text file with a header line, followed by a line per file of tab separated size, last modified time, checksum and path.
+ * Indexes that can't be read are treated as empty, as they can always be rebuilt.
+ */
+public abstract class FileSystemChecksumIndex {
+
+  public static final String FILE_NAME = ".ratpack-checksums";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemChecksumIndex.class);
+  private static final String HEADER = "ratpack-checksums 1";
+
+  /**
+   * Whether the file is an index, or a temporary file used while writing one.
+   * <p>
+   * Index files are written to the directory they index, so must be excluded from it and never served.
+   *
+   * @param file the file
+   * @return whether the file is an index file
+   */
+  public static boolean isIndexFile(Path file) {
+    Path fileName = file.getFileName();
+    return fileName != null && fileName.toString().startsWith(FILE_NAME);
+  }
+
+  public static class Entry {
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String checksum;
+
+    public Entry(String path, long size, long lastModified, String checksum) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public String getChecksum() {
+      return checksum;
+    }
+  }
+
+  /**
+   * Reads the index file.
+   *
+   * @param indexFile the index file
+   * @return the entries of the index, or an empty list if it does not exist or can't be read
+   */
+  public static List<Entry> read(Path indexFile) {
+    List<Entry> entries = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      if (!HEADER.equals(reader.readLine())) {
+        return Collections.emptyList();
+      }
+      String line = reader.readLine();
+      while (line != null) {
+        String[] parts = line.split("\t", 4);
+        if (parts.length != 4) {
+          return Collections.emptyList();
+        }
+        entries.add(new Entry(parts[3], Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+        line = reader.readLine();
+      }
+      return entries;
+    } catch (NoSuchFileException e) {
+      return Collections.emptyList();
+    } catch (IOException | NumberFormatException e) {
+      LOGGER.debug("Ignoring unreadable checksum index " + indexFile, e);
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * Writes the index file, replacing it atomically if possible.
+   * <p>
+   * Failures are logged and ignored, e.g. if the directory isn't writable.
+   *
+   * @param indexFile the index file
+   * @param entries the entries to write
+   */
+  public static void write(Path indexFile, Iterable<? extends Entry> entries) {
+    Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        for (Entry entry : entries) {
+          if (entry.path.indexOf('\n') < 0 && entry.path.indexOf('\r') < 0) {
+            writer.write(entry.size + "\t" + entry.lastModified + "\t" + entry.checksum + "\t" + entry.path);
+            writer.newLine();
+          }
+        }
+      }
+      try {
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Could not write checksum index " + indexFile, e);
+      try {
+        Files.deleteIfExists(tempFile);
+      } catch (IOException ignore) {
+        // ignore
+      }
+    }
+  }
+
+}
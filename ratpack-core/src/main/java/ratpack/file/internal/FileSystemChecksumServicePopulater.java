@@ -16,45 +16,62 @@
 
 package ratpack.file.internal;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ratpack.file.FileSystemChecksumService;
+import ratpack.func.Action;
 
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Calculates the checksum of every file under a directory, so that they are cached by the time they are needed.
+ * <p>
+ * The tree is walked with a fork join pool of bounded parallelism, with a task per directory and per file.
+ * The pool is shut down when population completes, and its threads are daemons so don't hold up shutdown.
+ */
 public class FileSystemChecksumServicePopulater {
 
-  private final FileSystemChecksumService checksumService;
-  private final ExecutorService executorService;
-  private final int workers;
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemChecksumServicePopulater.class);
+
   private final Path root;
+  private final FileSystemChecksumService checksumService;
+  private final ForkJoinPool pool;
+  private final Action<? super Set<String>> onComplete;
+  private final Set<String> paths = ConcurrentHashMap.newKeySet();
+  private final ForkJoinTask<?> task;
 
-  private static class Task {
-    private final String path;
+  private final AtomicBoolean started = new AtomicBoolean();
 
-    private Task(String path) {
-      this.path = path;
-    }
+  public FileSystemChecksumServicePopulater(Path root, FileSystemChecksumService checksumService, int parallelism) {
+    this(root, checksumService, parallelism, Action.noop());
   }
 
-  private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
-
-  private AtomicBoolean started = new AtomicBoolean();
-  private final CountDownLatch latch;
-
-  public FileSystemChecksumServicePopulater(Path root, FileSystemChecksumService checksumService, ExecutorService executorService, int workers) {
+  /**
+   * Constructor.
+   *
+   * @param root the directory to calculate the checksums of files in
+   * @param checksumService the service to calculate checksums with
+   * @param parallelism the maximum number of files to read at once
+   * @param onComplete called with the (relative) paths of all files found, once their checksums have been calculated
+   */
+  public FileSystemChecksumServicePopulater(Path root, FileSystemChecksumService checksumService, int parallelism, Action<? super Set<String>> onComplete) {
     this.root = root;
     this.checksumService = checksumService;
-    this.executorService = executorService;
-    this.workers = workers;
-    this.latch = new CountDownLatch(this.workers);
+    this.pool = new ForkJoinPool(parallelism);
+    this.onComplete = onComplete;
+    this.task = ForkJoinTask.adapt(this::populate);
   }
 
   public boolean start() {
@@ -62,81 +79,67 @@ public class FileSystemChecksumServicePopulater {
       return false;
     }
 
-    executorService.submit(new FileSystemWalk());
-    for (int i = 0; i < workers; ++i) {
-      executorService.submit(new Checksummer());
-    }
-
+    pool.execute(task);
     return true;
   }
 
-  private class FileSystemWalk implements Runnable {
-    @Override
-    public void run() {
-      try {
-        Files.walkFileTree(root, new FileVisitor<Path>() {
-          @Override
-          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-            return FileVisitResult.CONTINUE;
-          }
+  public void waitFor() throws InterruptedException {
+    start();
+    task.quietlyJoin();
+  }
 
-          @Override
-          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            try {
-              queue.put(new Task(root.relativize(file).toString()));
-              return FileVisitResult.CONTINUE;
-            } catch (InterruptedException e) {
-              return FileVisitResult.TERMINATE;
-            }
-          }
+  private void populate() {
+    try {
+      new DirectoryTask(root).invoke();
+      onComplete.execute(paths);
+    } catch (Exception e) {
+      LOGGER.debug("Failed to populate checksums of " + root, e);
+    } finally {
+      pool.shutdown();
+    }
+  }
 
-          @Override
-          public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            return FileVisitResult.CONTINUE;
-          }
+  private class DirectoryTask extends RecursiveAction {
+    private final Path dir;
 
-          @Override
-          public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-            return FileVisitResult.CONTINUE;
+    private DirectoryTask(Path dir) {
+      this.dir = dir;
+    }
+
+    @Override
+    protected void compute() {
+      List<RecursiveAction> tasks = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+        for (Path path : stream) {
+          if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            tasks.add(new DirectoryTask(path));
+          } else if (Files.isRegularFile(path) && !FileSystemChecksumIndex.isIndexFile(path)) {
+            tasks.add(new FileTask(root.relativize(path).toString()));
           }
-        });
+        }
       } catch (IOException ignore) {
         // ignore
-      } finally {
-        try {
-          queue.put(new Task(null));
-        } catch (InterruptedException ignore) {
-          // ignore
-        }
       }
+      invokeAll(tasks);
     }
   }
 
-  private class Checksummer implements Runnable {
+  private class FileTask extends RecursiveAction {
+    private final String path;
+
+    private FileTask(String path) {
+      this.path = path;
+    }
+
     @Override
-    public void run() {
+    protected void compute() {
       try {
-        Task entry = queue.take();
-        while (entry.path != null) {
-          try {
-            checksumService.checksum(entry.path);
-          } catch (Exception ignore) {
-            // ignore
-          }
-          entry = queue.take();
-        }
-        queue.put(entry);
-      } catch (InterruptedException ignore) {
+        checksumService.checksum(path);
+        paths.add(path);
+      } catch (Exception ignore) {
         // ignore
-      } finally {
-        latch.countDown();
       }
     }
   }
 
-  public void waitFor() throws InterruptedException {
-    start();
-    latch.await();
-  }
-
 }
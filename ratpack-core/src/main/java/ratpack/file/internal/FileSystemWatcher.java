@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.server.Service;
+import ratpack.server.StartEvent;
+import ratpack.server.StopEvent;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a directory tree for changes, notifying listeners of the paths that changed.
+ * <p>
+ * The watcher is started and stopped with the server.
+ * If the file system does not support watching (e.g. a zip file system), the watcher does not run and {@link #isWatching()} returns false.
+ * Caches that depend on the watcher for invalidation should not cache anything in this case.
+ * <p>
+ * Each notification increments the {@link #getGeneration() generation}.
+ * A cache can compare the generation before and after loading a value, to avoid caching a value that may have been loaded while it was changing.
+ */
+public class FileSystemWatcher implements Service {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemWatcher.class);
+
+  public interface Listener {
+
+    /**
+     * The file or directory at the given path was created, modified or deleted.
+     * <p>
+     * If a directory is deleted, listeners may only be notified of the directory and not its contents.
+     *
+     * @param path the path that changed
+     */
+    void changed(Path path);
+
+    /**
+     * Changes may have been missed, so everything should be considered changed.
+     */
+    void overflow();
+
+  }
+
+  private final Path root;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  private volatile WatchService watchService;
+  private volatile Thread thread;
+
+  public FileSystemWatcher(Path root) {
+    this.root = root;
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public Path getRoot() {
+    return root;
+  }
+
+  public boolean isWatching() {
+    return thread != null;
+  }
+
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  @Override
+  public synchronized void onStart(StartEvent event) throws Exception {
+    if (thread != null) {
+      return;
+    }
+    try {
+      watchService = root.getFileSystem().newWatchService();
+      registerAll(root);
+    } catch (UnsupportedOperationException | IOException e) {
+      LOGGER.debug("Cannot watch " + root + ", file system caches are disabled", e);
+      close();
+      return;
+    }
+
+    thread = new Thread(this::run, "ratpack-file-system-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public synchronized void onStop(StopEvent event) throws Exception {
+    Thread thread = this.thread;
+    this.thread = null;
+    close();
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void close() {
+    WatchService watchService = this.watchService;
+    this.watchService = null;
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException ignore) {
+        // ignore
+      }
+    }
+  }
+
+  private void registerAll(Path dir) throws IOException {
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void run() {
+    WatchService watchService = this.watchService;
+    try {
+      while (watchService != null) {
+        WatchKey key = watchService.take();
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          generation.incrementAndGet();
+          if (event.kind() == OVERFLOW) {
+            listeners.forEach(Listener::overflow);
+          } else {
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+              try {
+                registerAll(path);
+              } catch (IOException e) {
+                LOGGER.debug("Failed to watch " + path, e);
+              }
+            }
+            listeners.forEach(listener -> listener.changed(path));
+          }
+        }
+        if (!key.reset() && dir.equals(root)) {
+          // root is gone
+          listeners.forEach(Listener::overflow);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ignore) {
+      // stopped
+    }
+  }
+
+}
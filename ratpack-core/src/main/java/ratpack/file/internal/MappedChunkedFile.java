@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A chunked input of a region of a file, that reads the file through memory mapping.
+ * <p>
+ * The file is mapped in windows of a fixed size, and each chunk is a slice of the current window,
+ * so the content is not copied into a buffer before it is encrypted or compressed.
+ * <p>
+ * Mappings are released when garbage collected, not when the input is closed.
+ */
+public class MappedChunkedFile implements ChunkedInput<ByteBuf> {
+
+  public static final int WINDOW_SIZE = 8 * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long startOffset;
+  private final long endOffset;
+  private final int chunkSize;
+  private final int windowSize;
+
+  private long offset;
+  private MappedByteBuffer window;
+  private long windowOffset;
+
+  public MappedChunkedFile(FileChannel channel, long offset, long length, int chunkSize) {
+    this(channel, offset, length, chunkSize, WINDOW_SIZE);
+  }
+
+  MappedChunkedFile(FileChannel channel, long offset, long length, int chunkSize, int windowSize) {
+    this.channel = channel;
+    this.startOffset = offset;
+    this.endOffset = offset + length;
+    this.chunkSize = chunkSize;
+    this.windowSize = windowSize;
+    this.offset = offset;
+  }
+
+  @Override
+  public boolean isEndOfInput() throws Exception {
+    return !(offset < endOffset && channel.isOpen());
+  }
+
+  @Override
+  public void close() throws Exception {
+    window = null;
+    channel.close();
+  }
+
+  @Override
+  public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+    return readChunk();
+  }
+
+  public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+    return readChunk();
+  }
+
+  public long length() {
+    return endOffset - startOffset;
+  }
+
+  public long progress() {
+    return offset - startOffset;
+  }
+
+  private ByteBuf readChunk() throws IOException {
+    if (offset >= endOffset) {
+      return null;
+    }
+
+    if (window == null || offset >= windowOffset + window.capacity()) {
+      windowOffset = offset;
+      window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, endOffset - offset));
+    }
+
+    int position = (int) (offset - windowOffset);
+    int length = Math.min(chunkSize, window.capacity() - position);
+    ByteBuffer chunk = window.duplicate();
+    chunk.position(position);
+    chunk.limit(position + length);
+    offset += length;
+    return Unpooled.wrappedBuffer(chunk.slice());
+  }
+
+}
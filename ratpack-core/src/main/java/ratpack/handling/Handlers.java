@@ -16,6 +16,7 @@
 
 package ratpack.handling;
 
+import com.google.common.collect.ImmutableMap;
 import ratpack.api.Nullable;
 import ratpack.file.internal.AssetHandler;
 import ratpack.file.internal.FileSystemBindingHandler;
@@ -28,7 +29,9 @@ import ratpack.path.PathBinders;
 import ratpack.path.internal.PathHandler;
 import ratpack.registry.Registry;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.collect.ImmutableList.copyOf;
 
@@ -62,6 +65,8 @@ public abstract class Handlers {
    * The {@code indexFiles} array specifies the names of files to look for in order to serve.
    * <p>
    * If no file can be found to serve, then control will be delegated to the next handler.
+   * <p>
+   * Precompressed versions of files are served to clients that accept them, as per {@link ServerConfig#getPrecompressedAssetEncodings()}.
    *
    * @param serverConfig The application server config
    * @param path The relative path to the location of the assets to serve
@@ -69,10 +74,45 @@ public abstract class Handlers {
    * @return A handler
    */
   public static Handler assets(ServerConfig serverConfig, String path, List<String> indexFiles) {
-    Handler handler = new AssetHandler(copyOf(indexFiles));
+    Handler handler = new AssetHandler(copyOf(indexFiles), copyOf(serverConfig.getPrecompressedAssetEncodings()));
     return fileSystem(serverConfig, path, handler);
   }
 
+  /**
+   * Creates a handler that dispatches to the handlers specified by the given action based on the client's preferred content type.
+   * <p>
+   * This is equivalent to calling {@link Context#byContent(Action)} with the same action, except that the action is executed once,
+   * when this method is called, instead of for each request.
+   * As such, the handlers given to the spec should be {@link Handler} implementations and not {@link ratpack.func.NoArgAction} implementations that rely on request state.
+   *
+   * @param action the specification of the handlers for each content type
+   * @return A handler
+   * @throws Exception any thrown by {@code action}
+   */
+  public static Handler byContent(Action<? super ByContentSpec> action) throws Exception {
+    Map<String, Handler> handlers = new LinkedHashMap<>(2);
+    DefaultByContentSpec spec = new DefaultByContentSpec(handlers);
+    action.execute(spec);
+    return new ContentNegotiationHandler(handlers, spec.getNoMatchHandler());
+  }
+
+  /**
+   * Creates a handler that dispatches to the handlers specified by the given action based on the request method.
+   * <p>
+   * This is equivalent to calling {@link Context#byMethod(Action)} with the same action, except that the action is executed once,
+   * when this method is called, instead of for each request.
+   * As such, the handlers given to the spec should be {@link Handler} implementations and not {@link ratpack.func.NoArgAction} implementations that rely on request state.
+   *
+   * @param action the specification of the handlers for each method
+   * @return A handler
+   * @throws Exception any thrown by {@code action}
+   */
+  public static Handler byMethod(Action<? super ByMethodSpec> action) throws Exception {
+    Map<String, Handler> handlers = new LinkedHashMap<>(2);
+    action.execute(new DefaultByMethodSpec(handlers));
+    return new MultiMethodHandler(ImmutableMap.copyOf(handlers));
+  }
+
   /**
    * Builds a handler chain, with no backing registry.
    *
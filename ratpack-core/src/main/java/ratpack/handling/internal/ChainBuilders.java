@@ -20,6 +20,7 @@ import ratpack.func.Action;
 import ratpack.func.Function;
 import ratpack.handling.Handler;
 import ratpack.handling.Handlers;
+import ratpack.path.internal.PathRouter;
 import ratpack.reload.internal.ClassUtil;
 import ratpack.reload.internal.ReloadableFileBackedFactory;
 
@@ -45,7 +46,7 @@ public class ChainBuilders {
     List<Handler> handlers = new LinkedList<>();
     T chainBuilder = toChainBuilder.apply(handlers);
     chainBuilderAction.execute(chainBuilder);
-    return Handlers.chain(handlers.toArray(new Handler[handlers.size()]));
+    return Handlers.chain(PathRouter.compile(handlers));
   }
 
 }
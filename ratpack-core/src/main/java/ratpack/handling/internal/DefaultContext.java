@@ -49,6 +49,7 @@ import ratpack.path.PathTokens;
 import ratpack.path.internal.DefaultPathTokens;
 import ratpack.registry.NotInRegistryException;
 import ratpack.registry.Registry;
+import ratpack.registry.internal.OverlayRegistry;
 import ratpack.render.NoSuchRendererException;
 import ratpack.render.internal.RenderController;
 import ratpack.stream.TransformablePublisher;
@@ -116,6 +117,7 @@ public class DefaultContext implements Context {
     final Handler[] handlers;
     Registry registry;
     final boolean first;
+    Registry[] scopes;
     int i;
 
     private ChainIndex(Handler[] handlers, Registry registry, boolean first) {
@@ -132,6 +134,21 @@ public class DefaultContext implements Context {
     public boolean hasNext() {
       return i < handlers.length;
     }
+
+    void scope(FlattenedChain.Scope scope) {
+      int depth = scope.getDepth();
+      if (scope.isEnter()) {
+        if (scopes == null) {
+          scopes = new Registry[Math.max(4, depth + 1)];
+        } else if (depth >= scopes.length) {
+          scopes = Arrays.copyOf(scopes, Math.max(scopes.length * 2, depth + 1));
+        }
+        scopes[depth] = registry;
+      } else {
+        registry = scopes[depth];
+        scopes[depth] = null;
+      }
+    }
   }
 
   private final RequestConstants requestConstants;
@@ -223,7 +240,10 @@ public class DefaultContext implements Context {
     while (handler == null) {
       if (index.hasNext()) {
         handler = index.next();
-        if (handler.getClass().equals(ChainHandler.class)) {
+        if (handler instanceof FlattenedChain.Scope) {
+          index.scope((FlattenedChain.Scope) handler);
+          handler = null;
+        } else if (handler.getClass().equals(ChainHandler.class)) {
           requestConstants.indexes.push(new ChainIndex(((ChainHandler) handler).getHandlers(), getRegistry(), false));
           index = requestConstants.indexes.peek();
           handler = null;
@@ -250,7 +270,7 @@ public class DefaultContext implements Context {
 
   @Override
   public void next(Registry registry) {
-    setRegistry(getRegistry().join(registry));
+    setRegistry(OverlayRegistry.join(getRegistry(), registry));
     next();
   }
 
@@ -268,7 +288,11 @@ public class DefaultContext implements Context {
       throw new IllegalArgumentException("handlers is zero length");
     }
 
-    requestConstants.indexes.push(new ChainIndex(handlers, getRegistry().join(registry), false));
+    Registry current = getRegistry();
+    // Until a request scoped registry has been added, the registries being inserted are those of the handler chain,
+    // so are joined with the cached join, so that lookups against them stay cached across requests
+    Registry joined = current instanceof OverlayRegistry ? OverlayRegistry.join(current, registry) : current.join(registry);
+    requestConstants.indexes.push(new ChainIndex(handlers, joined, false));
     next();
   }
 
@@ -435,6 +459,21 @@ public class DefaultContext implements Context {
     new ContentNegotiationHandler(handlers, spec.getNoMatchHandler()).handle(this);
   }
 
+  @Override
+  public <O> O get(Class<O> type) throws NotInRegistryException {
+    return getRegistry().get(type);
+  }
+
+  @Override
+  public <O> Optional<O> maybeGet(Class<O> type) {
+    return getRegistry().maybeGet(type);
+  }
+
+  @Override
+  public <O> Iterable<? extends O> getAll(Class<O> type) {
+    return getRegistry().getAll(type);
+  }
+
   @Override
   public <O> O get(TypeToken<O> type) throws NotInRegistryException {
     return getRegistry().get(type);
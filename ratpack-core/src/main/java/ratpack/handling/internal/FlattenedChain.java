@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.handling.internal;
+
+import ratpack.handling.Context;
+import ratpack.handling.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a handler chain into a single flat program.
+ * <p>
+ * Nested {@link ChainHandler} instances are inlined into their parent, bracketed by {@link Scope} markers.
+ * When the context reaches an entry marker it remembers the current registry, and when it reaches the matching exit marker it restores it.
+ * This is what the context previously achieved by pushing a new chain index for every nested chain,
+ * so the behaviour of {@link Context#next()}, {@link Context#next(ratpack.registry.Registry)} and {@link Context#insert(Handler...)} is unchanged.
+ */
+public abstract class FlattenedChain {
+
+  private static final int CACHED_DEPTH = 16;
+  private static final Scope[] ENTER = new Scope[CACHED_DEPTH];
+  private static final Scope[] EXIT = new Scope[CACHED_DEPTH];
+
+  static {
+    for (int i = 0; i < CACHED_DEPTH; ++i) {
+      ENTER[i] = new Scope(i, true);
+      EXIT[i] = new Scope(i, false);
+    }
+  }
+
+  private FlattenedChain() {
+  }
+
+  public static Handler[] flatten(Handler[] handlers) {
+    if (!hasNested(handlers)) {
+      return handlers;
+    }
+
+    List<Handler> program = new ArrayList<>(handlers.length * 2);
+    append(program, handlers, 0);
+    return program.toArray(new Handler[program.size()]);
+  }
+
+  private static boolean hasNested(Handler[] handlers) {
+    for (Handler handler : handlers) {
+      if (isChain(handler)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isChain(Handler handler) {
+    // Same test as DefaultContext; subclasses of ChainHandler may rely on their own handle() being called
+    return handler.getClass().equals(ChainHandler.class);
+  }
+
+  private static void append(List<Handler> program, Handler[] handlers, int depth) {
+    for (Handler handler : handlers) {
+      if (isChain(handler)) {
+        Handler[] nested = ((ChainHandler) handler).getHandlers();
+        if (nested.length > 0) {
+          program.add(scope(depth, true));
+          append(program, nested, depth + 1);
+          program.add(scope(depth, false));
+        }
+      } else {
+        program.add(handler);
+      }
+    }
+  }
+
+  private static Scope scope(int depth, boolean enter) {
+    if (depth < CACHED_DEPTH) {
+      return enter ? ENTER[depth] : EXIT[depth];
+    } else {
+      return new Scope(depth, enter);
+    }
+  }
+
+  /**
+   * Marks the start or end of an inlined chain.
+   * <p>
+   * Scopes are interpreted by the context and are never handed a request.
+   */
+  public static final class Scope implements Handler {
+
+    private final int depth;
+    private final boolean enter;
+
+    private Scope(int depth, boolean enter) {
+      this.depth = depth;
+      this.enter = enter;
+    }
+
+    public int getDepth() {
+      return depth;
+    }
+
+    public boolean isEnter() {
+      return enter;
+    }
+
+    @Override
+    public void handle(Context context) throws Exception {
+      throw new IllegalStateException("chain scope markers are interpreted by the context and cannot handle requests");
+    }
+
+    @Override
+    public String toString() {
+      return (enter ? "enter" : "exit") + " chain scope " + depth;
+    }
+  }
+
+}
@@ -125,6 +125,11 @@ public interface Response extends ResponseMetaData {
 
   /**
    * Sends the response, using the given content type and the content of the given type as the response body.
+   * <p>
+   * If the status is 200 and the request is a {@code GET} with a {@code Range} header, only the requested ranges are sent in a 206 response
+   * ({@code multipart/byteranges} if more than one range was requested).
+   * The range is ignored if an {@code If-Range} header does not match the response's {@code ETag} or {@code Last-Modified} header.
+   *
    * @param attributes The attributes of the file, used for the headers
    * @param file The file whose contents are to be used as the response body
    */
@@ -17,24 +17,26 @@
 package ratpack.http.internal;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import ratpack.handling.Context;
 import ratpack.handling.Handler;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 public class ContentNegotiationHandler implements Handler {
 
   private final ImmutableMap<String, Handler> handlers;
   private final Handler noMatchHandler;
+  private final String defaultType;
+  private final ImmutableList<String> reversedTypes;
 
   public ContentNegotiationHandler(Map<String, Handler> handlers, Handler noMatchHandler) {
     this.handlers = ImmutableMap.copyOf(handlers);
     this.noMatchHandler = noMatchHandler;
+    this.defaultType = handlers.isEmpty() ? null : this.handlers.keySet().iterator().next();
+    this.reversedTypes = this.handlers.keySet().asList().reverse();
   }
 
   @Override
@@ -44,13 +46,10 @@ public class ContentNegotiationHandler implements Handler {
       return;
     }
 
-    List<String> types = Lists.newArrayList(handlers.keySet());
-    String winner = types.get(0);
-    Collections.reverse(types);
-
+    String winner = defaultType;
     String acceptHeader = context.getRequest().getHeaders().get(HttpHeaderNames.ACCEPT);
     if (!Strings.isNullOrEmpty(acceptHeader)) {
-      winner = MimeParse.bestMatch(types, acceptHeader);
+      winner = MimeParse.bestMatch(reversedTypes, acceptHeader);
     }
 
     if (Strings.isNullOrEmpty(winner)) {
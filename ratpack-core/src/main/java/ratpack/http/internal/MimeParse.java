@@ -16,10 +16,19 @@
 
 package ratpack.http.internal;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
 import java.util.*;
 
 public final class MimeParse {
 
+  // Parsed media ranges of Accept headers, which clients tend to send verbatim on every request
+  private static final Cache<String, List<ParseResults>> ACCEPT_HEADER_CACHE = CacheBuilder.newBuilder()
+    .maximumSize(512)
+    .build();
+
   protected static class ParseResults {
     String type;
 
@@ -134,12 +143,22 @@ public final class MimeParse {
     return new FitnessAndQuality(bestFitness, bestFitQ);
   }
 
-  public static String bestMatch(Iterable<? extends CharSequence> supported, String header) {
-    List<ParseResults> parseResults = new LinkedList<>();
-    List<FitnessAndQuality> weightedMatches = new LinkedList<>();
-    for (String r : header.split(",")) {
-      parseResults.add(parseMediaRange(r));
+  private static List<ParseResults> parseAcceptHeader(String header) {
+    List<ParseResults> parseResults = ACCEPT_HEADER_CACHE.getIfPresent(header);
+    if (parseResults == null) {
+      ImmutableList.Builder<ParseResults> builder = ImmutableList.builder();
+      for (String r : header.split(",")) {
+        builder.add(parseMediaRange(r));
+      }
+      parseResults = builder.build();
+      ACCEPT_HEADER_CACHE.put(header, parseResults);
     }
+    return parseResults;
+  }
+
+  public static String bestMatch(Iterable<? extends CharSequence> supported, String header) {
+    List<ParseResults> parseResults = parseAcceptHeader(header);
+    List<FitnessAndQuality> weightedMatches = new ArrayList<>();
 
     for (CharSequence s : supported) {
       FitnessAndQuality fitnessAndQuality = fitnessAndQualityParsed(s, parseResults);
@@ -79,4 +79,20 @@ public interface PathBinding {
    * @return All tokens extracted from the path by this binding and its parents.
    */
   PathTokens getAllTokens();
+
+  /**
+   * Describes the binding, as the path pattern that was bound with.
+   * <p>
+   * The description includes the description of any parent bindings.
+   * For example, a binding for pattern "books/:id" created within a binding for the prefix "author/:author"
+   * would be described as "author/:author/books/:id".
+   * Unlike {@link #getBoundTo()}, the description does not vary with the actual path of the request.
+   * <p>
+   * The default implementation returns {@link #getBoundTo()}, for implementations that predate this method.
+   *
+   * @return a description of the binding
+   */
+  default String getDescription() {
+    return getBoundTo();
+  }
 }
@@ -28,20 +28,36 @@ public class DefaultPathBinderBuilder implements PathBinderBuilder {
   private boolean addedOptional;
   private boolean addedToken;
 
+  // The literal text before the first token or pattern, and whether it ends on a path segment boundary
+  private final StringBuilder leadingLiteral = new StringBuilder();
+  private boolean addedNonLiteral;
+  private boolean leadingLiteralEndsSegment = true;
+
+  private final SegmentPathMatcher.Builder segments = new SegmentPathMatcher.Builder();
+
+  // The pattern in the syntax of PathBinders.parse(), describing bindings made by the binder
+  private final StringBuilder description = new StringBuilder();
+
   public PathBinderBuilder tokenWithPattern(String token, String pattern) {
     if (addedOptional) {
       throw new IllegalArgumentException(String.format("Cannot add mandatory parameter %s after optional parameters", token));
     }
+    addedNonLiteral = true;
     addedToken = true;
     tokensBuilder.add(token);
+    segments.unsupported();
+    describe(":", token, ":", pattern);
     this.pattern.append(String.format("(?:(?:^|/)(%s))", pattern));
     return this;
   }
 
   public PathBinderBuilder optionalTokenWithPattern(String token, String pattern) {
+    addedNonLiteral = true;
     addedOptional = true;
     addedToken = true;
     tokensBuilder.add(token);
+    segments.unsupported();
+    describe(":", token, "?:", pattern);
     this.pattern.append(String.format("(?:(?:^|/)(%s))?", pattern));
     return this;
   }
@@ -50,26 +66,44 @@ public class DefaultPathBinderBuilder implements PathBinderBuilder {
     if (addedOptional) {
       throw new IllegalArgumentException(String.format("Cannot add mandatory parameter %s after optional parameters", token));
     }
+    addedNonLiteral = true;
     addedToken = true;
     tokensBuilder.add(token);
+    segments.token();
+    describe(":", token);
     pattern.append("(?:(?:^|/)([^/?&#]+))");
     return this;
   }
 
   public PathBinderBuilder optionalToken(String token) {
+    addedNonLiteral = true;
     addedOptional = true;
     addedToken = true;
     tokensBuilder.add(token);
+    segments.optionalToken();
+    describe(":", token, "?");
     pattern.append("(?:(?:^|/)([^/?&#]*))?");
     return this;
   }
 
   public PathBinderBuilder literalPattern(String pattern) {
+    if (!addedNonLiteral) {
+      // literal patterns are not preceded by a separator, so may continue the last literal segment
+      leadingLiteralEndsSegment = false;
+    }
+    addedNonLiteral = true;
+    segments.unsupported();
+    describe("::", pattern);
     this.pattern.append(String.format("(?:%s)", pattern));
     return this;
   }
 
   public PathBinderBuilder literal(String literal) {
+    if (!addedNonLiteral) {
+      leadingLiteral.append(literal);
+    }
+    segments.literal(literal);
+    description.append(literal);
     this.pattern.append(String.format("\\Q%s\\E", literal));
     return this;
   }
@@ -77,6 +111,25 @@ public class DefaultPathBinderBuilder implements PathBinderBuilder {
   public PathBinder build(boolean exact) {
     String regex = (addedToken ? "(\\Q\\E" : "(") + pattern + (addedToken ? "\\Q\\E)" : ")") + (exact ? "(?:/|$)" : "(?:/.*)?");
     Pattern compiled = Pattern.compile(regex);
-    return new TokenPathBinder(tokensBuilder.build(), compiled);
+    return new TokenPathBinder(tokensBuilder.build(), compiled, leadingLiteralSegments(), segments.build(exact), description.toString());
+  }
+
+  private void describe(String... parts) {
+    // tokens and patterns are separated from what precedes them, as in PathBinders.parse()
+    if (description.length() > 0 && description.charAt(description.length() - 1) != '/') {
+      description.append('/');
+    }
+    for (String part : parts) {
+      description.append(part);
+    }
+  }
+
+  private ImmutableList<String> leadingLiteralSegments() {
+    if (leadingLiteral.length() == 0) {
+      return ImmutableList.of();
+    }
+    String[] segments = leadingLiteral.toString().split("/", -1);
+    int completeSegments = leadingLiteralEndsSegment ? segments.length : segments.length - 1;
+    return ImmutableList.copyOf(segments).subList(0, completeSegments);
   }
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ public class DefaultPathBinding implements PathBinding {
   private final String binding;
   private final String bindingWithSlash;
   private final String pastBinding;
+  private final String description;
 
   private final PathTokens tokens;
   private final PathTokens allTokens;
@@ -55,14 +56,20 @@ public class DefaultPathBinding implements PathBinding {
   }
 
   public DefaultPathBinding(String path, String binding, ImmutableMap<String, String> tokens, Optional<PathBinding> parent) {
+    this(path, binding, tokens, parent, binding);
+  }
+
+  public DefaultPathBinding(String path, String binding, ImmutableMap<String, String> tokens, Optional<PathBinding> parent, String description) {
     this.binding = binding;
     this.bindingWithSlash = binding.concat("/");
     this.tokens = new DefaultPathTokens(tokens);
 
     if (parent.isPresent()) {
       allTokens = new DefaultPathTokens(ImmutableMap.<String, String>builder().putAll(parent.get().getAllTokens()).putAll(tokens).build());
+      this.description = childDescription(parent.get().getDescription(), description);
     } else {
       allTokens = this.tokens;
+      this.description = description;
     }
 
     if (path.equals(binding)) {
@@ -74,6 +81,16 @@ public class DefaultPathBinding implements PathBinding {
     }
   }
 
+  private static String childDescription(String parent, String child) {
+    if (parent.isEmpty()) {
+      return child;
+    } else if (child.isEmpty()) {
+      return parent;
+    } else {
+      return parent.concat("/").concat(child);
+    }
+  }
+
   public String getPastBinding() {
     return pastBinding;
   }
@@ -94,4 +111,8 @@ public class DefaultPathBinding implements PathBinding {
   public PathTokens getAllTokens() {
     return allTokens;
   }
+
+  public String getDescription() {
+    return description;
+  }
 }
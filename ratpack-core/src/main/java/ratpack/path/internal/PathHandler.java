@@ -17,9 +17,6 @@
 package ratpack.path.internal;
 
 import com.google.common.base.Predicate;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.reflect.TypeToken;
 import ratpack.func.Action;
 import ratpack.handling.Context;
@@ -32,60 +29,11 @@ import ratpack.util.Types;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 
 public class PathHandler implements Handler {
 
   private static final TypeToken<PathBinding> TYPE = TypeToken.of(PathBinding.class);
 
-  private static final LoadingCache<CacheKey, Optional<Registry>> CACHE = CacheBuilder.newBuilder()
-    .maximumSize(2048) // TODO - make this tuneable
-    .build(new CacheLoader<CacheKey, Optional<Registry>>() {
-      @Override
-      public Optional<Registry> load(CacheKey key) throws Exception {
-        Optional<PathBinding> binding = key.pathBinder.bind(key.path, key.parentBinding);
-        if (binding.isPresent()) {
-          return Optional.of(new PathBindingRegistry(binding));
-        } else {
-          return Optional.empty();
-        }
-      }
-    });
-
-  private static class CacheKey {
-    private final PathBinder pathBinder;
-    private final String path;
-    private final Optional<PathBinding> parentBinding;
-
-    public CacheKey(PathBinder pathBinder, String path, Optional<PathBinding> parentBinding) {
-      this.pathBinder = pathBinder;
-      this.path = path;
-      this.parentBinding = parentBinding;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (o == null || getClass() != o.getClass()) {
-        return false;
-      }
-
-      CacheKey cacheKey = (CacheKey) o;
-
-      return parentBinding.equals(cacheKey.parentBinding) && path.equals(cacheKey.path) && pathBinder.equals(cacheKey.pathBinder);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = pathBinder.hashCode();
-      result = 31 * result + path.hashCode();
-      result = 31 * result + parentBinding.hashCode();
-      return result;
-    }
-  }
-
   private final PathBinder binder;
   private final Handler handler;
 
@@ -94,10 +42,14 @@ public class PathHandler implements Handler {
     this.handler = handler;
   }
 
-  public void handle(Context context) throws ExecutionException {
-    Optional<Registry> registry = CACHE.get(new CacheKey(binder, context.getRequest().getPath(), context.maybeGet(PathBinding.class)));
-    if (registry.isPresent()) {
-      context.insert(registry.get(), handler);
+  public PathBinder getBinder() {
+    return binder;
+  }
+
+  public void handle(Context context) {
+    Optional<PathBinding> binding = binder.bind(context.getRequest().getPath(), context.maybeGet(PathBinding.class));
+    if (binding.isPresent()) {
+      context.insert(new PathBindingRegistry(binding), handler);
     } else {
       context.next();
     }
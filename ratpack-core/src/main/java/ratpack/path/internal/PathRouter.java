@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.path.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import ratpack.handling.Context;
+import ratpack.handling.Handler;
+import ratpack.path.PathBinding;
+
+import java.util.*;
+
+/**
+ * Routes to a run of sibling {@link PathHandler path handlers} via a trie of their leading literal path segments.
+ * <p>
+ * Instead of each path handler trying to bind the request path in turn, the trie is used to find the handlers that could possibly bind the path.
+ * Only those handlers are inserted, in their original order, so that they bind the path exactly as before (including tokens, optional tokens and patterns)
+ * and calling {@code next()} from one still proceeds to the next handler that binds.
+ * Handlers whose binders have no leading literal segments (e.g. paths starting with a token, or custom binders) are candidates for every path.
+ */
+public class PathRouter implements Handler {
+
+  /**
+   * The minimum number of consecutive path handlers worth routing via a trie.
+   */
+  public static final int MIN_ROUTES = 4;
+
+  private static final Handler[] NO_HANDLERS = new Handler[0];
+
+  private final Handler[] routes;
+  private final Node root;
+
+  private static class Node {
+    private final int[] routes;
+    private final Map<String, Node> children;
+
+    private Node(int[] routes, Map<String, Node> children) {
+      this.routes = routes;
+      this.children = children;
+    }
+  }
+
+  private static class NodeBuilder {
+    private final List<Integer> routes = new ArrayList<>();
+    private final Map<String, NodeBuilder> children = new HashMap<>();
+
+    private void add(Iterator<String> segments, int route) {
+      if (segments.hasNext()) {
+        children.computeIfAbsent(segments.next(), k -> new NodeBuilder()).add(segments, route);
+      } else {
+        routes.add(route);
+      }
+    }
+
+    private Node build() {
+      ImmutableMap.Builder<String, Node> childNodes = ImmutableMap.builder();
+      for (Map.Entry<String, NodeBuilder> child : children.entrySet()) {
+        childNodes.put(child.getKey(), child.getValue().build());
+      }
+      return new Node(Ints.toArray(routes), childNodes.build());
+    }
+  }
+
+  public PathRouter(List<PathHandler> routes) {
+    this.routes = routes.toArray(new Handler[routes.size()]);
+    NodeBuilder root = new NodeBuilder();
+    for (int i = 0; i < this.routes.length; ++i) {
+      root.add(leadingLiteralSegments(routes.get(i)).iterator(), i);
+    }
+    this.root = root.build();
+  }
+
+  private static List<String> leadingLiteralSegments(PathHandler pathHandler) {
+    if (pathHandler.getBinder() instanceof TokenPathBinder) {
+      return ((TokenPathBinder) pathHandler.getBinder()).getLeadingLiteralSegments();
+    } else {
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * Replaces each run of at least {@link #MIN_ROUTES} consecutive path handlers in the given handlers with a single router.
+   *
+   * @param handlers the handlers of a chain
+   * @return the handlers, with runs of path handlers replaced by routers
+   */
+  public static List<Handler> compile(List<Handler> handlers) {
+    ImmutableList.Builder<Handler> compiled = ImmutableList.builder();
+    List<PathHandler> run = new ArrayList<>();
+    for (Handler handler : handlers) {
+      if (handler instanceof PathHandler) {
+        run.add((PathHandler) handler);
+      } else {
+        addRun(compiled, run);
+        compiled.add(handler);
+      }
+    }
+    addRun(compiled, run);
+    return compiled.build();
+  }
+
+  private static void addRun(ImmutableList.Builder<Handler> compiled, List<PathHandler> run) {
+    if (run.size() >= MIN_ROUTES) {
+      compiled.add(new PathRouter(run));
+    } else {
+      compiled.addAll(run);
+    }
+    run.clear();
+  }
+
+  /**
+   * The handlers that may bind the given path, in their original order.
+   *
+   * @param path the path to route (i.e. the request path, or the path past the parent binding)
+   * @return the handlers that may bind the path
+   */
+  public Handler[] candidates(String path) {
+    BitSet matched = null;
+    Node node = root;
+    int start = 0;
+    while (node != null) {
+      if (node.routes.length > 0) {
+        if (matched == null) {
+          matched = new BitSet(routes.length);
+        }
+        for (int route : node.routes) {
+          matched.set(route);
+        }
+      }
+      if (node.children.isEmpty() || start > path.length()) {
+        break;
+      }
+      int end = path.indexOf('/', start);
+      if (end == -1) {
+        end = path.length();
+      }
+      node = node.children.get(path.substring(start, end));
+      start = end + 1;
+    }
+
+    if (matched == null) {
+      return NO_HANDLERS;
+    }
+
+    Handler[] candidates = new Handler[matched.cardinality()];
+    int i = 0;
+    for (int route = matched.nextSetBit(0); route >= 0; route = matched.nextSetBit(route + 1)) {
+      candidates[i++] = routes[route];
+    }
+    return candidates;
+  }
+
+  @Override
+  public void handle(Context context) throws Exception {
+    Optional<PathBinding> parentBinding = context.maybeGet(PathBinding.class);
+    String path = parentBinding.isPresent() ? parentBinding.get().getPastBinding() : context.getRequest().getPath();
+    Handler[] candidates = candidates(path);
+    if (candidates.length == 0) {
+      context.next();
+    } else {
+      context.insert(candidates);
+    }
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.path.internal;
+
+import ratpack.api.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches paths made of literals, tokens and optional tokens by walking the path directly, without a regex.
+ * <p>
+ * Matching is equivalent to the regex built by {@link DefaultPathBinderBuilder} for the same parts.
+ * Patterns where the regex could backtrack into a token, or match a leading token via {@code ^}
+ * (i.e. a token not followed by a separator, or a leading optional token) are not supported and fall back to the regex.
+ */
+class SegmentPathMatcher {
+
+  private static final int LITERAL = 0;
+  private static final int TOKEN = 1;
+  private static final int OPTIONAL_TOKEN = 2;
+
+  private final int[] types;
+  private final String[] literals;
+  private final int[] tokenIndexes;
+  private final int tokenCount;
+  private final boolean exact;
+
+  private SegmentPathMatcher(int[] types, String[] literals, int[] tokenIndexes, int tokenCount, boolean exact) {
+    this.types = types;
+    this.literals = literals;
+    this.tokenIndexes = tokenIndexes;
+    this.tokenCount = tokenCount;
+    this.exact = exact;
+  }
+
+  static class Builder {
+    private final List<Integer> types = new ArrayList<>();
+    private final List<String> literals = new ArrayList<>();
+    private boolean supported = true;
+
+    void literal(String literal) {
+      if (literal.isEmpty()) {
+        return;
+      }
+      int last = types.size() - 1;
+      if (last >= 0 && types.get(last) == LITERAL) {
+        literals.set(last, literals.get(last).concat(literal));
+      } else {
+        if (last >= 0 && !literal.startsWith("/")) {
+          // the preceding token would need to backtrack to find the literal
+          supported = false;
+        }
+        types.add(LITERAL);
+        literals.add(literal);
+      }
+    }
+
+    void token() {
+      types.add(TOKEN);
+      literals.add(null);
+    }
+
+    void optionalToken() {
+      if (types.isEmpty()) {
+        supported = false;
+      }
+      types.add(OPTIONAL_TOKEN);
+      literals.add(null);
+    }
+
+    void unsupported() {
+      supported = false;
+    }
+
+    @Nullable
+    SegmentPathMatcher build(boolean exact) {
+      if (!supported) {
+        return null;
+      }
+      int[] types = new int[this.types.size()];
+      int[] tokenIndexes = new int[types.length];
+      int tokenCount = 0;
+      for (int i = 0; i < types.length; ++i) {
+        types[i] = this.types.get(i);
+        tokenIndexes[i] = types[i] == LITERAL ? -1 : tokenCount++;
+      }
+      return new SegmentPathMatcher(types, literals.toArray(new String[literals.size()]), tokenIndexes, tokenCount, exact);
+    }
+  }
+
+  int getTokenCount() {
+    return tokenCount;
+  }
+
+  /**
+   * Matches the given path.
+   *
+   * @param path the path to match, which must not start with a separator
+   * @param tokenBounds receives the start and end index of each token value, or -1 for absent optional tokens (length is twice the token count)
+   * @return the end index of the bound path, or -1 if the path does not match
+   */
+  int match(String path, int[] tokenBounds) {
+    return match(path, 0, 0, tokenBounds);
+  }
+
+  private int match(String path, int part, int pos, int[] tokenBounds) {
+    if (part == types.length) {
+      return isEnd(path, pos) ? pos : -1;
+    }
+
+    int length = path.length();
+    switch (types[part]) {
+      case LITERAL:
+        String literal = literals[part];
+        return path.startsWith(literal, pos) ? match(path, part + 1, pos + literal.length(), tokenBounds) : -1;
+      case TOKEN:
+        int start;
+        if (pos == 0) {
+          start = 0;
+        } else if (pos < length && path.charAt(pos) == '/') {
+          start = pos + 1;
+        } else {
+          return -1;
+        }
+        int end = tokenEnd(path, start);
+        if (end == start) {
+          return -1;
+        }
+        tokenBounds[tokenIndexes[part] * 2] = start;
+        tokenBounds[tokenIndexes[part] * 2 + 1] = end;
+        return match(path, part + 1, end, tokenBounds);
+      default:
+        if (pos < length && path.charAt(pos) == '/') {
+          int optionalStart = pos + 1;
+          int optionalEnd = tokenEnd(path, optionalStart);
+          int bound = match(path, part + 1, optionalEnd, tokenBounds);
+          if (bound != -1) {
+            tokenBounds[tokenIndexes[part] * 2] = optionalStart;
+            tokenBounds[tokenIndexes[part] * 2 + 1] = optionalEnd;
+            return bound;
+          }
+        }
+        tokenBounds[tokenIndexes[part] * 2] = -1;
+        tokenBounds[tokenIndexes[part] * 2 + 1] = -1;
+        return match(path, part + 1, pos, tokenBounds);
+    }
+  }
+
+  private boolean isEnd(String path, int pos) {
+    int length = path.length();
+    if (pos == length) {
+      return true;
+    } else if (path.charAt(pos) == '/') {
+      return !exact || pos + 1 == length;
+    } else {
+      return false;
+    }
+  }
+
+  private static int tokenEnd(String path, int start) {
+    int i = start;
+    int length = path.length();
+    while (i < length) {
+      char c = path.charAt(i);
+      if (c == '/' || c == '?' || c == '&' || c == '#') {
+        break;
+      }
+      ++i;
+    }
+    return i;
+  }
+
+}
@@ -18,30 +18,140 @@ package ratpack.path.internal;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import ratpack.api.Nullable;
 import ratpack.path.PathBinder;
 import ratpack.path.PathBinding;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class TokenPathBinder implements PathBinder {
 
+  private static final Pattern PLUS = Pattern.compile("\\+");
+
   private final ImmutableList<String> tokenNames;
   private final Pattern regex;
+  private final ImmutableList<String> leadingLiteralSegments;
+  private final SegmentPathMatcher segmentMatcher;
+  private final String description;
+
+  private final LongAdder bindCount = new LongAdder();
+  private final LongAdder matchCount = new LongAdder();
+  private final LongAdder regexBindCount = new LongAdder();
 
-  protected TokenPathBinder(ImmutableList<String> tokenNames, Pattern regex) {
+  protected TokenPathBinder(ImmutableList<String> tokenNames, Pattern regex, ImmutableList<String> leadingLiteralSegments, @Nullable SegmentPathMatcher segmentMatcher, String description) {
+    this.description = description;
     this.tokenNames = tokenNames;
     this.regex = regex;
+    this.leadingLiteralSegments = leadingLiteralSegments;
+    this.segmentMatcher = segmentMatcher;
+  }
+
+  /**
+   * The literal path segments that any path bound by this binder must start with.
+   * <p>
+   * Used for routing, to avoid trying binders that cannot bind.
+   *
+   * @return the literal path segments that any bound path must start with
+   */
+  public ImmutableList<String> getLeadingLiteralSegments() {
+    return leadingLiteralSegments;
+  }
+
+  /**
+   * The path pattern this binder was built from, used as the description of its bindings.
+   *
+   * @return the path pattern this binder was built from
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Whether paths are matched segment by segment, or by regex (for patterns containing regular expressions).
+   *
+   * @return whether paths are matched segment by segment
+   */
+  public boolean isSegmentMatched() {
+    return segmentMatcher != null;
+  }
+
+  /**
+   * The number of times this binder has tried to bind a path.
+   *
+   * @return the number of times this binder has tried to bind a path
+   */
+  public long getBindCount() {
+    return bindCount.sum();
+  }
+
+  /**
+   * The number of times this binder has successfully bound a path.
+   *
+   * @return the number of times this binder has successfully bound a path
+   */
+  public long getMatchCount() {
+    return matchCount.sum();
+  }
+
+  /**
+   * The number of times this binder has had to use its regex to try to bind a path.
+   *
+   * @return the number of times this binder has had to use its regex to try to bind a path
+   */
+  public long getRegexBindCount() {
+    return regexBindCount.sum();
   }
 
   public Optional<PathBinding> bind(String path, Optional<PathBinding> parentBinding) {
     if (parentBinding.isPresent()) {
       path = parentBinding.get().getPastBinding();
     }
+    bindCount.increment();
+    Optional<PathBinding> binding;
+    if (segmentMatcher != null && !path.startsWith("/")) {
+      binding = segmentBind(path, parentBinding);
+    } else {
+      regexBindCount.increment();
+      binding = regexBind(path, parentBinding);
+    }
+    if (binding.isPresent()) {
+      matchCount.increment();
+    }
+    return binding;
+  }
+
+  private Optional<PathBinding> segmentBind(String path, Optional<PathBinding> parentBinding) {
+    int tokenCount = segmentMatcher.getTokenCount();
+    int[] tokenBounds = tokenCount == 0 ? null : new int[tokenCount * 2];
+    int boundEnd = segmentMatcher.match(path, tokenBounds);
+    if (boundEnd == -1) {
+      return Optional.empty();
+    }
+
+    ImmutableMap<String, String> tokens;
+    if (tokenCount == 0) {
+      tokens = ImmutableMap.of();
+    } else {
+      ImmutableMap.Builder<String, String> paramsBuilder = ImmutableMap.builder();
+      for (int i = 0; i < tokenCount; ++i) {
+        int start = tokenBounds[i * 2];
+        if (start != -1) {
+          paramsBuilder.put(tokenNames.get(i), decodeURIComponent(path.substring(start, tokenBounds[i * 2 + 1])));
+        }
+      }
+      tokens = paramsBuilder.build();
+    }
+
+    return Optional.of(new DefaultPathBinding(path, path.substring(0, boundEnd), tokens, parentBinding, description));
+  }
+
+  private Optional<PathBinding> regexBind(String path, Optional<PathBinding> parentBinding) {
     Matcher matcher = regex.matcher(path);
     if (matcher.matches()) {
       MatchResult matchResult = matcher.toMatchResult();
@@ -55,16 +165,20 @@ public class TokenPathBinder implements PathBinder {
         }
       }
 
-      return Optional.of(new DefaultPathBinding(path, boundPath, paramsBuilder.build(), parentBinding));
+      return Optional.of(new DefaultPathBinding(path, boundPath, paramsBuilder.build(), parentBinding, description));
     } else {
       return Optional.empty();
     }
   }
 
-  private String decodeURIComponent(String s) {
+  private static String decodeURIComponent(String s) {
+    if (s.indexOf('%') == -1) {
+      // nothing to decode, and '+' is not treated as an encoded space
+      return s;
+    }
     String str;
     try {
-      str = URLDecoder.decode(s.replaceAll("\\+", "%2B"), "UTF-8");
+      str = URLDecoder.decode(s.indexOf('+') == -1 ? s : PLUS.matcher(s).replaceAll("%2B"), "UTF-8");
     } catch (UnsupportedEncodingException ignored) {
       throw new IllegalStateException("UTF-8 decoder should always be available");
     }
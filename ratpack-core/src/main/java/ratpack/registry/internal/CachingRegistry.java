@@ -20,6 +20,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.reflect.TypeToken;
 import ratpack.func.Action;
+import ratpack.registry.NotInRegistryException;
 import ratpack.registry.PredicateCacheability;
 import ratpack.registry.Registry;
 import ratpack.util.Types;
@@ -38,6 +39,11 @@ public class CachingRegistry implements Registry {
   private final ConcurrentMap<TypeToken<?>, Iterable<?>> allCache = new ConcurrentHashMap<>();
   private ConcurrentMap<PredicateCacheability.CacheKey<?>, Iterable<?>> predicateCache = new ConcurrentHashMap<>();
 
+  // Raw class keyed caches, avoiding TypeToken creation and hashing for the common non generic lookups.
+  // Class does not override equals/hashCode, so these are effectively identity maps.
+  private final ConcurrentMap<Class<?>, Optional<?>> classCache = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Class<?>, Iterable<?>> classAllCache = new ConcurrentHashMap<>();
+
   public static Registry of(Registry registry) {
     if (registry instanceof CachingRegistry) {
       return registry;
@@ -59,6 +65,36 @@ public class CachingRegistry implements Registry {
     return value;
   }
 
+  @Override
+  public <O> O get(Class<O> type) throws NotInRegistryException {
+    Optional<O> value = maybeGet(type);
+    if (value.isPresent()) {
+      return value.get();
+    } else {
+      throw new NotInRegistryException(TypeToken.of(type));
+    }
+  }
+
+  @Override
+  public <O> Optional<O> maybeGet(Class<O> type) {
+    Optional<?> value = classCache.get(type);
+    if (value == null) {
+      value = maybeGet(TypeToken.of(type));
+      classCache.put(type, value);
+    }
+    return Types.cast(value);
+  }
+
+  @Override
+  public <O> Iterable<? extends O> getAll(Class<O> type) {
+    Iterable<?> value = classAllCache.get(type);
+    if (value == null) {
+      value = getAll(TypeToken.of(type));
+      classAllCache.put(type, value);
+    }
+    return Types.cast(value);
+  }
+
   @Override
   public <O> Optional<O> maybeGet(TypeToken<O> type) {
     return Types.cast(compute(cache, type, delegate::maybeGet));
@@ -35,6 +35,16 @@ public class HierarchicalRegistry implements Registry {
     this.child = child;
   }
 
+  @Override
+  public <O> Optional<O> maybeGet(Class<O> type) {
+    Optional<O> object = child.maybeGet(type);
+    if (!object.isPresent()) {
+      object = parent.maybeGet(type);
+    }
+
+    return object;
+  }
+
   @Override
   public <O> Optional<O> maybeGet(TypeToken<O> type) {
     Optional<O> object = child.maybeGet(type);
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.registry.internal;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.reflect.TypeToken;
+import ratpack.func.Action;
+import ratpack.registry.Registry;
+import ratpack.util.Types;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A registry made of a flat array of layers, searched in order.
+ * <p>
+ * Used for request scoped registries, where each {@code next(registry)} or {@code insert(registry, ...)} would otherwise
+ * nest another {@link HierarchicalRegistry} (and populate the global join cache with short lived entries).
+ * Joining onto an overlay copies the layer references into a new array instead of nesting,
+ * so lookups never recurse and {@link #getAll(TypeToken)} walks the layers with a single iterator.
+ * <p>
+ * Results of {@code maybeGet()} are cached per overlay (keyed by {@link Class} or {@link TypeToken}), so repeated lookups don't depend on the number of layers.
+ * Stable layers (e.g. those registered with a handler chain) should be joined with {@link Registry#join(Registry)} before any request scoped layer,
+ * so that they form a single layer that keeps its cache across requests.
+ */
+public final class OverlayRegistry implements Registry {
+
+  private final Registry[] layers;
+  private volatile ConcurrentMap<Object, Optional<?>> cache; // created on first lookup, as many overlays are never searched
+
+  private OverlayRegistry(Registry[] layers) {
+    this.layers = layers;
+  }
+
+  public static Registry join(Registry parent, Registry child) {
+    if (parent == EmptyRegistry.INSTANCE) {
+      return child;
+    } else if (child == EmptyRegistry.INSTANCE) {
+      return parent;
+    }
+
+    Registry[] childLayers = layers(child);
+    Registry[] parentLayers = layers(parent);
+    Registry[] layers = new Registry[childLayers.length + parentLayers.length];
+    System.arraycopy(childLayers, 0, layers, 0, childLayers.length);
+    System.arraycopy(parentLayers, 0, layers, childLayers.length, parentLayers.length);
+    return new OverlayRegistry(layers);
+  }
+
+  private static Registry[] layers(Registry registry) {
+    return registry instanceof OverlayRegistry ? ((OverlayRegistry) registry).layers : new Registry[]{registry};
+  }
+
+  @Override
+  public <O> Optional<O> maybeGet(Class<O> type) {
+    ConcurrentMap<Object, Optional<?>> cache = cache();
+    Optional<?> object = cache.get(type);
+    if (object == null) {
+      object = search(type);
+      cache.put(type, object);
+    }
+    return Types.cast(object);
+  }
+
+  @Override
+  public <O> Optional<O> maybeGet(TypeToken<O> type) {
+    ConcurrentMap<Object, Optional<?>> cache = cache();
+    Optional<?> object = cache.get(type);
+    if (object == null) {
+      object = search(type);
+      cache.put(type, object);
+    }
+    return Types.cast(object);
+  }
+
+  private ConcurrentMap<Object, Optional<?>> cache() {
+    ConcurrentMap<Object, Optional<?>> cache = this.cache;
+    if (cache == null) {
+      cache = new ConcurrentHashMap<>(4);
+      this.cache = cache;
+    }
+    return cache;
+  }
+
+  private <O> Optional<O> search(Class<O> type) {
+    for (Registry layer : layers) {
+      Optional<O> object = layer.maybeGet(type);
+      if (object.isPresent()) {
+        return object;
+      }
+    }
+    return Optional.empty();
+  }
+
+  private <O> Optional<O> search(TypeToken<O> type) {
+    for (Registry layer : layers) {
+      Optional<O> object = layer.maybeGet(type);
+      if (object.isPresent()) {
+        return object;
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public <O> Iterable<? extends O> getAll(Class<O> type) {
+    return flatten(layer -> layer.getAll(type));
+  }
+
+  @Override
+  public <O> Iterable<? extends O> getAll(TypeToken<O> type) {
+    return flatten(layer -> layer.getAll(type));
+  }
+
+  @Override
+  public <T> Optional<T> first(TypeToken<T> type, Predicate<? super T> predicate) {
+    for (Registry layer : layers) {
+      Optional<T> object = layer.first(type, predicate);
+      if (object.isPresent()) {
+        return object;
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public <T> Iterable<? extends T> all(TypeToken<T> type, Predicate<? super T> predicate) {
+    return flatten(layer -> layer.all(type, predicate));
+  }
+
+  @Override
+  public <T> boolean each(TypeToken<T> type, Predicate<? super T> predicate, Action<? super T> action) throws Exception {
+    boolean found = false;
+    for (Registry layer : layers) {
+      found = layer.each(type, predicate, action) || found;
+    }
+    return found;
+  }
+
+  private <T> Iterable<T> flatten(Function<? super Registry, ? extends Iterable<? extends T>> function) {
+    return () -> new AbstractIterator<T>() {
+      int i;
+      Iterator<? extends T> current = Collections.emptyIterator();
+
+      @Override
+      protected T computeNext() {
+        while (!current.hasNext()) {
+          if (i == layers.length) {
+            return endOfData();
+          }
+          current = function.apply(layers[i++]).iterator();
+        }
+        return current.next();
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    OverlayRegistry that = (OverlayRegistry) o;
+
+    return Arrays.equals(layers, that.layers);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(layers);
+  }
+
+  @Override
+  public String toString() {
+    return "OverlayRegistry{layers=" + Arrays.toString(layers) + '}';
+  }
+}
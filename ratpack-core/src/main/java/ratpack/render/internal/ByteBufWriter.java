@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.render.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import ratpack.func.Action;
+
+import java.io.Writer;
+
+import static ratpack.util.ExceptionUtils.uncheck;
+
+/**
+ * A writer that encodes characters as UTF-8 directly into byte buffers, avoiding an intermediate string.
+ * <p>
+ * By default, everything written is collected in a single buffer, obtained with {@link #getBuffer()}.
+ * If a chunk size is given, each time at least that many bytes have been written they are passed to the chunk handler
+ * as a buffer, and a new buffer is started, so chunks are at most a few bytes larger than the chunk size regardless of the size of each write.
+ * Any remainder is passed to the chunk handler when the writer is closed.
+ * <p>
+ * Malformed surrogate pairs are encoded as {@code ?}, as with {@link String#getBytes(java.nio.charset.Charset)}.
+ */
+public class ByteBufWriter extends Writer {
+
+  private static final int NO_CHUNKS = Integer.MAX_VALUE;
+
+  private final ByteBufAllocator allocator;
+  private final int chunkSize;
+  private final Action<? super ByteBuf> chunkHandler;
+
+  private ByteBuf buffer;
+  private char highSurrogate;
+
+  public ByteBufWriter(ByteBufAllocator allocator) {
+    this(allocator, NO_CHUNKS, null);
+  }
+
+  public ByteBufWriter(ByteBufAllocator allocator, int chunkSize, Action<? super ByteBuf> chunkHandler) {
+    this.allocator = allocator;
+    this.chunkSize = chunkSize;
+    this.chunkHandler = chunkHandler;
+  }
+
+  @Override
+  public void write(int c) {
+    ensureWritable(1);
+    encode((char) c);
+    maybeChunk();
+  }
+
+  @Override
+  public void write(char[] chars, int off, int len) {
+    int end = off + len;
+    int i = off;
+    while (i < end) {
+      int sliceEnd = i + slice(end - i);
+      ensureWritable(sliceEnd - i);
+      for (; i < sliceEnd; ++i) {
+        encode(chars[i]);
+      }
+      maybeChunk();
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    int end = off + len;
+    int i = off;
+    while (i < end) {
+      int sliceEnd = i + slice(end - i);
+      ensureWritable(sliceEnd - i);
+      for (; i < sliceEnd; ++i) {
+        encode(str.charAt(i));
+      }
+      maybeChunk();
+    }
+  }
+
+  @Override
+  public Writer append(CharSequence csq) {
+    CharSequence chars = csq == null ? "null" : csq;
+    return append(chars, 0, chars.length());
+  }
+
+  @Override
+  public Writer append(CharSequence csq, int start, int end) {
+    CharSequence chars = csq == null ? "null" : csq;
+    int i = start;
+    while (i < end) {
+      int sliceEnd = i + slice(end - i);
+      ensureWritable(sliceEnd - i);
+      for (; i < sliceEnd; ++i) {
+        encode(chars.charAt(i));
+      }
+      maybeChunk();
+    }
+    return this;
+  }
+
+  /**
+   * Returns everything written since the last chunk, passing ownership of the buffer to the caller.
+   *
+   * @return the written bytes
+   */
+  public ByteBuf getBuffer() {
+    endSurrogate();
+    ByteBuf written = buffer == null ? allocator.buffer(0) : buffer;
+    buffer = null;
+    return written;
+  }
+
+  /**
+   * Releases anything written since the last chunk, for when rendering fails.
+   */
+  public void release() {
+    if (buffer != null) {
+      buffer.release();
+      buffer = null;
+    }
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  /**
+   * Passes any remaining bytes to the chunk handler, if there is one.
+   */
+  @Override
+  public void close() {
+    if (chunkHandler != null) {
+      endSurrogate();
+      if (buffer != null && buffer.isReadable()) {
+        chunk();
+      } else {
+        release();
+      }
+    }
+  }
+
+  // When chunking, large writes are encoded in slices that can't overflow the current chunk, so that chunks stay close to the chunk size
+  private int slice(int chars) {
+    if (chunkHandler == null) {
+      return chars;
+    }
+    int available = chunkSize - (buffer == null ? 0 : buffer.readableBytes());
+    return Math.min(chars, Math.max(1, available / 3));
+  }
+
+  private void ensureWritable(int chars) {
+    // each char is at most 3 bytes, plus 1 for completing a surrogate pair started by an earlier write
+    int bytes = chars * 3 + 1;
+    if (buffer == null) {
+      buffer = allocator.buffer(chunkHandler == null ? Math.max(bytes, 256) : Math.max(bytes, chunkSize));
+    } else {
+      buffer.ensureWritable(bytes);
+    }
+  }
+
+  private void maybeChunk() {
+    if (chunkHandler != null && buffer.readableBytes() >= chunkSize) {
+      chunk();
+    }
+  }
+
+  private void chunk() {
+    ByteBuf chunk = buffer;
+    buffer = null;
+    try {
+      chunkHandler.execute(chunk);
+    } catch (Exception e) {
+      throw uncheck(e);
+    }
+  }
+
+  private void encode(char c) {
+    if (highSurrogate != 0) {
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(high, c);
+        buffer.writeByte(0xf0 | (codePoint >> 18));
+        buffer.writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+        buffer.writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+        buffer.writeByte(0x80 | (codePoint & 0x3f));
+        return;
+      }
+      buffer.writeByte('?');
+    }
+
+    if (c < 0x80) {
+      buffer.writeByte(c);
+    } else if (c < 0x800) {
+      buffer.writeByte(0xc0 | (c >> 6));
+      buffer.writeByte(0x80 | (c & 0x3f));
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer.writeByte('?');
+    } else {
+      buffer.writeByte(0xe0 | (c >> 12));
+      buffer.writeByte(0x80 | ((c >> 6) & 0x3f));
+      buffer.writeByte(0x80 | (c & 0x3f));
+    }
+  }
+
+  private void endSurrogate() {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      ensureWritable(1);
+      buffer.writeByte('?');
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.render.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import ratpack.func.Action;
+
+import java.io.Writer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A publisher of the output of a renderer, in chunks of UTF-8 encoded bytes.
+ * <p>
+ * Rendering starts on the given executor when the first chunk is requested.
+ * Chunks are published as they are written, so that they can be sent before rendering has finished.
+ * The rendering thread waits for demand before publishing each chunk, so a slow client holds up rendering instead of the rendered output building up in memory.
+ * As the executor is expected to be the blocking executor, the renderer must not depend on the current execution.
+ * <p>
+ * If the subscription is cancelled, the renderer is failed on its next write.
+ */
+public class RenderingPublisher implements Publisher<ByteBuf> {
+
+  private final Executor executor;
+  private final ByteBufAllocator allocator;
+  private final int chunkSize;
+  private final Action<? super Writer> renderer;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  public RenderingPublisher(Executor executor, ByteBufAllocator allocator, int chunkSize, Action<? super Writer> renderer) {
+    this.executor = executor;
+    this.allocator = allocator;
+    this.chunkSize = chunkSize;
+    this.renderer = renderer;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuf> subscriber) {
+    if (subscribed.compareAndSet(false, true)) {
+      new RenderingSubscription(subscriber);
+    } else {
+      subscriber.onError(new IllegalStateException("publisher is single use"));
+    }
+  }
+
+  private static class CancelledException extends RuntimeException {
+    public CancelledException() {
+      super("rendering was cancelled", null, false, false);
+    }
+  }
+
+  private class RenderingSubscription implements Subscription, Runnable {
+
+    private final Subscriber<? super ByteBuf> subscriber;
+    private long demand;
+    private boolean started;
+    private boolean cancelled;
+    private Throwable error;
+
+    public RenderingSubscription(Subscriber<? super ByteBuf> subscriber) {
+      this.subscriber = subscriber;
+      subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+      boolean start;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        if (n < 1) {
+          cancelled = true;
+          error = new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0.");
+          notifyAll();
+          if (started) {
+            // the rendering thread signals the error
+            return;
+          }
+          started = true;
+          start = false;
+        } else {
+          demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+          start = !started;
+          started = true;
+          notifyAll();
+        }
+      }
+
+      if (start) {
+        executor.execute(this);
+      } else if (error != null) {
+        subscriber.onError(error);
+      }
+    }
+
+    @Override
+    public synchronized void cancel() {
+      cancelled = true;
+      notifyAll();
+    }
+
+    @Override
+    public void run() {
+      ByteBufWriter writer = new ByteBufWriter(allocator, chunkSize, this::publish);
+      try {
+        renderer.execute(writer);
+        writer.close();
+      } catch (Throwable t) {
+        writer.release();
+        synchronized (this) {
+          if (cancelled) {
+            if (error != null) {
+              subscriber.onError(error);
+            }
+            return;
+          }
+        }
+        subscriber.onError(t);
+        return;
+      }
+      synchronized (this) {
+        if (cancelled) {
+          // request(n < 1) after the last chunk was published
+          if (error != null) {
+            subscriber.onError(error);
+          }
+          return;
+        }
+      }
+      subscriber.onComplete();
+    }
+
+    private void publish(ByteBuf chunk) throws InterruptedException {
+      synchronized (this) {
+        while (demand == 0 && !cancelled) {
+          wait();
+        }
+        if (cancelled) {
+          chunk.release();
+          throw new CancelledException();
+        }
+        if (demand != Long.MAX_VALUE) {
+          --demand;
+        }
+      }
+      subscriber.onNext(chunk);
+    }
+  }
+
+}
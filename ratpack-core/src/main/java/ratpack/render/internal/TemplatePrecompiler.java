@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.render.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.func.Action;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles all of the templates in a directory in parallel, so that they are in the template engine's cache before the first request.
+ */
+public abstract class TemplatePrecompiler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TemplatePrecompiler.class);
+
+  private TemplatePrecompiler() {
+  }
+
+  /**
+   * Compiles every file below the given directory whose name ends with the given suffix, waiting for them all to be compiled.
+   * <p>
+   * The compiler is given the path of each template relative to the directory, separated by {@code /}.
+   * A template that fails to compile is logged and skipped, so that the error is reported when it is rendered.
+   *
+   * @param executor the executor to compile on, typically the blocking executor
+   * @param dir the template directory
+   * @param suffix the suffix of template files
+   * @param compiler compiles a template into the engine's cache
+   * @return the number of templates compiled
+   * @throws IOException if the directory cannot be read
+   */
+  public static int precompile(Executor executor, Path dir, String suffix, Action<? super String> compiler) throws IOException {
+    if (!Files.isDirectory(dir)) {
+      return 0;
+    }
+
+    List<String> templates;
+    try (Stream<Path> files = Files.walk(dir)) {
+      templates = files
+        .filter(file -> file.getFileName().toString().endsWith(suffix) && Files.isRegularFile(file))
+        .map(file -> dir.relativize(file).toString().replace(dir.getFileSystem().getSeparator(), "/"))
+        .collect(Collectors.toList());
+    }
+
+    AtomicInteger compiled = new AtomicInteger();
+    CompletableFuture.allOf(templates.stream()
+      .map(template -> CompletableFuture.runAsync(() -> {
+        try {
+          compiler.execute(template);
+          compiled.incrementAndGet();
+        } catch (Exception e) {
+          LOGGER.warn("Failed to precompile template " + template + " in " + dir, e);
+        }
+      }, executor))
+      .toArray(CompletableFuture[]::new)
+    ).join();
+
+    LOGGER.debug("Precompiled {} of {} templates in {}", compiled.get(), templates.size(), dir);
+    return compiled.get();
+  }
+
+}
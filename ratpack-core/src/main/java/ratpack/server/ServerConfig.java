@@ -59,6 +59,11 @@ public interface ServerConfig {
    */
   public long DEFAULT_COMPRESSION_MIN_SIZE = 1024;
 
+  /**
+   * The default size of the chunks that files are read in when they can't be sent with zero copy, {@value}.
+   */
+  public int DEFAULT_FILE_CHUNK_SIZE = 65536;
+
   static Builder embedded() {
     return noBaseDir().development(true).port(0);
   }
@@ -155,6 +160,76 @@ public interface ServerConfig {
    */
   public List<String> getIndexFiles();
 
+  /**
+   * The content encodings of precompressed files that can be served instead of static assets, in order of preference.
+   * <p>
+   * If a client accepts one of these encodings, and a file with the encoding's extension exists next to the requested asset
+   * (e.g. {@code app.js.gz} next to {@code app.js} for {@code gzip}), the precompressed file is sent instead with the corresponding {@code Content-Encoding}.
+   * The extension for {@code gzip} is {@code .gz}, and for any other encoding is {@code .} followed by the encoding name (e.g. {@code .br}).
+   * Precompressed files that are older than the asset are ignored.
+   * <p>
+   * No encodings are served by default.
+   *
+   * @return the content encodings of precompressed files that can be served instead of static assets
+   */
+  public List<String> getPrecompressedAssetEncodings();
+
+  /**
+   * The maximum number of bytes of static asset content to hold in memory.
+   * <p>
+   * Small assets served by {@link ratpack.handling.Handlers#assets(ServerConfig, String, java.util.List)} are cached in memory,
+   * along with their precompressed variants, up to this many bytes in total.
+   * Cached assets are invalidated when the files change, and are not cached if the file system of the base dir cannot be watched.
+   * <p>
+   * Assets are never cached in development mode.
+   * The default is {@code 0}, which disables the cache.
+   *
+   * @return the maximum number of bytes of static asset content to hold in memory
+   */
+  public long getAssetCacheSize();
+
+  /**
+   * The maximum number of files to cache the attributes of, for serving static assets.
+   * <p>
+   * Static assets served by {@link ratpack.handling.Handlers#assets(ServerConfig, String, java.util.List)} need the attributes of the requested file,
+   * of each candidate index file and of precompressed siblings, which requires blocking IO.
+   * With this cache, the attributes (including whether the file exists) and entity tags of recently served files are kept in memory,
+   * so that serving them needs no blocking IO.
+   * Cached attributes are invalidated when the files change, and are not cached if the file system of the base dir cannot be watched.
+   * <p>
+   * Attributes are never cached in development mode.
+   * The default is {@code 0}, which disables the cache.
+   *
+   * @return the maximum number of files to cache the attributes of
+   */
+  public long getAssetMetadataCacheSize();
+
+  /**
+   * The size of the chunks that files are read in when they can't be sent with zero copy, in bytes.
+   * <p>
+   * Files are sent with zero copy (i.e. {@code sendfile}) unless the application serves HTTPS, the response is compressed,
+   * or the file is not on the default file system.
+   * Otherwise they are read in chunks of this size into pooled direct buffers.
+   * <p>
+   * Defaults to {@link #DEFAULT_FILE_CHUNK_SIZE}.
+   *
+   * @return the size of the chunks that files are read in when they can't be sent with zero copy
+   */
+  public int getFileChunkSize();
+
+  /**
+   * The minimum size of files that are memory mapped when they can't be sent with zero copy, in bytes.
+   * <p>
+   * Mapping large files avoids copying each chunk from the file into a buffer before it is encrypted or compressed,
+   * at the cost of address space, and of mappings that are only released when garbage collected.
+   * <p>
+   * The default is {@code 0}, which disables mapping.
+   *
+   * @return the minimum size of files that are memory mapped when they can't be sent with zero copy
+   * @see #getFileChunkSize()
+   */
+  public long getFileMappingThreshold();
+
   /**
    * The SSL context to use if the application will serve content over HTTPS.
    *
@@ -188,6 +263,16 @@ public interface ServerConfig {
    */
   public boolean isCompressResponses();
 
+  /**
+   * Whether or not nested handler chains should be flattened into a single program when the application starts.
+   * <p>
+   * Flattening inlines directly nested chains into their parent, which avoids the per chain bookkeeping that is otherwise done for every request.
+   * It does not change how handlers are invoked.
+   *
+   * @return whether or not nested handler chains should be flattened.
+   */
+  public boolean isFlattenHandlers();
+
   /**
    * The minimum size at which responses should be compressed, in bytes.
    *
@@ -313,6 +398,17 @@ public interface ServerConfig {
      */
     Builder compressResponses(boolean compressResponses);
 
+    /**
+     * Whether to flatten nested handler chains when the application starts.
+     *
+     * Default value is {@code false}.
+     *
+     * @param flattenHandlers Whether to flatten nested handler chains
+     * @return this
+     * @see ServerConfig#isFlattenHandlers()
+     */
+    Builder flattenHandlers(boolean flattenHandlers);
+
     /**
      * The minimum size at which responses should be compressed, in bytes.
      *
@@ -376,6 +472,60 @@ public interface ServerConfig {
      */
     Builder indexFiles(List<String> indexFiles);
 
+    /**
+     * Adds the given values as content encodings of precompressed files that can be served instead of static assets.
+     *
+     * @param encodings the content encodings, in order of preference
+     * @return this
+     * @see ServerConfig#getPrecompressedAssetEncodings()
+     */
+    Builder precompressedAssetEncodings(String... encodings);
+
+    /**
+     * Adds the given values as content encodings of precompressed files that can be served instead of static assets.
+     *
+     * @param encodings the content encodings, in order of preference
+     * @return this
+     * @see ServerConfig#getPrecompressedAssetEncodings()
+     */
+    Builder precompressedAssetEncodings(List<String> encodings);
+
+    /**
+     * The maximum number of bytes of static asset content to hold in memory.
+     *
+     * @param assetCacheSize the maximum number of bytes, or {@code 0} to disable caching
+     * @return this
+     * @see ServerConfig#getAssetCacheSize()
+     */
+    Builder assetCacheSize(long assetCacheSize);
+
+    /**
+     * The maximum number of files to cache the attributes of, for serving static assets.
+     *
+     * @param assetMetadataCacheSize the maximum number of files, or {@code 0} to disable caching
+     * @return this
+     * @see ServerConfig#getAssetMetadataCacheSize()
+     */
+    Builder assetMetadataCacheSize(long assetMetadataCacheSize);
+
+    /**
+     * The size of the chunks that files are read in when they can't be sent with zero copy.
+     *
+     * @param fileChunkSize the chunk size, in bytes
+     * @return this
+     * @see ServerConfig#getFileChunkSize()
+     */
+    Builder fileChunkSize(int fileChunkSize);
+
+    /**
+     * The minimum size of files that are memory mapped when they can't be sent with zero copy.
+     *
+     * @param fileMappingThreshold the minimum size, in bytes, or {@code 0} to disable mapping
+     * @return this
+     * @see ServerConfig#getFileMappingThreshold()
+     */
+    Builder fileMappingThreshold(long fileMappingThreshold);
+
     /**
      * The SSL context to use if the application serves content over HTTPS.
      *
@@ -18,9 +18,12 @@ package ratpack.server.internal;
 
 import com.google.common.base.Predicate;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioFile;
 import io.netty.handler.stream.ChunkedNioStream;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
@@ -28,6 +31,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ratpack.event.internal.DefaultEventController;
 import ratpack.exec.ExecControl;
+import ratpack.file.internal.ByteRange;
+import ratpack.file.internal.MappedChunkedFile;
 import ratpack.file.internal.ResponseTransmitter;
 import ratpack.func.Pair;
 import ratpack.handling.RequestOutcome;
@@ -39,10 +44,20 @@ import ratpack.util.internal.InternalRatpackError;
 import ratpack.util.internal.NumberUtil;
 
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DefaultResponseTransmitter implements ResponseTransmitter {
@@ -52,6 +67,9 @@ public class DefaultResponseTransmitter implements ResponseTransmitter {
 
   };
 
+  // Requests for more (non overlapping) ranges than this are served in full, as they are more likely to be abuse than useful
+  private static final int MAX_RANGES = 16;
+
   private final AtomicBoolean transmitted;
   private final ExecControl execControl;
   private final Channel channel;
@@ -61,6 +79,8 @@ public class DefaultResponseTransmitter implements ResponseTransmitter {
   private final DefaultEventController<RequestOutcome> requestOutcomeEventController;
   private final boolean compressionEnabled;
   private final Predicate<? super Pair<Long, String>> shouldCompress;
+  private final int fileChunkSize;
+  private final long fileMappingThreshold;
   private final long startTime;
   private final boolean isKeepAlive;
   private final boolean isSsl;
@@ -69,12 +89,14 @@ public class DefaultResponseTransmitter implements ResponseTransmitter {
 
   private Runnable onWritabilityChanged = NOOP_RUNNABLE;
 
-  public DefaultResponseTransmitter(AtomicBoolean transmitted, ExecControl execControl, Channel channel, FullHttpRequest nettyRequest, Request ratpackRequest, HttpHeaders responseHeaders, DefaultEventController<RequestOutcome> requestOutcomeEventController, boolean compressionEnabled, Predicate<? super Pair<Long, String>> shouldCompress, long startTime) {
+  public DefaultResponseTransmitter(AtomicBoolean transmitted, ExecControl execControl, Channel channel, FullHttpRequest nettyRequest, Request ratpackRequest, HttpHeaders responseHeaders, DefaultEventController<RequestOutcome> requestOutcomeEventController, boolean compressionEnabled, Predicate<? super Pair<Long, String>> shouldCompress, int fileChunkSize, long fileMappingThreshold, long startTime) {
     this.transmitted = transmitted;
     this.execControl = execControl;
     this.channel = channel;
     this.compressionEnabled = compressionEnabled;
     this.shouldCompress = shouldCompress;
+    this.fileChunkSize = fileChunkSize;
+    this.fileMappingThreshold = fileMappingThreshold;
     this.nettyRequest = nettyRequest.retain();
     this.ratpackRequest = ratpackRequest;
     this.responseHeaders = responseHeaders;
@@ -130,29 +152,251 @@ public class DefaultResponseTransmitter implements ResponseTransmitter {
     });
   }
 
+  private void transmitParts(final HttpResponseStatus responseStatus, final List<Object> parts) {
+    ChannelFuture channelFuture = pre(responseStatus);
+    if (channelFuture == null) {
+      return;
+    }
+
+    channelFuture.addListener(future -> {
+      if (channel.isOpen()) {
+        for (Object part : parts) {
+          channel.write(part);
+        }
+        post(responseStatus);
+      }
+    });
+  }
+
   @Override
   public void transmit(final HttpResponseStatus responseStatus, final BasicFileAttributes basicFileAttributes, final Path file) {
     String contentType = responseHeaders.get(HttpHeaderConstants.CONTENT_TYPE);
     final long size = basicFileAttributes.size();
 
+    if (responseStatus.equals(HttpResponseStatus.OK) && ratpackRequest.getMethod().isGet()) {
+      responseHeaders.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+      List<ByteRange> ranges = requestedRanges(size);
+      if (ranges != null) {
+        transmitRanges(ranges, size, contentType, file);
+        return;
+      }
+    }
+
+    // Files that are already encoded (e.g. precompressed assets) are sent as is
+    final boolean encoded = isEncoded();
     Pair<Long, String> fileDetails = Pair.of(size, contentType);
-    final boolean compressThis = compressionEnabled && (contentType != null && shouldCompress.apply(fileDetails));
-    if (compressionEnabled && !compressThis) {
+    final boolean compressThis = !encoded && compressionEnabled && (contentType != null && shouldCompress.apply(fileDetails));
+    if (compressionEnabled && !compressThis && !encoded) {
       // Signal to the compressor not to compress this
       responseHeaders.set(HttpHeaderConstants.CONTENT_ENCODING, HttpHeaderConstants.IDENTITY);
     }
+    if (compressThis) {
+      weakenEntityTag();
+    }
 
     responseHeaders.set(HttpHeaderConstants.CONTENT_LENGTH, size);
 
-    if (!isSsl && !compressThis && file.getFileSystem().equals(FileSystems.getDefault())) {
-      execControl.blocking(() -> new FileInputStream(file.toFile()).getChannel()).then(fileChannel -> {
-        FileRegion defaultFileRegion = new DefaultFileRegion(fileChannel, 0, size);
-        transmit(responseStatus, defaultFileRegion);
-      });
-    } else {
-      execControl.blocking(() -> Files.newByteChannel(file)).then(fileChannel ->
-          transmit(responseStatus, new HttpChunkedInput(new ChunkedNioStream(fileChannel)))
+    final boolean zeroCopy = !isSsl && !compressThis && file.getFileSystem().equals(FileSystems.getDefault());
+    execControl.blocking(() -> open(file, 0, size, zeroCopy)).then(body ->
+        transmit(responseStatus, body instanceof ChunkedInput ? new HttpChunkedInput(cast(body)) : body)
+    );
+  }
+
+  // A strong entity tag is only valid for one content coding (RFC 7232 section 2.1), and the compressed content is not the file's
+  private void weakenEntityTag() {
+    String etag = responseHeaders.get(HttpHeaderNames.ETAG);
+    if (etag != null && etag.startsWith("\"")) {
+      responseHeaders.set(HttpHeaderNames.ETAG, "W/" + etag);
+    }
+  }
+
+  private boolean isEncoded() {
+    String contentEncoding = responseHeaders.get(HttpHeaderConstants.CONTENT_ENCODING);
+    return contentEncoding != null && !HttpHeaderConstants.IDENTITY.toString().equalsIgnoreCase(contentEncoding);
+  }
+
+  private List<ByteRange> requestedRanges(long size) {
+    String range = ratpackRequest.getHeaders().get(HttpHeaderNames.RANGE);
+    if (range == null || !ifRangeMatches()) {
+      return null;
+    }
+    List<ByteRange> ranges = ByteRange.parse(range, size);
+    return ranges == null || ranges.size() > MAX_RANGES ? null : ranges;
+  }
+
+  private boolean ifRangeMatches() {
+    String ifRange = ratpackRequest.getHeaders().get(HttpHeaderNames.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+
+    ifRange = ifRange.trim();
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      // Only strong entity tags can be used to validate ranges
+      return ifRange.startsWith("\"") && ifRange.equals(responseHeaders.get(HttpHeaderNames.ETAG));
+    }
+
+    String lastModified = responseHeaders.get(HttpHeaderConstants.LAST_MODIFIED);
+    if (lastModified == null) {
+      return false;
+    }
+    try {
+      return HttpHeaderDateFormat.get().parse(ifRange).getTime() == HttpHeaderDateFormat.get().parse(lastModified).getTime();
+    } catch (ParseException e) {
+      return false;
+    }
+  }
+
+  private void transmitRanges(List<ByteRange> ranges, long size, String contentType, Path file) {
+    if (ranges.isEmpty()) {
+      responseHeaders.remove(HttpHeaderConstants.CONTENT_TYPE);
+      responseHeaders.set(HttpHeaderNames.CONTENT_RANGE, ByteRange.BYTES_UNIT + " */" + size);
+      transmit(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, Unpooled.EMPTY_BUFFER);
+      return;
+    }
+
+    if (compressionEnabled && !isEncoded()) {
+      // Ranges are of the file as is, so must not be compressed
+      responseHeaders.set(HttpHeaderConstants.CONTENT_ENCODING, HttpHeaderConstants.IDENTITY);
+    }
+
+    final boolean zeroCopy = !isSsl && file.getFileSystem().equals(FileSystems.getDefault());
+
+    if (ranges.size() == 1) {
+      ByteRange range = ranges.get(0);
+      responseHeaders.set(HttpHeaderNames.CONTENT_RANGE, range.toContentRange(size));
+      responseHeaders.set(HttpHeaderConstants.CONTENT_LENGTH, range.getLength());
+      execControl.blocking(() -> open(file, range.getFirst(), range.getLength(), zeroCopy)).then(body ->
+          transmit(HttpResponseStatus.PARTIAL_CONTENT, body instanceof ChunkedInput ? new HttpChunkedInput(cast(body)) : body)
       );
+      return;
+    }
+
+    String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong()) + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    List<String> delimiters = new ArrayList<>(ranges.size());
+    long contentLength = 0;
+    for (ByteRange range : ranges) {
+      String delimiter = "\r\n--" + boundary + "\r\n"
+        + (contentType == null ? "" : HttpHeaderConstants.CONTENT_TYPE + ": " + contentType + "\r\n")
+        + HttpHeaderNames.CONTENT_RANGE + ": " + range.toContentRange(size) + "\r\n\r\n";
+      delimiters.add(delimiter);
+      contentLength += delimiter.length() + range.getLength();
+    }
+    String closeDelimiter = "\r\n--" + boundary + "--\r\n";
+    contentLength += closeDelimiter.length();
+
+    responseHeaders.set(HttpHeaderConstants.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+    responseHeaders.set(HttpHeaderConstants.CONTENT_LENGTH, contentLength);
+
+    execControl.blocking(() -> {
+      List<Object> bodies = new ArrayList<>(ranges.size());
+      try {
+        for (ByteRange range : ranges) {
+          bodies.add(open(file, range.getFirst(), range.getLength(), zeroCopy));
+        }
+      } catch (Exception e) {
+        bodies.forEach(DefaultResponseTransmitter::closeRange);
+        throw e;
+      }
+      return bodies;
+    }).then(bodies -> {
+      List<Object> parts = new ArrayList<>(bodies.size() * 2 + 1);
+      for (int i = 0; i < bodies.size(); ++i) {
+        parts.add(new DefaultHttpContent(Unpooled.copiedBuffer(delimiters.get(i), StandardCharsets.US_ASCII)));
+        parts.add(bodies.get(i));
+      }
+      parts.add(new DefaultHttpContent(Unpooled.copiedBuffer(closeDelimiter, StandardCharsets.US_ASCII)));
+      transmitParts(HttpResponseStatus.PARTIAL_CONTENT, parts);
+    });
+  }
+
+  /**
+   * Opens the given region of the file, as a {@link FileRegion} if it can be sent with zero copy, or as a chunked input otherwise.
+   * <p>
+   * Chunked inputs of files on the default file system do positioned reads into buffers from the channel's allocator,
+   * or slice memory mapped windows of the file if the region is at least the mapping threshold.
+   */
+  private Object open(Path file, long offset, long length, boolean zeroCopy) throws IOException {
+    if (zeroCopy) {
+      return new DefaultFileRegion(new FileInputStream(file.toFile()).getChannel(), offset, length);
+    }
+
+    SeekableByteChannel byteChannel = Files.newByteChannel(file);
+    try {
+      if (byteChannel instanceof FileChannel) {
+        FileChannel fileChannel = (FileChannel) byteChannel;
+        if (fileMappingThreshold > 0 && length >= fileMappingThreshold) {
+          return new MappedChunkedFile(fileChannel, offset, length, fileChunkSize);
+        } else {
+          return new ChunkedNioFile(fileChannel, offset, length, fileChunkSize);
+        }
+      } else {
+        byteChannel.position(offset);
+        return new ChunkedNioStream(new BoundedByteChannel(byteChannel, length), fileChunkSize);
+      }
+    } catch (IOException | RuntimeException e) {
+      byteChannel.close();
+      throw e;
+    }
+  }
+
+  private static void closeRange(Object body) {
+    try {
+      if (body instanceof FileRegion) {
+        ((FileRegion) body).release();
+      } else if (body instanceof ChunkedInput) {
+        ((ChunkedInput<?>) body).close();
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Failed to close file range", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ChunkedInput<ByteBuf> cast(Object body) {
+    return (ChunkedInput<ByteBuf>) body;
+  }
+
+  /**
+   * Reads at most a given number of bytes from the current position of a channel.
+   */
+  private static class BoundedByteChannel implements ReadableByteChannel {
+    private final ReadableByteChannel delegate;
+    private long remaining;
+
+    private BoundedByteChannel(ReadableByteChannel delegate, long length) {
+      this.delegate = delegate;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int limit = dst.limit();
+      if (dst.remaining() > remaining) {
+        dst.limit(dst.position() + (int) remaining);
+      }
+      try {
+        int read = delegate.read(dst);
+        if (read > 0) {
+          remaining -= read;
+        }
+        return read;
+      } finally {
+        dst.limit(limit);
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
     }
   }
 
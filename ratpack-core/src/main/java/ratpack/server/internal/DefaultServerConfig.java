@@ -37,10 +37,16 @@ public class DefaultServerConfig implements ServerConfig {
   private final int threads;
   private final URI publicAddress;
   private final ImmutableList<String> indexFiles;
+  private final ImmutableList<String> precompressedAssetEncodings;
+  private final long assetCacheSize;
+  private final long assetMetadataCacheSize;
+  private final int fileChunkSize;
+  private final long fileMappingThreshold;
   private final SSLContext sslContext;
   private final int maxContentLength;
   private final boolean timeResponses;
   private final boolean compressResponses;
+  private final boolean flattenHandlers;
   private final long compressionMinSize;
   private final ImmutableSet<String> compressionMimeTypeWhiteList;
   private final ImmutableSet<String> compressionMimeTypeBlackList;
@@ -53,10 +59,16 @@ public class DefaultServerConfig implements ServerConfig {
     int threads,
     URI publicAddress,
     ImmutableList<String> indexFiles,
+    ImmutableList<String> precompressedAssetEncodings,
+    long assetCacheSize,
+    long assetMetadataCacheSize,
+    int fileChunkSize,
+    long fileMappingThreshold,
     SSLContext sslContext,
     int maxContentLength,
     boolean timeResponses,
     boolean compressResponses,
+    boolean flattenHandlers,
     long compressionMinSize,
     ImmutableSet<String> compressionMimeTypeWhiteList,
     ImmutableSet<String> compressionMimeTypeBlackList
@@ -68,11 +80,17 @@ public class DefaultServerConfig implements ServerConfig {
     this.threads = threads;
     this.timeResponses = timeResponses;
     this.compressResponses = compressResponses;
+    this.flattenHandlers = flattenHandlers;
     this.compressionMinSize = compressionMinSize;
     this.compressionMimeTypeWhiteList = compressionMimeTypeWhiteList;
     this.compressionMimeTypeBlackList = compressionMimeTypeBlackList;
     this.publicAddress = publicAddress;
     this.indexFiles = indexFiles;
+    this.precompressedAssetEncodings = precompressedAssetEncodings;
+    this.assetCacheSize = assetCacheSize;
+    this.assetMetadataCacheSize = assetMetadataCacheSize;
+    this.fileChunkSize = fileChunkSize;
+    this.fileMappingThreshold = fileMappingThreshold;
     this.sslContext = sslContext;
     this.maxContentLength = maxContentLength;
   }
@@ -108,6 +126,31 @@ public class DefaultServerConfig implements ServerConfig {
     return indexFiles;
   }
 
+  @Override
+  public List<String> getPrecompressedAssetEncodings() {
+    return precompressedAssetEncodings;
+  }
+
+  @Override
+  public long getAssetCacheSize() {
+    return assetCacheSize;
+  }
+
+  @Override
+  public long getAssetMetadataCacheSize() {
+    return assetMetadataCacheSize;
+  }
+
+  @Override
+  public int getFileChunkSize() {
+    return fileChunkSize;
+  }
+
+  @Override
+  public long getFileMappingThreshold() {
+    return fileMappingThreshold;
+  }
+
   @Nullable
   @Override
   public SSLContext getSSLContext() {
@@ -129,6 +172,11 @@ public class DefaultServerConfig implements ServerConfig {
     return compressResponses;
   }
 
+  @Override
+  public boolean isFlattenHandlers() {
+    return flattenHandlers;
+  }
+
   @Override
   public long getCompressionMinSize() {
     return compressionMinSize;
@@ -60,10 +60,16 @@ public class DefaultServerConfigBuilder implements ServerConfig.Builder {
   private int threads = ServerConfig.DEFAULT_THREADS;
   private URI publicAddress;
   private ImmutableList.Builder<String> indexFiles = ImmutableList.builder();
+  private final ImmutableList.Builder<String> precompressedAssetEncodings = ImmutableList.builder();
+  private long assetCacheSize;
+  private long assetMetadataCacheSize;
+  private int fileChunkSize = ServerConfig.DEFAULT_FILE_CHUNK_SIZE;
+  private long fileMappingThreshold;
   private SSLContext sslContext;
   private int maxContentLength = ServerConfig.DEFAULT_MAX_CONTENT_LENGTH;
   private boolean timeResponses;
   private boolean compressResponses;
+  private boolean flattenHandlers;
   private long compressionMinSize = ServerConfig.DEFAULT_COMPRESSION_MIN_SIZE;
   private final ImmutableSet.Builder<String> compressionMimeTypeWhiteList = ImmutableSet.builder();
   private final ImmutableSet.Builder<String> compressionMimeTypeBlackList = ImmutableSet.builder();
@@ -149,6 +155,12 @@ public class DefaultServerConfigBuilder implements ServerConfig.Builder {
     return this;
   }
 
+  @Override
+  public ServerConfig.Builder flattenHandlers(boolean flattenHandlers) {
+    this.flattenHandlers = flattenHandlers;
+    return this;
+  }
+
   @Override
   public ServerConfig.Builder compressionMinSize(long compressionMinSize) {
     this.compressionMinSize = compressionMinSize;
@@ -191,6 +203,42 @@ public class DefaultServerConfigBuilder implements ServerConfig.Builder {
     return this;
   }
 
+  @Override
+  public ServerConfig.Builder precompressedAssetEncodings(String... encodings) {
+    this.precompressedAssetEncodings.add(encodings);
+    return this;
+  }
+
+  @Override
+  public ServerConfig.Builder precompressedAssetEncodings(List<String> encodings) {
+    this.precompressedAssetEncodings.addAll(encodings);
+    return this;
+  }
+
+  @Override
+  public ServerConfig.Builder assetCacheSize(long assetCacheSize) {
+    this.assetCacheSize = assetCacheSize;
+    return this;
+  }
+
+  @Override
+  public ServerConfig.Builder assetMetadataCacheSize(long assetMetadataCacheSize) {
+    this.assetMetadataCacheSize = assetMetadataCacheSize;
+    return this;
+  }
+
+  @Override
+  public ServerConfig.Builder fileChunkSize(int fileChunkSize) {
+    this.fileChunkSize = fileChunkSize;
+    return this;
+  }
+
+  @Override
+  public ServerConfig.Builder fileMappingThreshold(long fileMappingThreshold) {
+    this.fileMappingThreshold = fileMappingThreshold;
+    return this;
+  }
+
   @Override
   public ServerConfig.Builder ssl(SSLContext sslContext) {
     this.sslContext = sslContext;
@@ -201,8 +249,8 @@ public class DefaultServerConfigBuilder implements ServerConfig.Builder {
   public ServerConfig build() {
     loadSSLIfConfigured();
     return new DefaultServerConfig(baseDir, port, address, development, threads,
-      publicAddress, indexFiles.build(), sslContext, maxContentLength,
-      timeResponses, compressResponses, compressionMinSize,
+      publicAddress, indexFiles.build(), precompressedAssetEncodings.build(), assetCacheSize, assetMetadataCacheSize, fileChunkSize, fileMappingThreshold, sslContext, maxContentLength,
+      timeResponses, compressResponses, flattenHandlers, compressionMinSize,
       compressionMimeTypeWhiteList.build(), compressionMimeTypeBlackList.build());
   }
 
@@ -387,10 +435,16 @@ public class DefaultServerConfigBuilder implements ServerConfig.Builder {
       .put("maxContentLength", new BuilderAction<>(Integer::parseInt, DefaultServerConfigBuilder.this::maxContentLength))
       .put("timeResponses", new BuilderAction<>(Boolean::parseBoolean, DefaultServerConfigBuilder.this::timeResponses))
       .put("compressResponses", new BuilderAction<>(Boolean::parseBoolean, DefaultServerConfigBuilder.this::compressResponses))
+      .put("flattenHandlers", new BuilderAction<>(Boolean::parseBoolean, DefaultServerConfigBuilder.this::flattenHandlers))
       .put("compressionMinSize", new BuilderAction<>(Long::parseLong, DefaultServerConfigBuilder.this::compressionMinSize))
       .put("compressionWhiteListMimeTypes", new BuilderAction<>(DefaultServerConfigBuilder::split, DefaultServerConfigBuilder.this::compressionWhiteListMimeTypes))
       .put("compressionBlackListMimeTypes", new BuilderAction<>(DefaultServerConfigBuilder::split, DefaultServerConfigBuilder.this::compressionBlackListMimeTypes))
       .put("indexFiles", new BuilderAction<>(DefaultServerConfigBuilder::split, DefaultServerConfigBuilder.this::indexFiles))
+      .put("precompressedAssetEncodings", new BuilderAction<>(DefaultServerConfigBuilder::split, DefaultServerConfigBuilder.this::precompressedAssetEncodings))
+      .put("assetCacheSize", new BuilderAction<>(Long::parseLong, DefaultServerConfigBuilder.this::assetCacheSize))
+      .put("assetMetadataCacheSize", new BuilderAction<>(Long::parseLong, DefaultServerConfigBuilder.this::assetMetadataCacheSize))
+      .put("fileChunkSize", new BuilderAction<>(Integer::parseInt, DefaultServerConfigBuilder.this::fileChunkSize))
+      .put("fileMappingThreshold", new BuilderAction<>(Long::parseLong, DefaultServerConfigBuilder.this::fileMappingThreshold))
       .put("sslKeystoreFile", new BuilderAction<>(DefaultServerConfigBuilder::asStream, DefaultServerConfigBuilder.this::sslKeystore))
       .put("sslKeystorePassword", new BuilderAction<>(Function.identity(), DefaultServerConfigBuilder.this::sslKeystorePassword))
       .build();
@@ -66,6 +66,31 @@ public class DelegatingServerConfig implements ServerConfig {
     return delegate.getIndexFiles();
   }
 
+  @Override
+  public List<String> getPrecompressedAssetEncodings() {
+    return delegate.getPrecompressedAssetEncodings();
+  }
+
+  @Override
+  public long getAssetCacheSize() {
+    return delegate.getAssetCacheSize();
+  }
+
+  @Override
+  public long getAssetMetadataCacheSize() {
+    return delegate.getAssetMetadataCacheSize();
+  }
+
+  @Override
+  public int getFileChunkSize() {
+    return delegate.getFileChunkSize();
+  }
+
+  @Override
+  public long getFileMappingThreshold() {
+    return delegate.getFileMappingThreshold();
+  }
+
   @Override
   @Nullable
   public SSLContext getSSLContext() {
@@ -87,6 +112,11 @@ public class DelegatingServerConfig implements ServerConfig {
     return delegate.isCompressResponses();
   }
 
+  @Override
+  public boolean isFlattenHandlers() {
+    return delegate.isFlattenHandlers();
+  }
+
   @Override
   public long getCompressionMinSize() {
     return delegate.getCompressionMinSize();
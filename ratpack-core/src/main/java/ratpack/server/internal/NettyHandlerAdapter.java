@@ -42,6 +42,7 @@ import ratpack.handling.internal.ChainHandler;
 import ratpack.handling.internal.DefaultContext;
 import ratpack.handling.internal.DescribingHandler;
 import ratpack.handling.internal.DescribingHandlers;
+import ratpack.handling.internal.FlattenedChain;
 import ratpack.http.MutableHeaders;
 import ratpack.http.Request;
 import ratpack.http.Response;
@@ -76,7 +77,8 @@ public class NettyHandlerAdapter extends SimpleChannelInboundHandler<FullHttpReq
   public NettyHandlerAdapter(ServerConfig serverConfig, Registry registry, Handler handler) throws Exception {
     super(false);
 
-    this.handlers = ChainHandler.unpack(handler);
+    Handler[] handlers = ChainHandler.unpack(handler);
+    this.handlers = serverConfig.isFlattenHandlers() ? FlattenedChain.flatten(handlers) : handlers;
     this.rootRegistry = registry;
     this.addResponseTimeHeader = serverConfig.isTimeResponses();
     this.applicationConstants = new DefaultContext.ApplicationConstants(this.rootRegistry, new DefaultRenderController(), Handlers.notFound());
@@ -127,7 +129,7 @@ public class NettyHandlerAdapter extends SimpleChannelInboundHandler<FullHttpReq
     final DefaultEventController<RequestOutcome> requestOutcomeEventController = new DefaultEventController<>();
     final AtomicBoolean transmitted = new AtomicBoolean(false);
 
-    final DefaultResponseTransmitter responseTransmitter = new DefaultResponseTransmitter(transmitted, execControl, channel, nettyRequest, request, nettyHeaders, requestOutcomeEventController, serverConfig.isCompressResponses(), shouldCompress, startTime);
+    final DefaultResponseTransmitter responseTransmitter = new DefaultResponseTransmitter(transmitted, execControl, channel, nettyRequest, request, nettyHeaders, requestOutcomeEventController, serverConfig.isCompressResponses(), shouldCompress, serverConfig.getFileChunkSize(), serverConfig.getFileMappingThreshold(), startTime);
 
     final Response response = new DefaultResponse(execControl, responseHeaders, ctx.alloc(), responseTransmitter);
     ctx.attr(RESPONSE_TRANSMITTER_ATTRIBUTE_KEY).set(responseTransmitter);
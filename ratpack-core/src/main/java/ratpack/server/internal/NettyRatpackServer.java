@@ -79,6 +79,7 @@ public class NettyRatpackServer implements RatpackServer {
   protected final AtomicBoolean needsReload = new AtomicBoolean();
 
   protected SSLEngine sslEngine;
+  protected final ChannelCounter channelCounter = new ChannelCounter();
   private final ServerCapturer.Overrides overrides;
 
   public NettyRatpackServer(Function<? super Definition.Builder, ? extends Definition> definitionFactory) throws Exception {
@@ -201,6 +202,7 @@ public class NettyRatpackServer implements RatpackServer {
         @Override
         protected void initChannel(SocketChannel ch) throws Exception {
           ChannelPipeline pipeline = ch.pipeline();
+          pipeline.addLast("channelCounter", channelCounter);
           if (sslContext != null) {
             pipeline.addLast("ssl", new SslHandler(sslEngine));
           }
@@ -312,6 +314,10 @@ public class NettyRatpackServer implements RatpackServer {
     }
   }
 
+  public ChannelCounter getChannelCounter() {
+    return channelCounter;
+  }
+
   private InetSocketAddress buildSocketAddress(ServerConfig serverConfig) {
     return (serverConfig.getAddress() == null) ? new InetSocketAddress(serverConfig.getPort()) : new InetSocketAddress(serverConfig.getAddress(), serverConfig.getPort());
   }
@@ -356,6 +362,7 @@ public class NettyRatpackServer implements RatpackServer {
         }
 
         if (rebuild) {
+          stopServices();
           try {
             definitionBuild = buildUserDefinition();
             lastServerConfig = definitionBuild.getServerConfig();
@@ -372,6 +379,17 @@ public class NettyRatpackServer implements RatpackServer {
       }
     }
 
+    // The registry is about to be replaced, so its services (e.g. file system watchers) must not outlive it
+    private void stopServices() {
+      if (inner != null) {
+        try {
+          executeEvents(serverRegistry, StopEvent.build(serverRegistry, true), Service::onStop);
+        } catch (Exception e) {
+          LOGGER.warn("Exception raised stopping services before reload:", e);
+        }
+      }
+    }
+
     private NettyHandlerAdapter buildErrorRenderingAdapter(Exception e) {
       try {
         return new NettyHandlerAdapter(lastServerConfig, buildServerRegistry(lastServerConfig, (r) -> Registries.empty()), context -> context.error(e));
@@ -28,7 +28,11 @@ import ratpack.exec.ExecController;
 import ratpack.file.FileSystemBinding;
 import ratpack.file.MimeTypes;
 import ratpack.file.internal.ActivationBackedMimeTypes;
+import ratpack.file.internal.AssetCache;
 import ratpack.file.internal.DefaultFileRenderer;
+import ratpack.file.internal.FileMetadataCache;
+import ratpack.file.internal.FileSystemWatcher;
+import ratpack.file.internal.ShouldCompressPredicate;
 import ratpack.form.internal.FormNoOptParser;
 import ratpack.form.internal.FormParser;
 import ratpack.func.Function;
@@ -46,6 +50,7 @@ import ratpack.render.internal.RenderableRenderer;
 import ratpack.server.PublicAddress;
 import ratpack.server.RatpackServer;
 import ratpack.server.ServerConfig;
+import ratpack.server.Service;
 import ratpack.server.Stopper;
 import ratpack.sse.ServerSentEventStreamClient;
 
@@ -109,6 +114,21 @@ public abstract class ServerRegistry {
 
     if (serverConfig.isHasBaseDir()) {
       baseRegistryBuilder.add(FileSystemBinding.class, serverConfig.getBaseDir());
+
+      // Assets are expected to change constantly in development, so aren't cached
+      if ((serverConfig.getAssetCacheSize() > 0 || serverConfig.getAssetMetadataCacheSize() > 0) && !serverConfig.isDevelopment()) {
+        FileSystemWatcher watcher = new FileSystemWatcher(serverConfig.getBaseDir().getFile());
+        baseRegistryBuilder.add(Service.class, watcher);
+        if (serverConfig.getAssetCacheSize() > 0) {
+          ShouldCompressPredicate shouldCompress = serverConfig.isCompressResponses()
+            ? new ShouldCompressPredicate(serverConfig.getCompressionMinSize(), serverConfig.getCompressionMimeTypeWhiteList(), serverConfig.getCompressionMimeTypeBlackList())
+            : null;
+          baseRegistryBuilder.add(AssetCache.class, new AssetCache(watcher, PooledByteBufAllocator.DEFAULT, serverConfig.getAssetCacheSize(), shouldCompress));
+        }
+        if (serverConfig.getAssetMetadataCacheSize() > 0) {
+          baseRegistryBuilder.add(FileMetadataCache.class, new FileMetadataCache(watcher, serverConfig.getAssetMetadataCacheSize()));
+        }
+      }
     }
 
     return baseRegistryBuilder.build();
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import ratpack.file.internal.DefaultFileSystemBinding
+import ratpack.file.internal.FileSystemChecksumIndex
+import ratpack.file.internal.FileSystemChecksumServicePopulater
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.TimeUnit
+
+class CachingFileSystemChecksumServiceSpec extends Specification {
+
+  @Rule TemporaryFolder temporaryFolder
+
+  Path root
+  List<String> checksummed = Collections.synchronizedList([])
+  FileSystemChecksumService delegate = { String path ->
+    checksummed << path
+    root.resolve(path).text.reverse()
+  } as FileSystemChecksumService
+
+  def setup() {
+    root = temporaryFolder.root.toPath()
+  }
+
+  Path file(String path, String content) {
+    def file = root.resolve(path)
+    Files.createDirectories(file.parent)
+    file.text = content
+    file
+  }
+
+  def "populates checksums of all files in parallel"() {
+    given:
+    file("a.txt", "a")
+    file("dir/b.txt", "b")
+    file("dir/nested/c.txt", "c")
+    file(FileSystemChecksumIndex.FILE_NAME, "index")
+    def service = new CachingFileSystemChecksumService(delegate, new DefaultFileSystemBinding(root))
+    Set<String> completed = null
+
+    when:
+    new FileSystemChecksumServicePopulater(root, service, 2, { completed = it }).waitFor()
+
+    then:
+    completed*.replace(File.separator, "/") as Set == ["a.txt", "dir/b.txt", "dir/nested/c.txt"] as Set
+    checksummed.size() == 3
+
+    when:
+    service.checksum("dir/b.txt")
+
+    then:
+    checksummed.size() == 3
+  }
+
+  def "only recalculates checksums of files that changed since the index was written"() {
+    given:
+    def a = file("a.txt", "a")
+    def b = file("b.txt", "b")
+    def index = root.resolve(FileSystemChecksumIndex.FILE_NAME)
+    def service = new CachingFileSystemChecksumService(delegate, new DefaultFileSystemBinding(root))
+    ["a.txt", "b.txt"].each { service.checksum(it) }
+    FileSystemChecksumIndex.write(index, service.entries(["a.txt", "b.txt"]))
+    checksummed.clear()
+
+    when:
+    b.text = "bb"
+    Files.setLastModifiedTime(b, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 2000))
+    def restarted = new CachingFileSystemChecksumService(delegate, new DefaultFileSystemBinding(root))
+    restarted.seed(FileSystemChecksumIndex.read(index))
+
+    then:
+    restarted.checksum("a.txt") == "a"
+    restarted.checksum("b.txt") == "bb"
+    checksummed == ["b.txt"]
+  }
+
+  def "files are only revalidated once the revalidation interval has passed"() {
+    given:
+    def a = file("a.txt", "a")
+    def lastModified = Files.getLastModifiedTime(a).toMillis()
+    def service = new CachingFileSystemChecksumService(delegate, new DefaultFileSystemBinding(root), interval)
+    service.checksum("a.txt")
+
+    when:
+    a.text = "aa"
+    Files.setLastModifiedTime(a, FileTime.fromMillis(lastModified + 2000))
+
+    then:
+    service.checksum("a.txt") == expected
+    checksummed.size() == checksums
+
+    where:
+    interval                         | expected | checksums
+    TimeUnit.HOURS.toNanos(1)        | "a"      | 1
+    0                                | "aa"     | 2
+  }
+
+  def "index entries round trip"() {
+    given:
+    def index = root.resolve(FileSystemChecksumIndex.FILE_NAME)
+
+    when:
+    FileSystemChecksumIndex.write(index, [
+      new FileSystemChecksumIndex.Entry("a.txt", 1, 2, "abc"),
+      new FileSystemChecksumIndex.Entry("dir/with\ttab.txt", 3, 4, "def")
+    ])
+    def entries = FileSystemChecksumIndex.read(index)
+
+    then:
+    entries*.path == ["a.txt", "dir/with\ttab.txt"]
+    entries*.size == [1, 3]
+    entries*.lastModified == [2, 4]
+    entries*.checksum == ["abc", "def"]
+  }
+
+  def "unreadable index is treated as empty"() {
+    given:
+    def index = file(FileSystemChecksumIndex.FILE_NAME, content)
+
+    expect:
+    FileSystemChecksumIndex.read(index).empty
+
+    where:
+    content << ["", "other\n1\t2\tabc\ta.txt\n", "ratpack-checksums 1\nnot an entry\n", "ratpack-checksums 1\na\tb\tabc\ta.txt\n"]
+  }
+
+  def "missing index is treated as empty"() {
+    expect:
+    FileSystemChecksumIndex.read(root.resolve("missing")).empty
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.file
+
+import ratpack.exec.ExecController
+import ratpack.file.internal.Adler32Checksummer
+import ratpack.file.internal.DefaultFileSystemChecksumService
+import ratpack.func.Pair
+import ratpack.test.internal.RatpackGroovyDslSpec
+import spock.lang.Unroll
+import spock.util.concurrent.PollingConditions
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CACHE_CONTROL
+
+class FingerprintedAssetsSpec extends RatpackGroovyDslSpec {
+
+  def setup() {
+    handlers { FileSystemBinding fileSystemBinding, ExecController execController ->
+      def checksums = new DefaultFileSystemChecksumService(fileSystemBinding, new Adler32Checksummer())
+      def fingerprintedAssets = new FingerprintedAssets(checksums, "public", "/assets/", execController.blockingExecutor)
+      get("url/:name") {
+        render fingerprintedAssets.url(pathTokens.name)
+      }
+      prefix("assets") {
+        assets("public")
+      }
+    }
+  }
+
+  def "fingerprinted url is served with far future caching"() {
+    given:
+    file "public/app.js", "var a = 1;"
+
+    when:
+    def url = fingerprintedUrl("app.js")
+
+    then:
+    url ==~ "/assets/app-[0-9a-f]+\\.js"
+
+    when:
+    get(url.substring(1))
+
+    then:
+    response.statusCode == 200
+    response.body.text == "var a = 1;"
+    response.headers.get(CACHE_CONTROL) == FingerprintedAssets.CACHE_CONTROL
+  }
+
+  def "stale fingerprint is served without far future caching"() {
+    given:
+    def file = file "public/app.js", "var a = 1;"
+    def url = fingerprintedUrl("app.js")
+    file.text = "var a = 22;"
+
+    when:
+    get(url.substring(1))
+
+    then:
+    response.statusCode == 200
+    response.body.text == "var a = 22;"
+    response.headers.get(CACHE_CONTROL) == null
+  }
+
+  def "url is fingerprinted with the current checksum once the asset changes"() {
+    given:
+    def file = file "public/app.js", "var a = 1;"
+    def url = fingerprintedUrl("app.js")
+
+    when:
+    file.text = "var a = 22;"
+
+    then:
+    new PollingConditions(timeout: 5).eventually {
+      def current = getText("url/app.js")
+      assert current ==~ "/assets/app-[0-9a-f]+\\.js"
+      assert current != url
+    }
+  }
+
+  def "url of missing asset is not fingerprinted"() {
+    expect:
+    getText("url/missing.js") == "/assets/missing.js"
+    sleep 200
+    getText("url/missing.js") == "/assets/missing.js"
+  }
+
+  def "unfingerprinted url is served without far future caching"() {
+    given:
+    file "public/app.js", "var a = 1;"
+
+    when:
+    get("assets/app.js")
+
+    then:
+    response.statusCode == 200
+    response.headers.get(CACHE_CONTROL) == null
+  }
+
+  def "fingerprint of missing file is not found"() {
+    when:
+    get("assets/missing-abc123.js")
+
+    then:
+    response.statusCode == 404
+  }
+
+  @Unroll
+  def "can fingerprint and unfingerprint #path"() {
+    expect:
+    FingerprintedAssets.fingerprint(path, "abc123") == fingerprinted
+    FingerprintedAssets.unfingerprint(fingerprinted.substring(fingerprinted.lastIndexOf("/") + 1)) == Pair.of(name, "abc123")
+
+    where:
+    path              | fingerprinted            | name
+    "app.js"          | "app-abc123.js"          | "app.js"
+    "app.min.js"      | "app.min-abc123.js"      | "app.min.js"
+    "js/app.js"       | "js/app-abc123.js"       | "app.js"
+    "LICENSE"         | "LICENSE-abc123"         | "LICENSE"
+    "dir.d/README"    | "dir.d/README-abc123"    | "README"
+  }
+
+  def "names without fingerprints are not unfingerprinted"() {
+    expect:
+    FingerprintedAssets.unfingerprint(name) == null
+
+    where:
+    name << ["app.js", "app-.js", "app-xyz.js", "-abc123.js"]
+  }
+
+  private String fingerprintedUrl(String name) {
+    String url = null
+    new PollingConditions().eventually {
+      url = getText("url/$name")
+      assert url != "/assets/$name"
+    }
+    url
+  }
+
+}
@@ -29,6 +29,9 @@ import spock.lang.Unroll
 import spock.util.concurrent.BlockingVariable
 import spock.util.concurrent.PollingConditions
 
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+
 import static io.netty.handler.codec.http.HttpHeaders.Names.*
 import static io.netty.handler.codec.http.HttpResponseStatus.*
 import static java.nio.file.Files.getLastModifiedTime
@@ -478,6 +481,79 @@ class StaticFileSpec extends RatpackGroovyDslSpec {
     response.statusCode == 404
   }
 
+  def "asset handler sends entity tag and respects if-none-match"() {
+    given:
+    def file = file("public/file.txt", "hello!")
+
+    and:
+    handlers {
+      assets("public", "file.txt")
+    }
+
+    when:
+    def etag = get("file.txt").headers.get(ETAG)
+
+    then:
+    etag ==~ /"[0-9a-f]+-[0-9a-f]+"/
+    get("").headers.get(ETAG) == etag
+
+    when:
+    requestSpec { RequestSpec request -> request.headers.set(IF_NONE_MATCH, "\"other\", $etag") }
+
+    then:
+    with(get("file.txt")) {
+      statusCode == NOT_MODIFIED.code()
+      headers.get(ETAG) == etag
+    }
+    get("").statusCode == NOT_MODIFIED.code()
+
+    when:
+    requestSpec { RequestSpec request ->
+      request.headers.set(IF_NONE_MATCH, "\"other\"")
+      request.headers.set(IF_MODIFIED_SINCE, formatDateHeader(getLastModifiedTime(file).toMillis()))
+    }
+
+    then:
+    get("file.txt").statusCode == OK.code()
+  }
+
+  def "asset entity tag changes when file changes"() {
+    given:
+    def file = file("public/file.txt", "hello!")
+
+    and:
+    handlers {
+      assets("public")
+    }
+
+    when:
+    def etag = get("file.txt").headers.get(ETAG)
+    def modified = getLastModifiedTime(file).toMillis() + 2000
+    file = this.file("public/file.txt", "changed!")
+    Files.setLastModifiedTime(file, FileTime.fromMillis(modified))
+
+    then:
+    get("file.txt").headers.get(ETAG) != etag
+    response.body.text == "changed!"
+  }
+
+  def "checksum index files are not served"() {
+    given:
+    file("public/.ratpack-checksums", "ratpack-checksums 1")
+    file("public/.ratpack-checksums.tmp", "ratpack-checksums 1")
+    file("public/file.txt", "hello!")
+
+    and:
+    handlers {
+      assets("public")
+    }
+
+    expect:
+    get(".ratpack-checksums").statusCode == 404
+    get(".ratpack-checksums.tmp").statusCode == 404
+    getText("file.txt") == "hello!"
+  }
+
   private static Date parseDateHeader(ReceivedResponse response, String name) {
     HttpHeaderDateFormat.get().parse(response.headers.get(name))
   }
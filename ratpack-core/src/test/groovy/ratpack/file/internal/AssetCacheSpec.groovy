@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal
+
+import ratpack.http.client.RequestSpec
+import ratpack.test.internal.RatpackGroovyDslSpec
+import spock.util.concurrent.PollingConditions
+
+class AssetCacheSpec extends RatpackGroovyDslSpec {
+
+  def polling = new PollingConditions(timeout: 10)
+
+  def setup() {
+    file "public/app.js", "plain"
+    file "public/large.txt", "1234567890" * 200
+    handlers {
+      get("cached/:name") {
+        render context.maybeGet(AssetCache).map { it.get(context.file("public/$pathTokens.name")) != null }.orElse(false).toString()
+      }
+      assets("public", "index.html")
+    }
+  }
+
+  private void acceptEncoding(String value) {
+    requestSpec { RequestSpec spec -> spec.headers.set("Accept-Encoding", value) }
+  }
+
+  def "caches assets when enabled"() {
+    given:
+    serverConfig {
+      assetCacheSize(1024 * 1024)
+    }
+
+    when:
+    get("app.js")
+
+    then:
+    with(response) {
+      statusCode == 200
+      body.text == "plain"
+      headers.get("Content-Type") == "application/javascript"
+      headers.get("ETag") != null
+      headers.get("Last-Modified") != null
+    }
+    getText("cached/app.js") == "true"
+
+    when:
+    get("app.js")
+
+    then:
+    with(response) {
+      body.text == "plain"
+      headers.get("Content-Length") == "5"
+      headers.get("Accept-Ranges") == "bytes"
+    }
+  }
+
+  def "serves new content after asset changes"() {
+    given:
+    serverConfig {
+      assetCacheSize(1024 * 1024)
+    }
+
+    expect:
+    getText("app.js") == "plain"
+
+    when:
+    file "public/app.js", "changed"
+
+    then:
+    polling.eventually {
+      getText("app.js") == "changed"
+    }
+  }
+
+  def "serves not modified for cached asset"() {
+    given:
+    serverConfig {
+      assetCacheSize(1024 * 1024)
+    }
+    def etag = get("app.js").headers.get("ETag")
+    def lastModified = get("app.js").headers.get("Last-Modified")
+
+    when:
+    requestSpec { RequestSpec spec -> spec.headers.set("If-None-Match", etag) }
+
+    then:
+    get("app.js").statusCode == 304
+
+    when:
+    resetRequest()
+    requestSpec { RequestSpec spec -> spec.headers.set("If-Modified-Since", lastModified) }
+
+    then:
+    get("app.js").statusCode == 304
+  }
+
+  def "serves range requests from file"() {
+    given:
+    serverConfig {
+      assetCacheSize(1024 * 1024)
+    }
+    getText("app.js")
+
+    when:
+    requestSpec { RequestSpec spec -> spec.headers.set("Range", "bytes=1-2") }
+
+    then:
+    with(get("app.js")) {
+      statusCode == 206
+      body.text == "la"
+    }
+  }
+
+  def "serves gzipped variant when compressing responses"() {
+    given:
+    serverConfig {
+      assetCacheSize(1024 * 1024)
+      compressResponses(true)
+    }
+    acceptEncoding("gzip")
+
+    when:
+    get("large.txt")
+    get("large.txt")
+
+    then:
+    with(response) {
+      statusCode == 200
+      headers.get("Content-Encoding") == "gzip"
+      headers.get("Content-Length").toInteger() < 2000
+      headers.get("Vary") == "Accept-Encoding"
+    }
+
+    when:
+    acceptEncoding("identity")
+    get("large.txt")
+
+    then:
+    with(response) {
+      body.text == "1234567890" * 200
+      headers.get("Content-Encoding") == "identity"
+    }
+  }
+
+  def "does not cache files larger than the per file limit"() {
+    given:
+    serverConfig {
+      assetCacheSize(16 * 100)
+    }
+
+    when:
+    get("large.txt")
+
+    then:
+    response.body.text == "1234567890" * 200
+    getText("cached/large.txt") == "false"
+  }
+
+  def "does not cache in development"() {
+    given:
+    serverConfig {
+      assetCacheSize(1024 * 1024)
+      development(true)
+    }
+
+    expect:
+    getText("app.js") == "plain"
+    getText("cached/app.js") == "false"
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ByteRangeSpec extends Specification {
+
+  @Unroll
+  def "parses '#header' for size #size"() {
+    expect:
+    ByteRange.parse(header, size)*.toString() == expected
+
+    where:
+    header                 | size | expected
+    "bytes=0-4"            | 10   | ["0-4"]
+    "bytes=5-"             | 10   | ["5-9"]
+    "bytes=-3"             | 10   | ["7-9"]
+    "bytes=-20"            | 10   | ["0-9"]
+    "bytes=0-100"          | 10   | ["0-9"]
+    "bytes=0-1, 4-5"       | 10   | ["0-1", "4-5"]
+    "bytes=4-5,0-1"        | 10   | ["0-1", "4-5"]
+    "bytes=0-3,2-5"        | 10   | ["0-5"]
+    "bytes=0-3,4-5"        | 10   | ["0-5"]
+    "BYTES=0-0"            | 10   | ["0-0"]
+    "bytes=10-"            | 10   | []
+    "bytes=-0"             | 10   | []
+    "bytes=0-1,20-30"      | 10   | ["0-1"]
+    "bytes=0-"             | 0    | []
+    "items=0-1"            | 10   | null
+    "bytes"                | 10   | null
+    "bytes=1"              | 10   | null
+    "bytes=a-b"            | 10   | null
+    "bytes=5-4"            | 10   | null
+    "bytes=--1"            | 10   | null
+    "bytes="               | 10   | null
+    "bytes=,"              | 10   | null
+    "bytes= , "            | 10   | null
+  }
+
+  def "content range"() {
+    expect:
+    new ByteRange(2, 5).toContentRange(10) == "bytes 2-5/10"
+    new ByteRange(2, 5).length == 4
+  }
+
+}
@@ -189,4 +189,28 @@ class FileCompressionSpec extends RatpackGroovyDslSpec {
     "large.png"  | TEST_ENCODING
     "large"      | TEST_ENCODING
   }
+
+  def "weakens the entity tag of compressed files"() {
+    when:
+    serverConfig {
+      compressResponses(true)
+    }
+
+    then:
+    with(get("large.txt")) {
+      headers.get(CONTENT_ENC_HDR) == TEST_ENCODING
+      headers.get("ETag") ==~ /W\/"[0-9a-f]+-[0-9a-f]+"/
+    }
+    with(get("large.png")) {
+      headers.get(CONTENT_ENC_HDR) == null
+      headers.get("ETag") ==~ /"[0-9a-f]+-[0-9a-f]+"/
+    }
+
+    when:
+    def etag = get("large.txt").headers.get("ETag")
+    requestSpec { RequestSpec request -> request.headers.set("If-None-Match", etag) }
+
+    then:
+    get("large.txt").statusCode == 304
+  }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal
+
+import ratpack.test.internal.RatpackGroovyDslSpec
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+
+class FileMetadataCacheSpec extends RatpackGroovyDslSpec {
+
+  def polling = new PollingConditions(timeout: 10)
+
+  def setup() {
+    file "public/app.js", "plain"
+    file "public/dir/index.html", "index"
+    serverConfig {
+      assetMetadataCacheSize(100)
+    }
+    handlers {
+      get("cached/:name") {
+        def metadata = context.maybeGet(FileMetadataCache).map { it.get(context.file("public/$pathTokens.name")) }.orElse(null)
+        render metadata == null ? "none" : metadata.attributes == null ? "missing" : "present"
+      }
+      assets("public", "index.html")
+    }
+  }
+
+  def "caches attributes of served files"() {
+    expect:
+    getText("app.js") == "plain"
+    getText("cached/app.js") == "present"
+    getText("app.js") == "plain"
+  }
+
+  def "caches missing files"() {
+    expect:
+    get("other.js").statusCode == 404
+    getText("cached/other.js") == "missing"
+  }
+
+  def "sees changes to files"() {
+    given:
+    def etag = get("app.js").headers.get("ETag")
+
+    when:
+    file "public/app.js", "changed"
+
+    then:
+    polling.eventually {
+      with(get("app.js")) {
+        body.text == "changed"
+        headers.get("ETag") != etag
+      }
+    }
+  }
+
+  def "sees created and deleted files"() {
+    expect:
+    get("other.js").statusCode == 404
+
+    when:
+    file "public/other.js", "other"
+
+    then:
+    polling.eventually {
+      getText("other.js") == "other"
+    }
+
+    when:
+    Files.delete(file("public/other.js"))
+
+    then:
+    polling.eventually {
+      get("other.js").statusCode == 404
+    }
+  }
+
+  def "sees changes to index files"() {
+    expect:
+    getText("dir/") == "index"
+
+    when:
+    Files.delete(file("public/dir/index.html"))
+
+    then:
+    polling.eventually {
+      get("dir/").statusCode == 404
+    }
+  }
+
+  def "does not cache in development"() {
+    given:
+    serverConfig {
+      assetMetadataCacheSize(100)
+      development(true)
+    }
+
+    expect:
+    getText("app.js") == "plain"
+    getText("cached/app.js") == "none"
+  }
+
+}
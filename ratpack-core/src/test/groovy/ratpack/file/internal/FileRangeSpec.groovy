@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal
+
+import ratpack.http.client.RequestSpec
+import ratpack.http.internal.HttpHeaderDateFormat
+import ratpack.test.internal.RatpackGroovyDslSpec
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import static io.netty.handler.codec.http.HttpHeaderNames.*
+
+class FileRangeSpec extends RatpackGroovyDslSpec {
+
+  private static final String FILE_CONTENTS = "0123456789abcdefghij"
+  private Path myFile
+
+  def setup() {
+    myFile = file("myFile.txt", FILE_CONTENTS)
+    handlers {
+      get("path") { render myFile }
+    }
+  }
+
+  private void requestHeaders(Map<CharSequence, String> headers) {
+    requestSpec { RequestSpec spec ->
+      headers.each { name, value -> spec.headers.set(name, value) }
+    }
+  }
+
+  def "advertises range support"() {
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 200
+      headers.get(ACCEPT_RANGES) == "bytes"
+      body.text == FILE_CONTENTS
+    }
+  }
+
+  def "can request single range"() {
+    given:
+    requestHeaders((RANGE): "bytes=2-5")
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 206
+      headers.get(CONTENT_RANGE) == "bytes 2-5/20"
+      headers.get(CONTENT_LENGTH) == "4"
+      headers.get(CONTENT_TYPE) == "text/plain"
+      body.text == "2345"
+    }
+  }
+
+  def "can request suffix range"() {
+    given:
+    requestHeaders((RANGE): "bytes=-3")
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 206
+      headers.get(CONTENT_RANGE) == "bytes 17-19/20"
+      body.text == "hij"
+    }
+  }
+
+  def "can request multiple ranges"() {
+    given:
+    requestHeaders((RANGE): "bytes=0-1,10-12")
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 206
+      def contentType = headers.get(CONTENT_TYPE)
+      contentType.startsWith("multipart/byteranges; boundary=")
+      def boundary = contentType - "multipart/byteranges; boundary="
+      def text = body.text
+      headers.get(CONTENT_LENGTH).toInteger() == text.length()
+      text == "\r\n--$boundary\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/20\r\n\r\n01" +
+        "\r\n--$boundary\r\nContent-Type: text/plain\r\nContent-Range: bytes 10-12/20\r\n\r\nabc" +
+        "\r\n--$boundary--\r\n"
+    }
+  }
+
+  def "unsatisfiable range is rejected"() {
+    given:
+    requestHeaders((RANGE): "bytes=50-")
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 416
+      headers.get(CONTENT_RANGE) == "bytes */20"
+    }
+  }
+
+  def "invalid range is ignored"() {
+    given:
+    requestHeaders((RANGE): "bytes=5-2")
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 200
+      body.text == FILE_CONTENTS
+    }
+  }
+
+  def "range is honoured if if-range matches last modified"() {
+    given:
+    requestHeaders((RANGE): "bytes=0-1", (IF_RANGE): HttpHeaderDateFormat.get().format(new Date(Files.getLastModifiedTime(myFile).toMillis())))
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 206
+      body.text == "01"
+    }
+  }
+
+  def "range is ignored if if-range does not match"() {
+    given:
+    requestHeaders((RANGE): "bytes=0-1", (IF_RANGE): ifRange)
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == 200
+      body.text == FILE_CONTENTS
+    }
+
+    where:
+    ifRange << [HttpHeaderDateFormat.get().format(new Date(0)), '"abc"', 'W/"abc"']
+  }
+
+}
@@ -21,6 +21,7 @@ import ratpack.http.client.ReceivedResponse
 import ratpack.http.client.RequestSpec
 import ratpack.http.internal.HttpHeaderDateFormat
 import ratpack.test.internal.RatpackGroovyDslSpec
+import spock.lang.Unroll
 
 import java.nio.file.Files
 import java.nio.file.Path
@@ -56,6 +57,33 @@ class FileRenderingSpec extends RatpackGroovyDslSpec {
     }
   }
 
+  @Unroll
+  def "can render file in chunks when it can't be sent with zero copy (mapping threshold #threshold)"() {
+    given:
+    serverConfig {
+      compressResponses(true)
+      compressionMinSize(0)
+      fileChunkSize(4)
+      fileMappingThreshold(threshold)
+    }
+    handlers {
+      get("path") { render myFile }
+    }
+
+    when:
+    get("path")
+
+    then:
+    with(response) {
+      statusCode == OK.code()
+      body.text == FILE_CONTENTS
+      headers.get(CONTENT_LENGTH).toInteger() == FILE_CONTENTS.length()
+    }
+
+    where:
+    threshold << [0, 1]
+  }
+
   def "renderer respect if-modified-since header"() {
     given:
     handlers {
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal
+
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.ByteBufAllocator
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.channels.FileChannel
+
+import static java.nio.charset.StandardCharsets.US_ASCII
+
+class MappedChunkedFileSpec extends Specification {
+
+  @Rule TemporaryFolder temporaryFolder
+
+  @Unroll
+  def "reads #length bytes from #offset in chunks of #chunkSize with windows of #windowSize"() {
+    given:
+    def file = temporaryFolder.newFile().toPath()
+    file.text = "0123456789abcdefghijklmnopqrstuvwxyz"
+    def input = new MappedChunkedFile(FileChannel.open(file), offset, length, chunkSize, windowSize)
+
+    when:
+    def chunks = []
+    while (!input.isEndOfInput()) {
+      ByteBuf chunk = input.readChunk((ByteBufAllocator) null)
+      chunks << chunk.toString(US_ASCII)
+      chunk.release()
+    }
+    input.close()
+
+    then:
+    chunks.join("") == file.text.substring(offset, offset + length)
+    chunks*.length().every { it <= chunkSize }
+    input.progress() == length
+
+    where:
+    offset | length | chunkSize | windowSize
+    0      | 36     | 4         | 36
+    0      | 36     | 4         | 10
+    5      | 20     | 3         | 7
+    35     | 1      | 8         | 8
+    0      | 0      | 8         | 8
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.file.internal
+
+import ratpack.http.client.RequestSpec
+import ratpack.test.internal.RatpackGroovyDslSpec
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+
+class PrecompressedAssetSpec extends RatpackGroovyDslSpec {
+
+  def setup() {
+    file "public/app.js", "plain"
+    file "public/app.js.gz", "gzipped"
+    file "public/app.js.br", "brotli"
+    file "public/other.css", "plain"
+
+    serverConfig {
+      precompressedAssetEncodings("br", "gzip")
+    }
+    handlers {
+      assets("public")
+    }
+  }
+
+  private void acceptEncoding(String value) {
+    requestSpec { RequestSpec spec -> spec.headers.set("Accept-Encoding", value) }
+  }
+
+  @Unroll
+  def "serves #encoding file when accept-encoding is '#acceptEncoding'"() {
+    given:
+    acceptEncoding(acceptEncoding)
+
+    when:
+    get("app.js")
+
+    then:
+    with(response) {
+      statusCode == 200
+      body.text == text
+      headers.get("Content-Encoding") == encoding
+      headers.get("Content-Type") == "application/javascript"
+      headers.get("Content-Length") == text.length().toString()
+      headers.get("Vary") == "Accept-Encoding"
+    }
+
+    where:
+    acceptEncoding      | encoding | text
+    "gzip"              | "gzip"   | "gzipped"
+    "gzip, deflate, br" | "br"     | "brotli"
+    "br;q=0, gzip"      | "gzip"   | "gzipped"
+    "*"                 | "br"     | "brotli"
+    "*, br;q=0"         | "gzip"   | "gzipped"
+    "deflate"           | null     | "plain"
+    "identity"          | null     | "plain"
+  }
+
+  def "serves asset if there is no precompressed file"() {
+    given:
+    acceptEncoding("gzip")
+
+    when:
+    get("other.css")
+
+    then:
+    with(response) {
+      body.text == "plain"
+      headers.get("Content-Encoding") == null
+      headers.get("Vary") == "Accept-Encoding"
+    }
+  }
+
+  def "ignores precompressed file older than asset"() {
+    given:
+    acceptEncoding("br")
+    def asset = file("public/app.js")
+    Files.setLastModifiedTime(file("public/app.js.br"), FileTime.fromMillis(Files.getLastModifiedTime(asset).toMillis() - 10000))
+
+    when:
+    get("app.js")
+
+    then:
+    with(response) {
+      body.text == "plain"
+      headers.get("Content-Encoding") == null
+    }
+  }
+
+  def "precompressed files have their own entity tags"() {
+    when:
+    acceptEncoding("gzip")
+    def gzipETag = get("app.js").headers.get("ETag")
+    acceptEncoding("identity")
+    def identityETag = get("app.js").headers.get("ETag")
+
+    then:
+    gzipETag != null
+    identityETag != null
+    gzipETag != identityETag
+  }
+
+  def "parses accept encoding"() {
+    expect:
+    AssetHandler.accepts("gzip;q=0.5", "gzip")
+    !AssetHandler.accepts("gzip; q=0", "gzip")
+    !AssetHandler.accepts("deflate", "gzip")
+    AssetHandler.accepts("GZIP", "gzip")
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.handling.internal
+
+import ratpack.handling.Handler
+import ratpack.test.internal.RatpackGroovyDslSpec
+
+import static ratpack.registry.Registries.just
+
+class FlattenedChainSpec extends RatpackGroovyDslSpec {
+
+  def "handlers without nested chains are left as is"() {
+    given:
+    Handler a = {} as Handler
+    Handler b = {} as Handler
+    Handler[] handlers = [a, b]
+
+    expect:
+    FlattenedChain.flatten(handlers).is(handlers)
+  }
+
+  def "nested chains are inlined between scope markers"() {
+    given:
+    Handler a = {} as Handler
+    Handler b = {} as Handler
+    Handler c = {} as Handler
+    Handler d = {} as Handler
+    Handler[] handlers = [a, new ChainHandler(b, new ChainHandler(c), new ChainHandler()), d]
+
+    when:
+    def program = FlattenedChain.flatten(handlers)
+
+    then:
+    program.length == 7
+    program[0].is(a)
+    program[1].toString() == "enter chain scope 0"
+    program[2].is(b)
+    program[3].toString() == "enter chain scope 1"
+    program[4].is(c)
+    program[5].toString() == "exit chain scope 1"
+    program[6].toString() == "exit chain scope 0"
+  }
+
+  def "registry additions in a flattened chain do not leak past it"() {
+    given:
+    serverConfig {
+      flattenHandlers true
+    }
+
+    when:
+    handlers {
+      handler chain {
+        handler {
+          next(just(String, "inner"))
+        }
+        handler chain {
+          handler {
+            next(just(Integer, 1))
+          }
+          get("nested") {
+            render "${get(String)}:${get(Integer)}"
+          }
+        }
+        get("inner") {
+          render "${get(String)}:${maybeGet(Integer).present}"
+        }
+      }
+      get("outer") {
+        render maybeGet(String).orElse("none")
+      }
+    }
+
+    then:
+    getText("nested") == "inner:1"
+    getText("inner") == "inner:false"
+    getText("outer") == "none"
+  }
+
+  def "handlers can be inserted from within a flattened chain"() {
+    given:
+    serverConfig {
+      flattenHandlers true
+    }
+
+    when:
+    handlers {
+      handler chain {
+        handler {
+          insert(just(String, "inserted"), { next() } as Handler)
+        }
+        handler {
+          next()
+        }
+      }
+      handler {
+        render maybeGet(String).orElse("none")
+      }
+    }
+
+    then:
+    text == "none"
+  }
+
+}
@@ -16,6 +16,8 @@
 
 package ratpack.path
 
+import ratpack.handling.Handler
+import ratpack.handling.Handlers
 import ratpack.test.internal.RatpackGroovyDslSpec
 
 class PathAndMethodRoutingSpec extends RatpackGroovyDslSpec {
@@ -114,4 +116,32 @@ class PathAndMethodRoutingSpec extends RatpackGroovyDslSpec {
     options()
     response.headers.get("Allow") == "GET,POST"
   }
+
+  def "can use precompiled method dispatch"() {
+    when:
+    handlers {
+      handler("foo", Handlers.byMethod { it
+        .get({ it.render "get" } as Handler)
+        .post({ it.render "post" } as Handler)
+      })
+      handler("bar", Handlers.byContent { it
+        .json({ it.render "json" } as Handler)
+        .html({ it.render "html" } as Handler)
+      })
+    }
+
+    then:
+    getText("foo") == "get"
+    postText("foo") == "post"
+    put("foo").statusCode == 405
+    options("foo")
+    response.headers.get("Allow") == "GET,POST"
+
+    when:
+    resetRequest()
+    requestSpec { it.headers.add("Accept", "text/html") }
+
+    then:
+    getText("bar") == "html"
+  }
 }
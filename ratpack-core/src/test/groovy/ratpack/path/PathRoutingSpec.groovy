@@ -352,4 +352,40 @@ class PathRoutingSpec extends RatpackGroovyDslSpec {
     getText("bar/") == "0"
     //    getText("bar//") == "1" // The httpurl spec under the covers will fix this bar// before it is ever passed to ratpack
   }
+
+  def "can route among many sibling paths"() {
+    when:
+    handlers {
+      handler("a/b") {
+        next()
+      }
+      handler("a/:id") {
+        response.send("id:" + pathTokens.id)
+      }
+      handler("c") {
+        response.send("c")
+      }
+      prefix("d") {
+        handler(":x") {
+          response.send("d:" + pathTokens.x)
+        }
+      }
+      handler(":other/:id") {
+        response.send("other:" + pathTokens.other)
+      }
+      handler("e/:n:\\d+") {
+        response.send("e:" + pathTokens.n)
+      }
+    }
+
+    then:
+    getText("a/b") == "id:b"
+    getText("a/1") == "id:1"
+    getText("c") == "c"
+    getText("d/1") == "d:1"
+    getText("x/1") == "other:x"
+    getText("e/12") == "e:12"
+    get("e/x").statusCode == NOT_FOUND.code()
+    get("a").statusCode == NOT_FOUND.code()
+  }
 }
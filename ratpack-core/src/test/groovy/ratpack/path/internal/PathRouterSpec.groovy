@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.path.internal
+
+import ratpack.handling.Handler
+import ratpack.path.PathBinders
+import spock.lang.Specification
+
+class PathRouterSpec extends Specification {
+
+  PathHandler route(String path, boolean exact = true) {
+    new PathHandler(PathBinders.parse(path, exact), {} as Handler)
+  }
+
+  List<String> leadingSegments(String path) {
+    (PathBinders.parse(path, true) as TokenPathBinder).leadingLiteralSegments
+  }
+
+  def "leading literal segments"() {
+    expect:
+    leadingSegments("") == []
+    leadingSegments("a") == ["a"]
+    leadingSegments("a/b/:id") == ["a", "b"]
+    leadingSegments("a/:id:\\d+") == ["a"]
+    leadingSegments(":a/b") == []
+    leadingSegments(":a?/b") == []
+    leadingSegments("a/::\\d+") == []
+    leadingSegments("a/b/::\\d+") == ["a"]
+    leadingSegments("a/") == ["a", ""]
+  }
+
+  def "candidates are the routes that may bind, in order"() {
+    given:
+    def routes = [route("a/b"), route("a/:id"), route(":x"), route("c"), route("a", false), route("a/::\\d+")]
+    def router = new PathRouter(routes)
+
+    expect:
+    router.candidates("a/b").toList() == [routes[0], routes[1], routes[2], routes[4], routes[5]]
+    router.candidates("a").toList() == [routes[1], routes[2], routes[4], routes[5]]
+    router.candidates("c").toList() == [routes[2], routes[3], routes[5]]
+    router.candidates("d/e").toList() == [routes[2], routes[5]]
+    router.candidates("").toList() == [routes[2], routes[5]]
+  }
+
+  def "only runs of path handlers are compiled"() {
+    given:
+    Handler other = {} as Handler
+    def paths = (1..4).collect { route("p$it") }
+
+    when:
+    def compiled = PathRouter.compile([other] + paths + [other, paths[0]])
+
+    then:
+    compiled.size() == 4
+    compiled[0].is(other)
+    compiled[1] instanceof PathRouter
+    compiled[2].is(other)
+    compiled[3].is(paths[0])
+  }
+}
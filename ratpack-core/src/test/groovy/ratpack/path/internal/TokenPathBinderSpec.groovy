@@ -19,6 +19,7 @@ package ratpack.path.internal
 import ratpack.path.PathBinders
 import ratpack.path.PathBinding
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class TokenPathBinderSpec extends Specification {
 
@@ -40,6 +41,21 @@ class TokenPathBinderSpec extends Specification {
     bind("a/b", "a/b/c").childPath("f") == "a/b/f"
   }
 
+  @Unroll
+  def "binding of '#pattern' is described as '#description'"() {
+    expect:
+    bind(pattern, path, true, parent).description == description
+
+    where:
+    pattern             | path               | parent                        || description
+    "a/b"               | "a/b"              | null                          || "a/b"
+    "author/:id/books"  | "author/1/books"   | null                          || "author/:id/books"
+    ":a?"               | ""                 | null                          || ":a?"
+    "a/:n:\\d+"         | "a/12"             | null                          || "a/:n:\\d+"
+    ":id"               | "author/1"         | bind("author", "author/1")    || "author/:id"
+    ""                  | "author"           | bind("author", "author")      || "author"
+  }
+
   def tokens() {
     expect:
     tokens("a", "b") == null
@@ -79,4 +95,47 @@ class TokenPathBinderSpec extends Specification {
   }
 
 
+
+  @Unroll
+  def "segment matching of '#pattern' (exact: #exact) agrees with regex"() {
+    given:
+    def binder = PathBinders.parse(pattern, exact) as TokenPathBinder
+    def paths = ["", "a", "a/", "a//", "a/b", "a/b/", "a/b/c", "a/b/c/", "abc", "abc/", "abc/def", "abc/def/", "abc/somepath",
+                 "abc/def/somepath", "abc/def/ghi", "1//3", "a?b", "a/b&c", "a/b#c", "x/y/z/", "a/%20/c"]
+
+    expect:
+    binder.segmentMatched
+    paths.each { path ->
+      assert binder.segmentBind(path, Optional.empty()) == binder.regexBind(path, Optional.empty())
+    }
+
+    where:
+    [pattern, exact] << [
+      ["", "a", "a/b", "a/", ":a", ":a/:b", ":a/:b?", ":a/:b?/somepath", ":a/:b?/:c?", "a/:b?", "a/:b/c", "a/:b?/:c?", ":a/b"],
+      [true, false]
+    ].combinations()
+  }
+
+  def "patterns with regular expressions are matched by regex"() {
+    expect:
+    !(PathBinders.parse(pattern, true) as TokenPathBinder).segmentMatched
+
+    where:
+    pattern << [":a:\\d+", ":a?:\\d+", "a/::\\d+", ":a?", ":a?/b", ":a.json"]
+  }
+
+  def "bind statistics"() {
+    given:
+    def binder = PathBinders.parse("a/:b", true) as TokenPathBinder
+
+    when:
+    binder.bind("a/1", Optional.empty())
+    binder.bind("b/1", Optional.empty())
+    binder.bind("/a/1", Optional.empty())
+
+    then:
+    binder.bindCount == 3
+    binder.matchCount == 1
+    binder.regexBindCount == 1
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.registry.internal
+
+import com.google.common.reflect.TypeToken
+import ratpack.registry.NotInRegistryException
+import ratpack.registry.Registries
+import ratpack.registry.Registry
+import spock.lang.Specification
+
+class CachingRegistrySpec extends Specification {
+
+  def "class and type token lookups agree"() {
+    given:
+    def r = Registries.registry().add(Integer, 1).add(String, "a").add(String, "b").build()
+    def n = r.join(Registries.just(Long, 2L))
+
+    expect:
+    n.get(String) == "a"
+    n.get(String) == n.get(TypeToken.of(String))
+    n.get(Number) == 2L
+    n.maybeGet(Number).get() == n.maybeGet(TypeToken.of(Number)).get()
+    !n.maybeGet(Double).present
+    n.getAll(String).toList() == ["a", "b"]
+    n.getAll(Number).toList() == [2L, 1]
+    n.getAll(Number).toList() == n.getAll(TypeToken.of(Number)).toList()
+  }
+
+  def "class lookups are cached"() {
+    given:
+    def delegate = Mock(Registry)
+    def r = CachingRegistry.of(delegate)
+
+    when:
+    r.maybeGet(String)
+    r.maybeGet(String)
+    r.getAll(String)
+    r.getAll(String)
+
+    then:
+    1 * delegate.maybeGet(TypeToken.of(String)) >> Optional.of("a")
+    1 * delegate.getAll(TypeToken.of(String)) >> ["a"]
+  }
+
+  def "missing class lookup throws"() {
+    when:
+    CachingRegistry.of(Registries.just(String, "a")).get(Integer)
+
+    then:
+    thrown NotInRegistryException
+  }
+}
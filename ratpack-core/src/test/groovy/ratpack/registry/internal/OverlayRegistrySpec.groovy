@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.registry.internal
+
+import com.google.common.base.Predicate
+import com.google.common.base.Predicates
+import com.google.common.reflect.TypeToken
+import ratpack.func.Action
+import ratpack.registry.Registries
+import ratpack.registry.Registry
+import spock.lang.Specification
+
+class OverlayRegistrySpec extends Specification {
+
+  def "joins flatten into a single overlay"() {
+    given:
+    def root = Registries.registry().add(Integer, 1).add(String, "root").build()
+    def r = OverlayRegistry.join(OverlayRegistry.join(root, Registries.just(String, "a")), Registries.just(Long, 2L))
+
+    expect:
+    r instanceof OverlayRegistry
+    r.layers.length == 3
+    r.get(String) == "a"
+    r.get(Number) == 2L
+    r.getAll(Object).toList() == [2L, "a", 1, "root"]
+    r.getAll(TypeToken.of(String)).toList() == ["a", "root"]
+    r.all(TypeToken.of(Number), Predicates.alwaysTrue()).toList() == [2L, 1]
+    r.first(TypeToken.of(String), { it == "root" } as Predicate).get() == "root"
+    !r.maybeGet(Double).present
+  }
+
+  def "each visits all layers"() {
+    given:
+    def r = OverlayRegistry.join(Registries.just(String, "b"), Registries.just(String, "a"))
+    def visited = []
+
+    when:
+    def found = r.each(TypeToken.of(String), Predicates.alwaysTrue()) { visited << it }
+
+    then:
+    found
+    visited == ["a", "b"]
+  }
+
+  def "lookups are cached per overlay"() {
+    given:
+    def lookups = 0
+    def counting = new Registry() {
+      def <O> Optional<O> maybeGet(TypeToken<O> type) {
+        ++lookups
+        type.rawType == Long ? Optional.of((O) 2L) : Optional.empty()
+      }
+
+      def <O> Iterable<? extends O> getAll(TypeToken<O> type) {
+        []
+      }
+
+      def <T> Optional<T> first(TypeToken<T> type, Predicate<? super T> predicate) {
+        Optional.empty()
+      }
+
+      def <T> Iterable<? extends T> all(TypeToken<T> type, Predicate<? super T> predicate) {
+        []
+      }
+
+      def <T> boolean each(TypeToken<T> type, Predicate<? super T> predicate, Action<? super T> action) {
+        false
+      }
+    }
+    def r = OverlayRegistry.join(counting, Registries.just(String, "a"))
+
+    when:
+    3.times {
+      assert r.get(Long) == 2L
+      assert r.get(TypeToken.of(Long)) == 2L
+      assert !r.maybeGet(Double).present
+    }
+
+    then:
+    lookups == 3
+  }
+
+  def "joining empty registries is a no-op"() {
+    given:
+    def r = Registries.just(String, "a")
+
+    expect:
+    OverlayRegistry.join(r, Registries.empty()).is(r)
+    OverlayRegistry.join(Registries.empty(), r).is(r)
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.render.internal
+
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.UnpooledByteBufAllocator
+import io.netty.util.CharsetUtil
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ByteBufWriterSpec extends Specification {
+
+  def allocator = UnpooledByteBufAllocator.DEFAULT
+
+  @Unroll
+  def "encodes #description as utf-8"() {
+    given:
+    def writer = new ByteBufWriter(allocator)
+
+    when:
+    writer.write(text)
+    def buffer = writer.getBuffer()
+
+    then:
+    buffer.toString(CharsetUtil.UTF_8) == text
+    buffer.readableBytes() == text.getBytes(CharsetUtil.UTF_8).length
+
+    cleanup:
+    buffer?.release()
+
+    where:
+    description        | text
+    "ascii"            | "hello world"
+    "two byte chars"   | "héllo"
+    "three byte chars" | "€100"
+    "surrogate pairs"  | "smile 😀!"
+  }
+
+  def "surrogate pairs can be split across writes"() {
+    given:
+    def writer = new ByteBufWriter(allocator)
+
+    when:
+    writer.write("a\ud83d")
+    writer.write((int) '\ude00'.charAt(0))
+    def buffer = writer.getBuffer()
+
+    then:
+    buffer.toString(CharsetUtil.UTF_8) == "a😀"
+
+    cleanup:
+    buffer?.release()
+  }
+
+  def "malformed surrogates are replaced"() {
+    given:
+    def writer = new ByteBufWriter(allocator)
+
+    when:
+    writer.write("\ude00a\ud83db\ud83d")
+    def buffer = writer.getBuffer()
+
+    then:
+    buffer.toString(CharsetUtil.UTF_8) == "?a?b?"
+
+    cleanup:
+    buffer?.release()
+  }
+
+  def "passes chunks to handler"() {
+    given:
+    List<ByteBuf> chunks = []
+    def writer = new ByteBufWriter(allocator, 4, { chunks << it })
+
+    when:
+    writer.write("ab")
+    writer.append("cde")
+    writer.write("f")
+
+    then:
+    chunks*.toString(CharsetUtil.UTF_8) == ["abcd"]
+
+    when:
+    writer.close()
+
+    then:
+    chunks*.toString(CharsetUtil.UTF_8) == ["abcd", "ef"]
+
+    cleanup:
+    chunks*.release()
+  }
+
+  @Unroll
+  def "single write larger than the chunk size of #description is split into chunks"() {
+    given:
+    List<ByteBuf> chunks = []
+    def writer = new ByteBufWriter(allocator, 16, { chunks << it })
+
+    when:
+    writer.write(text)
+    writer.close()
+
+    then:
+    chunks.size() > 1
+    chunks[0..-2].every { it.readableBytes() >= 16 && it.readableBytes() <= maxChunkSize }
+    chunks.last().readableBytes() <= maxChunkSize
+    chunks*.toString(CharsetUtil.UTF_8).join() == text
+
+    cleanup:
+    chunks*.release()
+
+    where:
+    description        | text       | maxChunkSize
+    "ascii"            | "a" * 100  | 16
+    "three byte chars" | "€" * 50   | 18
+    "surrogate pairs"  | "😀" * 30 | 19
+  }
+
+}
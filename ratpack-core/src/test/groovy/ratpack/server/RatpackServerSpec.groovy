@@ -22,6 +22,8 @@ import ratpack.test.http.TestHttpClient
 import spock.lang.AutoCleanup
 import spock.lang.Specification
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 class RatpackServerSpec extends Specification {
 
   @AutoCleanup("stop")
@@ -203,4 +205,52 @@ class RatpackServerSpec extends Specification {
     reloadCounter == 2
 
   }
+
+  def "services of the previous registry are stopped when reloading in development"() {
+    given:
+    def reload = new AtomicBoolean()
+    def started = []
+    def stopped = []
+    def builds = 0
+
+    server = RatpackServer.of {
+      it.config(ServerConfig.embedded().development(true))
+      it.registryOf {
+        def build = ++builds
+        it.add(ReloadInformant, new ReloadInformant() {
+          boolean shouldReload() {
+            reload.getAndSet(false)
+          }
+        })
+        it.add(Service, new Service() {
+          @Override
+          void onStart(StartEvent event) throws Exception {
+            started << build
+          }
+
+          @Override
+          void onStop(StopEvent event) throws Exception {
+            stopped << build
+          }
+        })
+      }
+      it.handler { return { it.render "ok" } as Handler }
+    }
+
+    when:
+    server.start()
+    http.text
+
+    then:
+    started == [1]
+    stopped == []
+
+    when:
+    reload.set(true)
+    http.text
+
+    then:
+    started == [1, 2]
+    stopped == [1]
+  }
 }
@@ -153,6 +153,16 @@ class ServerConfigBuilderSpec extends Specification {
     builder.compressResponses(true).build().compressResponses
   }
 
+  def "new builder has default flatten handlers"() {
+    expect:
+    !builder.build().flattenHandlers
+  }
+
+  def "set flatten handlers"() {
+    expect:
+    builder.flattenHandlers(true).build().flattenHandlers
+  }
+
   def "new builder has default compression min size"() {
     expect:
     builder.build().compressionMinSize == ServerConfig.DEFAULT_COMPRESSION_MIN_SIZE
@@ -202,6 +212,56 @@ class ServerConfigBuilderSpec extends Specification {
     indexFiles == ['home.html', 'index.html'] as Set
   }
 
+  def "new builder has no precompressed asset encodings"() {
+    expect:
+    builder.build().precompressedAssetEncodings.empty
+  }
+
+  def "set precompressed asset encodings"() {
+    expect:
+    builder.precompressedAssetEncodings('br', 'gzip').build().precompressedAssetEncodings == ['br', 'gzip']
+  }
+
+  def "new builder has asset cache disabled"() {
+    expect:
+    builder.build().assetCacheSize == 0
+  }
+
+  def "set asset cache size"() {
+    expect:
+    builder.assetCacheSize(1024L).build().assetCacheSize == 1024
+  }
+
+  def "new builder has asset metadata cache disabled"() {
+    expect:
+    builder.build().assetMetadataCacheSize == 0
+  }
+
+  def "set asset metadata cache size"() {
+    expect:
+    builder.assetMetadataCacheSize(100L).build().assetMetadataCacheSize == 100
+  }
+
+  def "new builder has default file chunk size"() {
+    expect:
+    builder.build().fileChunkSize == ServerConfig.DEFAULT_FILE_CHUNK_SIZE
+  }
+
+  def "set file chunk size"() {
+    expect:
+    builder.fileChunkSize(16384).build().fileChunkSize == 16384
+  }
+
+  def "new builder has file mapping disabled"() {
+    expect:
+    builder.build().fileMappingThreshold == 0
+  }
+
+  def "set file mapping threshold"() {
+    expect:
+    builder.fileMappingThreshold(1024L * 1024).build().fileMappingThreshold == 1024 * 1024
+  }
+
   def "set ssl context"() {
     given:
     SSLContext context = SSLContexts.sslContext(ServerConfigBuilderSpec.classLoader.getResourceAsStream('ratpack/launch/internal/keystore.jks'), 'password')
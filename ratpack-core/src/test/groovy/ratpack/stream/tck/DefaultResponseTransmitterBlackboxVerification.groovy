@@ -29,6 +29,7 @@ import org.reactivestreams.tck.TestEnvironment
 import ratpack.event.internal.DefaultEventController
 import ratpack.func.Function
 import ratpack.handling.RequestOutcome
+import ratpack.server.ServerConfig
 import ratpack.server.internal.DefaultResponseTransmitter
 
 import java.util.concurrent.atomic.AtomicBoolean
@@ -64,7 +65,7 @@ class DefaultResponseTransmitterBlackboxVerification extends SubscriberBlackboxV
     when(eventController.hasListeners).thenReturn(false)
 
     new DefaultResponseTransmitter(
-      new AtomicBoolean(), null, channel, nettyRequest, null, null, eventController, false, null, 0
+      new AtomicBoolean(), null, channel, nettyRequest, null, null, eventController, false, null, ServerConfig.DEFAULT_FILE_CHUNK_SIZE, 0, 0
     ).transmitter(HttpResponseStatus.OK)
   }
 
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.stream.tck
+
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.UnpooledByteBufAllocator
+import org.reactivestreams.Publisher
+import org.reactivestreams.tck.PublisherVerification
+import org.reactivestreams.tck.TestEnvironment
+import ratpack.render.internal.RenderingPublisher
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class RenderingPublisherVerification extends PublisherVerification<ByteBuf> {
+
+  public static final long DEFAULT_TIMEOUT_MILLIS = 300L
+  public static final long PUBLISHER_REFERENCE_CLEANUP_TIMEOUT_MILLIS = 1000L
+
+  // rendering threads wait for demand, so each active publisher holds a thread
+  ExecutorService executor = Executors.newCachedThreadPool()
+
+  RenderingPublisherVerification() {
+    super(new TestEnvironment(DEFAULT_TIMEOUT_MILLIS), PUBLISHER_REFERENCE_CLEANUP_TIMEOUT_MILLIS)
+  }
+
+  @Override
+  Publisher<ByteBuf> createPublisher(long elements) {
+    // a chunk size of 1 makes each character written a chunk
+    new RenderingPublisher(executor, UnpooledByteBufAllocator.DEFAULT, 1, { Writer writer ->
+      for (long i = 0; i < elements; ++i) {
+        writer.write("a")
+      }
+    })
+  }
+
+  @Override
+  Publisher<ByteBuf> createErrorStatePublisher() {
+    null // because subscription always succeeds. Nothing is attempted until a request is received.
+  }
+
+}
@@ -20,6 +20,7 @@ import com.google.inject.TypeLiteral;
 import groovy.text.markup.MarkupTemplateEngine;
 import groovy.text.markup.TemplateConfiguration;
 import ratpack.groovy.template.internal.CachingTemplateResolver;
+import ratpack.groovy.template.internal.MarkupTemplatePrecompiler;
 import ratpack.groovy.template.internal.MarkupTemplateRenderer;
 import ratpack.guice.ConfigurableModule;
 import ratpack.render.Renderer;
@@ -82,8 +83,9 @@ public class MarkupTemplateModule extends ConfigurableModule<MarkupTemplateModul
 
   @Override
   protected void configure() {
+    bind(MarkupTemplateRenderer.class).in(Singleton.class);
     bind(new TypeLiteral<Renderer<MarkupTemplate>>() {
-    }).to(MarkupTemplateRenderer.class).in(Singleton.class);
+    }).to(MarkupTemplateRenderer.class);
   }
 
   @Override
@@ -103,10 +105,19 @@ public class MarkupTemplateModule extends ConfigurableModule<MarkupTemplateModul
     return new MarkupTemplateEngine(parent, effectiveConfiguration, new CachingTemplateResolver(templatesDir));
   }
 
+  @SuppressWarnings("UnusedDeclaration")
+  @Provides
+  @Singleton
+  MarkupTemplatePrecompiler providePrecompiler(MarkupTemplateRenderer renderer, ServerConfig serverConfig, Config config) {
+    return new MarkupTemplatePrecompiler(renderer, config.isPrecompile() && config.isCacheTemplates(), serverConfig.getBaseDir().file(config.getTemplatesDirectory()));
+  }
+
   public static class Config extends TemplateConfiguration {
 
     private String templatesDirectory = "templates";
 
+    private boolean precompile;
+
     public String getTemplatesDirectory() {
       return templatesDirectory;
     }
@@ -115,6 +126,24 @@ public class MarkupTemplateModule extends ConfigurableModule<MarkupTemplateModul
       this.templatesDirectory = templatesDirectory;
     }
 
+    /**
+     * Whether to compile all templates when the application starts.
+     * <p>
+     * {@code false} by default.
+     * When {@code true} and {@link #isCacheTemplates() templates are cached}, every file in the templates directory is compiled in parallel on blocking threads
+     * before the application starts accepting requests, so that the first render of each template does not have to compile it.
+     * Files that fail to compile are logged, and the failure is reported again when they are rendered.
+     *
+     * @return whether to compile all templates when the application starts
+     */
+    public boolean isPrecompile() {
+      return precompile;
+    }
+
+    public void setPrecompile(boolean precompile) {
+      this.precompile = precompile;
+    }
+
     public Config() {
     }
 
@@ -32,6 +32,7 @@ public class TextTemplateModule extends ConfigurableModule<TextTemplateModule.Co
   public static class Config {
     private String templatesPath = "templates";
     private boolean staticallyCompile;
+    private long cacheSize = 100;
 
     public String getTemplatesPath() {
       return templatesPath;
@@ -48,6 +49,14 @@ public class TextTemplateModule extends ConfigurableModule<TextTemplateModule.Co
     public void setStaticallyCompile(boolean staticallyCompile) {
       this.staticallyCompile = staticallyCompile;
     }
+
+    public long getCacheSize() {
+      return cacheSize;
+    }
+
+    public void setCacheSize(long cacheSize) {
+      this.cacheSize = cacheSize;
+    }
   }
 
 
@@ -70,7 +79,8 @@ public class TextTemplateModule extends ConfigurableModule<TextTemplateModule.Co
       bufferAllocator,
       templateDir,
       serverConfig.isDevelopment(),
-      config.staticallyCompile
+      config.staticallyCompile,
+      config.cacheSize
     );
   }
 }
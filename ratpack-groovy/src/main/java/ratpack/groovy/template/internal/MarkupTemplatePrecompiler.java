@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.groovy.template.internal;
+
+import ratpack.exec.ExecController;
+import ratpack.render.internal.TemplatePrecompiler;
+import ratpack.server.Service;
+import ratpack.server.StartEvent;
+
+import java.nio.file.Path;
+
+public class MarkupTemplatePrecompiler implements Service {
+
+  private final MarkupTemplateRenderer renderer;
+  private final boolean precompile;
+  private final Path templatesDir;
+
+  public MarkupTemplatePrecompiler(MarkupTemplateRenderer renderer, boolean precompile, Path templatesDir) {
+    this.renderer = renderer;
+    this.precompile = precompile;
+    this.templatesDir = templatesDir;
+  }
+
+  @Override
+  public void onStart(StartEvent event) throws Exception {
+    if (precompile) {
+      TemplatePrecompiler.precompile(event.getRegistry().get(ExecController.class).getBlockingExecutor(), templatesDir, "", renderer::compile);
+    }
+  }
+
+}
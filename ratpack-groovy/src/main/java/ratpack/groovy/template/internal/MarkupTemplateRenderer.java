@@ -20,32 +20,52 @@ import groovy.text.Template;
 import groovy.text.markup.MarkupTemplateEngine;
 import ratpack.file.MimeTypes;
 import ratpack.groovy.template.MarkupTemplate;
+import ratpack.groovy.template.MarkupTemplateModule;
 import ratpack.handling.Context;
 import ratpack.render.RendererSupport;
 
 import javax.inject.Inject;
-import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class MarkupTemplateRenderer extends RendererSupport<MarkupTemplate> {
 
   private final MarkupTemplateEngine engine;
 
+  // compiled templates by name, so that rendering a compiled template does not require a blocking operation; null if not caching templates
+  private final ConcurrentMap<String, Template> compiledTemplates;
+
   @Inject
-  public MarkupTemplateRenderer(MarkupTemplateEngine engine) {
+  public MarkupTemplateRenderer(MarkupTemplateEngine engine, MarkupTemplateModule.Config config) {
     this.engine = engine;
+    this.compiledTemplates = config.isCacheTemplates() ? new ConcurrentHashMap<>() : null;
   }
 
   @Override
   public void render(Context context, MarkupTemplate template) throws Exception {
-    String contentType = template.getContentType();
-    contentType = contentType == null ? context.get(MimeTypes.class).getContentType(template.getName()) : contentType;
-    try {
+    Template compiledTemplate = compiledTemplates == null ? null : compiledTemplates.get(template.getName());
+    if (compiledTemplate == null) {
+      context.blocking(() -> compile(template.getName())).then(compiled -> render(context, template, compiled));
+    } else {
+      render(context, template, compiledTemplate);
+    }
+  }
 
-      Template compiledTemplate = engine.createTemplateByPath(template.getName());
-      Writable boundTemplate = compiledTemplate.make(template.getModel());
-      context.getResponse().send(contentType, boundTemplate.toString());
-    } catch (IOException e) {
-      context.error(e);
+  /**
+   * Compiles the template, which is a blocking operation.
+   */
+  public Template compile(String templateName) throws Exception {
+    Template compiled = engine.createTemplateByPath(templateName);
+    if (compiledTemplates != null) {
+      compiledTemplates.put(templateName, compiled);
     }
+    return compiled;
+  }
+
+  private void render(Context context, MarkupTemplate template, Template compiledTemplate) {
+    String contentType = template.getContentType();
+    contentType = contentType == null ? context.get(MimeTypes.class).getContentType(template.getName()) : contentType;
+    Writable boundTemplate = compiledTemplate.make(template.getModel());
+    context.getResponse().send(contentType, boundTemplate.toString());
   }
 }
@@ -16,8 +16,6 @@
 
 package ratpack.groovy.template.internal;
 
-import com.google.common.cache.LoadingCache;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import ratpack.exec.ExecControl;
@@ -26,35 +24,29 @@ import ratpack.func.Function;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-
-import static ratpack.util.ExceptionUtils.toException;
-import static ratpack.util.ExceptionUtils.uncheck;
 
 public class Render {
 
   private final ExecControl execControl;
   private final ByteBufAllocator bufferAllocator;
-  private final LoadingCache<TextTemplateSource, CompiledTextTemplate> compiledTemplateCache;
-  private final TextTemplateSource templateSource;
+  private final Function<String, CompiledTextTemplate> compiledTemplates;
+  private final String templateName;
   private final Map<String, ?> model;
-  private final Function<String, TextTemplateSource> includeTransformer;
 
-  private Render(ExecControl execControl, ByteBufAllocator bufferAllocator, LoadingCache<TextTemplateSource, CompiledTextTemplate> compiledTemplateCache, TextTemplateSource templateSource, final Map<String, ?> model, Function<String, TextTemplateSource> includeTransformer) {
+  private Render(ExecControl execControl, ByteBufAllocator bufferAllocator, Function<String, CompiledTextTemplate> compiledTemplates, String templateName, final Map<String, ?> model) {
     this.execControl = execControl;
     this.bufferAllocator = bufferAllocator;
-    this.compiledTemplateCache = compiledTemplateCache;
-    this.templateSource = templateSource;
+    this.compiledTemplates = compiledTemplates;
+    this.templateName = templateName;
     this.model = model;
-    this.includeTransformer = includeTransformer;
   }
 
   private Promise<ByteBuf> invoke() {
     return execControl.promise(f -> {
         ByteBuf byteBuf = bufferAllocator.ioBuffer();
         try {
-          CompiledTextTemplate fromCache = getFromCache(compiledTemplateCache, templateSource);
-          Render.this.execute(fromCache, model, byteBuf);
+          CompiledTextTemplate compiledTemplate = compiledTemplates.apply(templateName);
+          Render.this.execute(compiledTemplate, model, byteBuf);
           f.success(byteBuf);
         } catch (Throwable e) {
           byteBuf.release();
@@ -64,17 +56,8 @@ public class Render {
     );
   }
 
-  private CompiledTextTemplate getFromCache(LoadingCache<TextTemplateSource, CompiledTextTemplate> compiledTemplateCache, TextTemplateSource templateSource) {
-    try {
-      return compiledTemplateCache.get(templateSource);
-    } catch (ExecutionException | UncheckedExecutionException e) {
-      throw uncheck(toException(e.getCause()));
-    }
-  }
-
   private void executeNested(final String templatePath, final Map<String, ?> model, ByteBuf buffer) throws Exception {
-    TextTemplateSource templateSource = includeTransformer.apply(templatePath);
-    CompiledTextTemplate compiledTemplate = getFromCache(compiledTemplateCache, templateSource);
+    CompiledTextTemplate compiledTemplate = compiledTemplates.apply(templatePath);
     execute(compiledTemplate, model, buffer);
   }
 
@@ -86,7 +69,7 @@ public class Render {
     });
   }
 
-  public static Promise<ByteBuf> render(ExecControl execControl, ByteBufAllocator bufferAllocator, LoadingCache<TextTemplateSource, CompiledTextTemplate> compiledTemplateCache, TextTemplateSource templateSource, Map<String, ?> model, Function<String, TextTemplateSource> includeTransformer) throws Exception {
-    return new Render(execControl, bufferAllocator, compiledTemplateCache, templateSource, model, includeTransformer).invoke();
+  public static Promise<ByteBuf> render(ExecControl execControl, ByteBufAllocator bufferAllocator, Function<String, CompiledTextTemplate> compiledTemplates, String templateName, Map<String, ?> model) throws Exception {
+    return new Render(execControl, bufferAllocator, compiledTemplates, templateName, model).invoke();
   }
 }
\ No newline at end of file
@@ -16,71 +16,143 @@
 
 package ratpack.groovy.template.internal;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import ratpack.exec.ExecControl;
 import ratpack.exec.Promise;
 import ratpack.file.FileSystemBinding;
+import ratpack.file.internal.FileSystemWatcher;
 import ratpack.groovy.script.internal.ScriptEngine;
+import ratpack.server.Service;
+import ratpack.server.StartEvent;
+import ratpack.server.StopEvent;
+import ratpack.util.internal.IoUtils;
 
-import javax.inject.Inject;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
-public class TextTemplateRenderingEngine {
+import static ratpack.util.ExceptionUtils.toException;
+import static ratpack.util.ExceptionUtils.uncheck;
 
-  private final LoadingCache<TextTemplateSource, CompiledTextTemplate> compiledTemplateCache;
+/**
+ * Renders text templates, caching compiled templates by path.
+ * <p>
+ * If reloadable, cached templates are invalidated by watching the templates directory for changes.
+ * If the directory can't be watched, the modification time of a cached template is checked each time it is rendered instead.
+ */
+public class TextTemplateRenderingEngine implements Service, FileSystemWatcher.Listener {
+
+  private static final long NOT_CHECKED = -1;
+
+  private static class CachedTemplate {
+    private final CompiledTextTemplate template;
+    private final long lastModified;
+
+    private CachedTemplate(CompiledTextTemplate template, long lastModified) {
+      this.template = template;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private final Cache<Path, CachedTemplate> compiledTemplateCache;
   private final TextTemplateCompiler templateCompiler;
   private final ByteBufAllocator byteBufAllocator;
-  private final boolean reloadable;
   private final FileSystemBinding templateDir;
   private final ExecControl execControl;
+  private final FileSystemWatcher watcher; // null if not reloadable
 
-  @Inject
-  public TextTemplateRenderingEngine(ExecControl execControl, ByteBufAllocator byteBufAllocator, FileSystemBinding templateDir, boolean reloadable, boolean staticCompile) {
+  public TextTemplateRenderingEngine(ExecControl execControl, ByteBufAllocator byteBufAllocator, FileSystemBinding templateDir, boolean reloadable, boolean staticCompile, long cacheSize) {
     this.execControl = execControl;
     this.byteBufAllocator = byteBufAllocator;
-    this.reloadable = reloadable;
     this.templateDir = templateDir;
 
     ScriptEngine<DefaultTextTemplateScript> scriptEngine = new ScriptEngine<>(getClass().getClassLoader(), staticCompile, DefaultTextTemplateScript.class);
     this.templateCompiler = new TextTemplateCompiler(scriptEngine, byteBufAllocator);
+    this.compiledTemplateCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
 
-    //noinspection NullableProblems
-    this.compiledTemplateCache = CacheBuilder.newBuilder().build(new CacheLoader<TextTemplateSource, CompiledTextTemplate>() {
-      @Override
-      public CompiledTextTemplate load(TextTemplateSource templateSource) throws Exception {
-        ByteBuf content = templateSource.getContent();
-        try {
-          return templateCompiler.compile(content, templateSource.getName());
-        } finally {
-          content.release();
-        }
-      }
-    });
+    if (reloadable) {
+      this.watcher = new FileSystemWatcher(templateDir.getFile());
+      watcher.addListener(this);
+    } else {
+      this.watcher = null;
+    }
   }
 
   public Promise<ByteBuf> renderTemplate(String templateId, Map<String, ?> model) throws Exception {
-    Path templateFile = getTemplateFile(templateId);
-    return render(toTemplateSource(templateId, templateFile), model);
+    return Render.render(execControl, byteBufAllocator, this::getCompiledTemplate, templateId, model);
+  }
+
+  private CompiledTextTemplate getCompiledTemplate(String templateName) throws Exception {
+    Path templateFile = templateDir.file(templateName);
+    if (templateFile == null) {
+      throw new IllegalArgumentException("template '" + templateName + "' is outside the file system binding " + templateDir);
+    }
+
+    boolean checkModified = watcher != null && !watcher.isWatching();
+    CachedTemplate cached = compiledTemplateCache.getIfPresent(templateFile);
+    if (cached != null && checkModified && cached.lastModified != Files.getLastModifiedTime(templateFile).toMillis()) {
+      compiledTemplateCache.invalidate(templateFile);
+      cached = null;
+    }
+
+    if (cached == null) {
+      long generation = watcher == null ? 0 : watcher.getGeneration();
+      boolean[] loaded = {false};
+      try {
+        cached = compiledTemplateCache.get(templateFile, () -> {
+          loaded[0] = true;
+          return compile(templateFile, templateName, checkModified);
+        });
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        throw uncheck(toException(e.getCause()));
+      }
+      if (loaded[0] && watcher != null && watcher.getGeneration() != generation) {
+        // the template may have changed while it was being compiled
+        compiledTemplateCache.invalidate(templateFile);
+      }
+    }
+
+    return cached.template;
+  }
+
+  private CachedTemplate compile(Path templateFile, String templateName, boolean checkModified) throws Exception {
+    long lastModified = checkModified ? Files.getLastModifiedTime(templateFile).toMillis() : NOT_CHECKED;
+    ByteBuf content = IoUtils.read(byteBufAllocator, templateFile);
+    try {
+      return new CachedTemplate(templateCompiler.compile(content, templateName), lastModified);
+    } finally {
+      content.release();
+    }
+  }
+
+  @Override
+  public void changed(Path path) {
+    // if a directory is deleted, only the directory may be reported
+    compiledTemplateCache.asMap().keySet().removeIf(templateFile -> templateFile.startsWith(path));
   }
 
-  private TextTemplateSource toTemplateSource(String templateId, Path templateFile) throws IOException {
-    String id = templateId + (reloadable ? Files.getLastModifiedTime(templateFile) : "0");
-    return new TextTemplateSource(byteBufAllocator, id, templateFile, templateId);
+  @Override
+  public void overflow() {
+    compiledTemplateCache.invalidateAll();
   }
 
-  private Promise<ByteBuf> render(final TextTemplateSource templateSource, Map<String, ?> model) throws Exception {
-    return Render.render(execControl, byteBufAllocator, compiledTemplateCache, templateSource, model, templateName -> toTemplateSource(templateName, getTemplateFile(templateName)));
+  @Override
+  public void onStart(StartEvent event) throws Exception {
+    if (watcher != null) {
+      watcher.onStart(event);
+    }
   }
 
-  private Path getTemplateFile(String templateName) {
-    return templateDir.file(templateName);
+  @Override
+  public void onStop(StopEvent event) throws Exception {
+    if (watcher != null) {
+      watcher.onStop(event);
+    }
   }
 
 }
@@ -78,6 +78,27 @@ class MarkupTemplatingSpec extends RatpackGroovyDslSpec {
     text == "<div>&lt;bar&gt;</div>"
   }
 
+  def "can precompile templates at startup"() {
+    given:
+    file "templates/foo.gtpl", "yield 'precompiled'"
+    file "templates/broken.gtpl", "div {"
+    bindings {
+      add(MarkupTemplateModule) { it.cacheTemplates = true; it.precompile = true }
+    }
+
+    when:
+    handlers {
+      get {
+        render groovyMarkupTemplate("foo.gtpl")
+      }
+    }
+    server.start()
+    file "templates/foo.gtpl", "yield 'changed'"
+
+    then:
+    text == "precompiled"
+  }
+
   def "auto-escape can be configured via templateconfiguration from guice"() {
     given:
     file "templates/foo.gtpl", "div(value)"
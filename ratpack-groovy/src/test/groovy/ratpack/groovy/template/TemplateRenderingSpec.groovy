@@ -20,6 +20,7 @@ import ratpack.error.ServerErrorHandler
 import ratpack.test.internal.RatpackGroovyDslSpec
 import ratpack.test.internal.SimpleErrorHandler
 import spock.lang.Unroll
+import spock.util.concurrent.PollingConditions
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE
 import static ratpack.groovy.Groovy.groovyTemplate
@@ -255,11 +256,38 @@ class TemplateRenderingSpec extends RatpackGroovyDslSpec {
     text == "1"
 
     when:
-    sleep 1000
     file "templates/t", "2"
 
     then:
-    text == "2"
+    // polling watch services (e.g. on macOS) can take several seconds to report a change
+    new PollingConditions(timeout: 15).eventually {
+      assert text == "2"
+    }
+  }
+
+  def "included templates are reloadable in development mode"() {
+    given:
+    bindings { add(TextTemplateModule) }
+    serverConfig { development(true) }
+    file "templates/outer", "outer <% render 'inner/t' %>"
+    file "templates/inner/t", "1"
+
+    when:
+    handlers {
+      get { render groovyTemplate("outer") }
+    }
+
+    then:
+    text == "outer 1"
+
+    when:
+    file "templates/inner/t", "2"
+
+    then:
+    // polling watch services (e.g. on macOS) can take several seconds to report a change
+    new PollingConditions(timeout: 15).eventually {
+      assert text == "outer 2"
+    }
   }
 
   def "templates are not reloadable in development false mode"() {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.guice.internal;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.reflect.TypeToken;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import ratpack.api.Nullable;
+import ratpack.func.Function;
+
+import java.util.Map;
+
+import static ratpack.util.ExceptionUtils.uncheck;
+
+/**
+ * An index of an injector's bindings, keyed by every raw type that each bound type is assignable to (i.e. all superclasses and interfaces).
+ * <p>
+ * Built from the bindings present at the time it is created, and held by the registry backing for the injector (never statically,
+ * as bindings reference their injector).
+ * Just-in-time bindings created after the index is built are not visible to type searches.
+ */
+class BindingsIndex {
+
+  private static class IndexedBinding {
+    final TypeToken<?> type;
+    final Binding<?> binding;
+
+    IndexedBinding(TypeToken<?> type, Binding<?> binding) {
+      this.type = type;
+      this.binding = binding;
+    }
+  }
+
+  private final ImmutableListMultimap<Class<?>, IndexedBinding> byRawType;
+  private final BindingsIndex parent;
+
+  private BindingsIndex(Injector injector, @Nullable BindingsIndex parent) {
+    this.parent = parent;
+    ImmutableListMultimap.Builder<Class<?>, IndexedBinding> builder = ImmutableListMultimap.builder();
+    for (Map.Entry<Key<?>, Binding<?>> entry : injector.getAllBindings().entrySet()) {
+      TypeToken<?> type = GuiceUtil.toTypeToken(entry.getKey().getTypeLiteral());
+      IndexedBinding indexedBinding = new IndexedBinding(type, entry.getValue());
+      for (Class<?> rawType : type.getTypes().rawTypes()) {
+        builder.put(rawType, indexedBinding);
+      }
+    }
+    this.byRawType = builder.build();
+  }
+
+  static BindingsIndex of(Injector injector) {
+    Injector parent = injector.getParent();
+    return new BindingsIndex(injector, parent == null ? null : of(parent));
+  }
+
+  <T> void search(TypeToken<T> type, Function<Provider<? extends T>, Boolean> transformer) {
+    // For non parameterized types, a match on the raw type is sufficient
+    boolean rawTypeMatchSufficient = type.getType() instanceof Class;
+    for (IndexedBinding indexedBinding : byRawType.get(type.getRawType())) {
+      if (rawTypeMatchSufficient || type.isAssignableFrom(indexedBinding.type)) {
+        @SuppressWarnings("unchecked") Provider<? extends T> provider = (Provider<? extends T>) indexedBinding.binding.getProvider();
+        try {
+          if (!transformer.apply(provider)) {
+            return;
+          }
+        } catch (Exception e) {
+          throw uncheck(e);
+        }
+      }
+    }
+    if (parent != null) {
+      parent.search(type, transformer);
+    }
+  }
+
+}
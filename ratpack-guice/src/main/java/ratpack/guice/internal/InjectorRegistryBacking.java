@@ -18,20 +18,29 @@ package ratpack.guice.internal;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Injector;
+import com.google.inject.Provider;
 import ratpack.registry.RegistryBacking;
 
 public class InjectorRegistryBacking implements RegistryBacking {
   private final Injector injector;
+  private final BindingsIndex bindingsIndex;
 
   public InjectorRegistryBacking(Injector injector) {
     this.injector = injector;
+    this.bindingsIndex = BindingsIndex.of(injector);
   }
 
   @Override
   public <T> Iterable<Supplier<? extends T>> provide(TypeToken<T> type) {
-    return FluentIterable.from(GuiceUtil.allProvidersOfType(injector, type)).transform(provider -> provider::get);
+    ImmutableList.Builder<Provider<? extends T>> providers = ImmutableList.builder();
+    bindingsIndex.search(type, provider -> {
+      providers.add(provider);
+      return true;
+    });
+    return FluentIterable.from(providers.build()).transform(provider -> provider::get);
   }
 
   @Override
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.guice.internal
+
+import com.google.common.reflect.TypeToken
+import com.google.inject.AbstractModule
+import com.google.inject.Injector
+import com.google.inject.TypeLiteral
+import com.google.inject.name.Names
+import spock.lang.Specification
+
+import static com.google.inject.Guice.createInjector
+
+class GuiceUtilSpec extends Specification {
+
+  static interface Animal {}
+
+  static class Dog implements Animal {}
+
+  static class Cat implements Animal {}
+
+  static <T> List<T> allOfType(Injector injector, TypeToken<T> type) {
+    def indexed = new InjectorRegistryBacking(injector).provide(type)*.get()
+    assert GuiceUtil.allOfType(injector, type) == indexed
+    indexed
+  }
+
+  def "finds bindings by supertype, including parent injector bindings"() {
+    given:
+    def dog = new Dog()
+    def cat = new Cat()
+    def parent = createInjector(new AbstractModule() {
+      protected void configure() {
+        bind(Cat).toInstance(cat)
+      }
+    })
+    def injector = parent.createChildInjector(new AbstractModule() {
+      protected void configure() {
+        bind(Dog).toInstance(dog)
+        bind(List).annotatedWith(Names.named("strings")).toInstance(["a"])
+      }
+    })
+
+    expect:
+    allOfType(injector, TypeToken.of(Animal)) == [dog, cat]
+    allOfType(injector, TypeToken.of(Dog)) == [dog]
+    allOfType(parent, TypeToken.of(Animal)) == [cat]
+    allOfType(injector, TypeToken.of(Collection)) == [["a"]]
+    allOfType(injector, TypeToken.of(Map)) == []
+  }
+
+  def "parameterized lookups check full type"() {
+    given:
+    def strings = ["a"]
+    def injector = createInjector(new AbstractModule() {
+      protected void configure() {
+        bind(new TypeLiteral<List<String>>() {}).toInstance(strings)
+        bind(new TypeLiteral<List<Integer>>() {}).toInstance([1])
+      }
+    })
+
+    expect:
+    allOfType(injector, new TypeToken<List<String>>() {}) == [strings]
+    allOfType(injector, new TypeToken<Iterable<String>>() {}) == [strings]
+    allOfType(injector, TypeToken.of(List)).size() == 2
+  }
+
+  def "index does not see just in time bindings created after it is built"() {
+    given:
+    def injector = createInjector()
+    def backing = new InjectorRegistryBacking(injector)
+
+    when:
+    def dog = injector.getInstance(Dog)
+
+    then:
+    backing.provide(TypeToken.of(Dog)).toList().empty
+    new InjectorRegistryBacking(injector).provide(TypeToken.of(Dog))*.get()*.class == [Dog]
+    GuiceUtil.allOfType(injector, TypeToken.of(Animal))*.class == [Dog]
+    dog != null
+  }
+}
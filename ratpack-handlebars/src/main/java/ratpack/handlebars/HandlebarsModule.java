@@ -28,6 +28,7 @@ import ratpack.file.FileSystemBinding;
 import ratpack.guice.ConfigurableModule;
 import ratpack.guice.internal.GuiceUtil;
 import ratpack.handlebars.internal.FileSystemBindingTemplateLoader;
+import ratpack.handlebars.internal.HandlebarsPrecompiler;
 import ratpack.handlebars.internal.HandlebarsTemplateRenderer;
 import ratpack.handlebars.internal.RatpackTemplateCache;
 import ratpack.handlebars.internal.TemplateKey;
@@ -98,6 +99,10 @@ public class HandlebarsModule extends ConfigurableModule<HandlebarsModule.Config
 
     private Boolean reloadable;
 
+    private int chunkSize;
+
+    private boolean precompile;
+
     public String getTemplatesPath() {
       return templatesPath;
     }
@@ -133,11 +138,65 @@ public class HandlebarsModule extends ConfigurableModule<HandlebarsModule.Config
       this.reloadable = reloadable;
       return this;
     }
+
+    /**
+     * The number of bytes of rendered output to send at a time, or {@code 0} to send output only once rendering has finished.
+     * <p>
+     * {@code 0} by default.
+     * When greater than {@code 0}, templates are rendered on a blocking thread and each chunk is sent as soon as it has been rendered,
+     * so that clients start receiving very large pages sooner.
+     * Helpers of such templates must not depend on the current execution.
+     * As the response has been committed when rendering starts, rendering errors can only be signalled by closing the connection.
+     *
+     * @return the number of bytes of rendered output to send at a time
+     */
+    public int getChunkSize() {
+      return chunkSize;
+    }
+
+    /**
+     * Sets the number of bytes of rendered output to send at a time.
+     *
+     * @param chunkSize the number of bytes of rendered output to send at a time, or {@code 0} to send output only once rendering has finished
+     * @return this
+     * @see #getChunkSize()
+     */
+    public Config chunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * Whether to compile all templates when the application starts.
+     * <p>
+     * {@code false} by default.
+     * When {@code true}, all templates in the templates directory are compiled in parallel on blocking threads before the application starts accepting requests,
+     * so that the first render of each template does not have to parse it.
+     * Templates that fail to compile are logged, and the failure is reported again when they are rendered.
+     *
+     * @return whether to compile all templates when the application starts
+     */
+    public boolean isPrecompile() {
+      return precompile;
+    }
+
+    /**
+     * Sets whether to compile all templates when the application starts.
+     *
+     * @param precompile whether to compile all templates when the application starts
+     * @return this
+     * @see #isPrecompile()
+     */
+    public Config precompile(boolean precompile) {
+      this.precompile = precompile;
+      return this;
+    }
   }
 
   @Override
   protected void configure() {
     bind(HandlebarsTemplateRenderer.class).in(Singleton.class);
+    bind(HandlebarsPrecompiler.class).in(Singleton.class);
   }
 
   @SuppressWarnings("UnusedDeclaration")
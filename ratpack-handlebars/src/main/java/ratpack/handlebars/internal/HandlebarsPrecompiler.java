@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.handlebars.internal;
+
+import ratpack.exec.ExecController;
+import ratpack.file.FileSystemBinding;
+import ratpack.handlebars.HandlebarsModule;
+import ratpack.render.internal.TemplatePrecompiler;
+import ratpack.server.Service;
+import ratpack.server.StartEvent;
+
+import javax.inject.Inject;
+
+public class HandlebarsPrecompiler implements Service {
+
+  private final HandlebarsTemplateRenderer renderer;
+  private final HandlebarsModule.Config config;
+  private final FileSystemBinding fileSystemBinding;
+
+  @Inject
+  public HandlebarsPrecompiler(HandlebarsTemplateRenderer renderer, HandlebarsModule.Config config, FileSystemBinding fileSystemBinding) {
+    this.renderer = renderer;
+    this.config = config;
+    this.fileSystemBinding = fileSystemBinding;
+  }
+
+  @Override
+  public void onStart(StartEvent event) throws Exception {
+    if (config.isPrecompile()) {
+      String suffix = config.getTemplatesSuffix();
+      TemplatePrecompiler.precompile(
+        event.getRegistry().get(ExecController.class).getBlockingExecutor(),
+        fileSystemBinding.binding(config.getTemplatesPath()).getFile(),
+        suffix,
+        template -> renderer.compile(template.substring(0, template.length() - suffix.length()))
+      );
+    }
+  }
+
+}
@@ -17,10 +17,17 @@
 package ratpack.handlebars.internal;
 
 import com.github.jknack.handlebars.Handlebars;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.netty.buffer.ByteBufAllocator;
 import ratpack.file.MimeTypes;
+import ratpack.handlebars.HandlebarsModule;
 import ratpack.handlebars.Template;
 import ratpack.handling.Context;
 import ratpack.render.RendererSupport;
+import ratpack.render.internal.ByteBufWriter;
+import ratpack.render.internal.RenderingPublisher;
+import ratpack.server.ServerConfig;
 
 import javax.inject.Inject;
 import java.io.IOException;
@@ -28,28 +35,68 @@ import java.io.IOException;
 public class HandlebarsTemplateRenderer extends RendererSupport<Template> {
 
   private final Handlebars handlebars;
+  private final int chunkSize;
+
+  // compiled templates by name, so that rendering a compiled template does not touch the file system; null if reloadable
+  private final Cache<String, com.github.jknack.handlebars.Template> compiledTemplates;
 
   @Inject
-  public HandlebarsTemplateRenderer(Handlebars handlebars) {
+  public HandlebarsTemplateRenderer(Handlebars handlebars, HandlebarsModule.Config config, ServerConfig serverConfig) {
     this.handlebars = handlebars;
+    this.chunkSize = config.getChunkSize();
+    boolean reloadable = config.isReloadable() == null ? serverConfig.isDevelopment() : config.isReloadable();
+    this.compiledTemplates = reloadable ? null : CacheBuilder.newBuilder().maximumSize(config.getCacheSize()).build();
   }
 
   @Override
   public void render(Context context, Template template) {
-    String contentType = template.getContentType();
     String templateName = template.getName();
-    contentType = contentType == null ? context.get(MimeTypes.class).getContentType(templateName) : contentType;
-    String renderedTemplate;
+    com.github.jknack.handlebars.Template compiledTemplate = compiledTemplates == null ? null : compiledTemplates.getIfPresent(templateName);
+    if (compiledTemplate == null) {
+      context.blocking(() -> compile(templateName)).then(compiled -> render(context, template, compiled));
+    } else {
+      render(context, template, compiledTemplate);
+    }
+  }
+
+  /**
+   * Compiles the template, which is a blocking operation.
+   * <p>
+   * Compiling reads the template, and checks whether it has changed even if it is in the template cache.
+   */
+  public com.github.jknack.handlebars.Template compile(String templateName) throws IOException {
+    com.github.jknack.handlebars.Template compiled = handlebars.compile(templateName);
+    if (compiledTemplates != null) {
+      compiledTemplates.put(templateName, compiled);
+    }
+    return compiled;
+  }
+
+  private void render(Context context, Template template, com.github.jknack.handlebars.Template compiledTemplate) {
+    String contentType = template.getContentType();
+    contentType = contentType == null ? context.get(MimeTypes.class).getContentType(template.getName()) : contentType;
+    ByteBufAllocator allocator = context.get(ByteBufAllocator.class);
+    Object templateModel = template.getModel();
+
+    if (chunkSize > 0) {
+      context.getResponse().contentType(contentType).sendStream(
+        new RenderingPublisher(context.getController().getBlockingExecutor(), allocator, chunkSize, writer -> compiledTemplate.apply(templateModel, writer))
+      );
+      return;
+    }
+    ByteBufWriter writer = new ByteBufWriter(allocator);
     try {
-      com.github.jknack.handlebars.Template compiledTemplate = handlebars.compile(templateName);
-      Object templateModel = template.getModel();
-      renderedTemplate = compiledTemplate.apply(templateModel);
+      compiledTemplate.apply(templateModel, writer);
     } catch (IOException e) {
+      writer.release();
       context.error(e);
       return;
+    } catch (RuntimeException e) {
+      writer.release();
+      throw e;
     }
 
-    context.getResponse().send(contentType, renderedTemplate);
+    context.getResponse().send(contentType, writer.getBuffer());
   }
 
   @Override
@@ -22,6 +22,7 @@ import spock.lang.Unroll
 
 import static Template.handlebarsTemplate
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE
+import static io.netty.handler.codec.http.HttpHeaders.Names.TRANSFER_ENCODING
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR
 
 class HandlebarsTemplateRenderingSpec extends RatpackGroovyDslSpec {
@@ -215,6 +216,49 @@ class HandlebarsTemplateRenderingSpec extends RatpackGroovyDslSpec {
     get('foo').body.text == 'A'
     get('bar').body.text == 'B'
   }
+
+  void 'can precompile templates at startup'() {
+    given:
+    file 'handlebars/simple.hbs', 'precompiled'
+    file 'handlebars/broken.hbs', '{{#if key}}'
+
+    when:
+    bindings {
+      add new HandlebarsModule(), { it.reloadable(false).precompile(true) }
+    }
+    handlers {
+      get {
+        render handlebarsTemplate('simple')
+      }
+    }
+    server.start()
+    file 'handlebars/simple.hbs', 'changed'
+
+    then:
+    text == 'precompiled'
+  }
+
+  void 'can render a template in chunks'() {
+    given:
+    file 'handlebars/list.hbs', '{{#each this}}<li>{{this}}</li>{{/each}}'
+    def items = (1..1000).collect { "item ${it}".toString() }
+
+    when:
+    bindings {
+      add new HandlebarsModule(), { it.chunkSize(16) }
+    }
+    handlers {
+      get {
+        render handlebarsTemplate('list', items, 'text/html')
+      }
+    }
+
+    then:
+    get()
+    response.headers.get(TRANSFER_ENCODING) == 'chunked'
+    response.headers.get(CONTENT_TYPE) == 'text/html'
+    response.body.text == items.collect { "<li>${it}</li>" }.join('')
+  }
 }
 
 class TestHelper implements NamedHelper {
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ratpack.spring.internal;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.reflect.TypeToken;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.AbstractApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The names of the beans of a bean factory, keyed by every raw type that each bean is assignable to (i.e. all superclasses and interfaces).
+ * <p>
+ * For an application context, the index is built when the context is refreshed (or on creation, if it is already active),
+ * and swapped in as a whole. There is at most one index per context, registered as a listener of the context, so it lives exactly as long as the context.
+ * Beans registered directly with the bean factory after a refresh are not visible until the next refresh.
+ * <p>
+ * Until the context has been refreshed, and for bean factories that are not application contexts, bean names are looked up from the bean factory each time.
+ */
+class SpringBeanIndex implements ApplicationListener<ContextRefreshedEvent> {
+
+  private final ListableBeanFactory beanFactory;
+  private volatile ImmutableListMultimap<Class<?>, String> byRawType;
+
+  private SpringBeanIndex(ListableBeanFactory beanFactory) {
+    this.beanFactory = beanFactory;
+  }
+
+  static SpringBeanIndex of(ListableBeanFactory beanFactory) {
+    if (!(beanFactory instanceof AbstractApplicationContext)) {
+      return new SpringBeanIndex(beanFactory);
+    }
+
+    AbstractApplicationContext context = (AbstractApplicationContext) beanFactory;
+    synchronized (SpringBeanIndex.class) {
+      for (ApplicationListener<?> listener : context.getApplicationListeners()) {
+        if (listener instanceof SpringBeanIndex && ((SpringBeanIndex) listener).beanFactory == context) {
+          return (SpringBeanIndex) listener;
+        }
+      }
+      SpringBeanIndex index = new SpringBeanIndex(context);
+      context.addApplicationListener(index);
+      if (context.isActive()) {
+        index.build();
+      }
+      return index;
+    }
+  }
+
+  @Override
+  public void onApplicationEvent(ContextRefreshedEvent event) {
+    // refresh events of child contexts are also published to their parents
+    if (event.getApplicationContext() == beanFactory) {
+      build();
+    }
+  }
+
+  private void build() {
+    ImmutableListMultimap.Builder<Class<?>, String> builder = ImmutableListMultimap.builder();
+    for (String beanName : BeanFactoryUtils.beanNamesForTypeIncludingAncestors(beanFactory, Object.class)) {
+      Class<?> type = beanFactory.getType(beanName);
+      if (type != null) {
+        for (Class<?> rawType : TypeToken.of(type).getTypes().rawTypes()) {
+          builder.put(rawType, beanName);
+        }
+      }
+    }
+    byRawType = builder.build();
+  }
+
+  List<String> beanNames(Class<?> type) {
+    ImmutableListMultimap<Class<?>, String> byRawType = this.byRawType;
+    if (byRawType == null) {
+      return Arrays.asList(BeanFactoryUtils.beanNamesForTypeIncludingAncestors(beanFactory, type));
+    } else {
+      return byRawType.get(type);
+    }
+  }
+
+}
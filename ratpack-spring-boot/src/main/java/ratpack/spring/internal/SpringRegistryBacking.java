@@ -19,27 +19,27 @@ package ratpack.spring.internal;
 import com.google.common.base.Supplier;
 import com.google.common.collect.FluentIterable;
 import com.google.common.reflect.TypeToken;
-import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.ListableBeanFactory;
 import ratpack.registry.RegistryBacking;
 
-import java.util.Arrays;
-
 public class SpringRegistryBacking implements RegistryBacking {
   private final ListableBeanFactory beanFactory;
+  private final SpringBeanIndex index;
 
   public SpringRegistryBacking(ListableBeanFactory beanFactory) {
     this.beanFactory = beanFactory;
+    this.index = SpringBeanIndex.of(beanFactory);
   }
 
+  // The returned iterable is cached by the registry, so must reflect the current index each time it is iterated.
+  // Beans aren't held, as getBean() for a singleton is a map lookup, and held beans would outlive a refresh.
   @Override
   public <T> Iterable<Supplier<? extends T>> provide(TypeToken<T> type) {
-    return FluentIterable.from(
-      Arrays.asList(BeanFactoryUtils.beanNamesForTypeIncludingAncestors(beanFactory, type.getRawType()))
-    ).transform(beanName -> () -> {
+    Class<? super T> rawType = type.getRawType();
+    return () -> FluentIterable.from(index.beanNames(rawType)).<Supplier<? extends T>>transform(beanName -> () -> {
       @SuppressWarnings("unchecked") T bean = (T) beanFactory.getBean(beanName);
       return bean;
-    });
+    }).iterator();
   }
 
   @Override
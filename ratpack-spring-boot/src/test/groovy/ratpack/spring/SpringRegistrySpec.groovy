@@ -18,6 +18,8 @@ package ratpack.spring
 
 import com.google.common.base.Predicates
 import com.google.common.reflect.TypeToken
+import org.springframework.beans.factory.support.DefaultListableBeanFactory
+import org.springframework.context.support.AbstractRefreshableApplicationContext
 import org.springframework.context.support.StaticApplicationContext
 import ratpack.func.Action
 import ratpack.registry.NotInRegistryException
@@ -155,6 +157,54 @@ class SpringRegistrySpec extends Specification {
     r.all(differentType, Predicates.alwaysFalse()).toList() == []
   }
 
+  static class Thing {}
+
+  def "singleton beans are resolved once and prototype beans on each get"() {
+    given:
+    appContext.registerSingleton("singleton", Thing)
+    appContext.registerPrototype("prototype", ArrayList)
+    appContext.refresh()
+
+    expect:
+    r.get(Thing).is(r.get(Thing))
+    !r.get(ArrayList).is(r.get(ArrayList))
+  }
+
+  static class RefreshableContext extends AbstractRefreshableApplicationContext {
+    String value
+
+    @Override
+    protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) {
+      beanFactory.registerSingleton("value", value)
+    }
+  }
+
+  def "registry reflects the beans of the context after it is refreshed"() {
+    given:
+    def context = new RefreshableContext(value: "a")
+    context.refresh()
+    def registry = Spring.spring(context)
+
+    expect:
+    registry.get(String) == "a"
+
+    when:
+    context.value = "b"
+    context.refresh()
+
+    then:
+    registry.get(String) == "b"
+    registry.getAll(CharSequence).toList() == ["b"]
+  }
+
+  def "registries of the same context share a single listener"() {
+    when:
+    3.times { Spring.spring(appContext) }
+
+    then:
+    appContext.applicationListeners.count { it.class.simpleName == "SpringBeanIndex" } == 1
+  }
+
   def "equals and hashCode should be implemented"() {
     given:
     def otherRegistry = Spring.spring(appContext)
@@ -30,6 +30,7 @@ import org.thymeleaf.templateresolver.TemplateResolver;
 import ratpack.guice.ConfigurableModule;
 import ratpack.server.ServerConfig;
 import ratpack.thymeleaf.internal.FileSystemBindingThymeleafResourceResolver;
+import ratpack.thymeleaf.internal.ThymeleafPrecompiler;
 import ratpack.thymeleaf.internal.ThymeleafTemplateRenderer;
 
 import java.io.File;
@@ -96,6 +97,8 @@ public class ThymeleafModule extends ConfigurableModule<ThymeleafModule.Config>
     private String templatesMode = DEFAULT_TEMPLATE_MODE;
     private String templatesPrefix = DEFAULT_TEMPLATE_PREFIX;
     private String templatesSuffix = DEFAULT_TEMPLATE_SUFFIX;
+    private int chunkSize;
+    private boolean precompile;
 
     /**
      * The size of the templates cache.
@@ -141,6 +144,35 @@ public class ThymeleafModule extends ConfigurableModule<ThymeleafModule.Config>
       return templatesSuffix;
     }
 
+    /**
+     * The number of bytes of rendered output to send at a time.
+     * <p>
+     * {@code 0} by default, which sends output only once rendering has finished.
+     * When greater than {@code 0}, templates are rendered on a blocking thread and each chunk is sent as soon as it has been rendered,
+     * so that clients start receiving very large pages sooner.
+     * Dialects used by such templates must not depend on the current execution.
+     * As the response has been committed when rendering starts, rendering errors can only be signalled by closing the connection.
+     *
+     * @return the number of bytes of rendered output to send at a time
+     */
+    public int getChunkSize() {
+      return chunkSize;
+    }
+
+    /**
+     * Whether to parse all templates when the application starts.
+     * <p>
+     * {@code false} by default.
+     * When {@code true} and the {@link #getTemplatesCacheSize() templates cache} is enabled, all templates are parsed into the cache in parallel on blocking threads
+     * before the application starts accepting requests, so that the first render of each template does not have to parse it.
+     * Templates that fail to parse are logged, and the failure is reported again when they are rendered.
+     *
+     * @return whether to parse all templates when the application starts
+     */
+    public boolean isPrecompile() {
+      return precompile;
+    }
+
     /**
      * Sets the size of the templates cache.
      *
@@ -184,6 +216,28 @@ public class ThymeleafModule extends ConfigurableModule<ThymeleafModule.Config>
       this.templatesSuffix = templatesSuffix;
       return this;
     }
+
+    /**
+     * Sets the number of bytes of rendered output to send at a time.
+     *
+     * @param chunkSize the number of bytes of rendered output to send at a time, or {@code 0} to send output only once rendering has finished
+     * @return this
+     */
+    public Config chunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * Sets whether to parse all templates when the application starts.
+     *
+     * @param precompile whether to parse all templates when the application starts
+     * @return this
+     */
+    public Config precompile(boolean precompile) {
+      this.precompile = precompile;
+      return this;
+    }
   }
 
   private static final String DEFAULT_TEMPLATE_MODE = "XHTML";
@@ -267,6 +321,12 @@ public class ThymeleafModule extends ConfigurableModule<ThymeleafModule.Config>
     return templateEngine;
   }
 
+  @Provides
+  @Singleton
+  ThymeleafPrecompiler providePrecompiler(TemplateEngine templateEngine, ServerConfig serverConfig, Config config) {
+    return new ThymeleafPrecompiler(templateEngine, config.isPrecompile(), serverConfig.getBaseDir().file(getTemplatesPrefixSetting(config)), getTemplatesSuffixSetting(config));
+  }
+
   private int getCacheSizeSetting(Config config) {
     return templatesCacheSize == null ? config.getTemplatesCacheSize() : templatesCacheSize;
   }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ratpack.thymeleaf.internal;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateProcessingParameters;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.ICacheManager;
+import org.thymeleaf.context.Context;
+import ratpack.exec.ExecController;
+import ratpack.render.internal.TemplatePrecompiler;
+import ratpack.server.Service;
+import ratpack.server.StartEvent;
+
+import java.nio.file.Path;
+
+public class ThymeleafPrecompiler implements Service {
+
+  private final TemplateEngine thymeleaf;
+  private final boolean precompile;
+  private final Path templatesDir;
+  private final String templatesSuffix;
+
+  public ThymeleafPrecompiler(TemplateEngine thymeleaf, boolean precompile, Path templatesDir, String templatesSuffix) {
+    this.thymeleaf = thymeleaf;
+    this.precompile = precompile;
+    this.templatesDir = templatesDir;
+    this.templatesSuffix = templatesSuffix;
+  }
+
+  @Override
+  public void onStart(StartEvent event) throws Exception {
+    if (precompile && getTemplateCache(thymeleaf) != null) {
+      TemplatePrecompiler.precompile(
+        event.getRegistry().get(ExecController.class).getBlockingExecutor(),
+        templatesDir,
+        templatesSuffix,
+        template -> compile(thymeleaf, template.substring(0, template.length() - templatesSuffix.length()))
+      );
+    }
+  }
+
+  /**
+   * Parses the template into the template cache, if it isn't already there.
+   */
+  static void compile(TemplateEngine thymeleaf, String templateName) {
+    thymeleaf.initialize();
+    thymeleaf.getTemplateRepository().getTemplate(new TemplateProcessingParameters(thymeleaf.getConfiguration(), templateName, new Context()));
+  }
+
+  /**
+   * The cache of parsed templates by name, or {@code null} if templates are not cached.
+   */
+  static ICache<String, org.thymeleaf.Template> getTemplateCache(TemplateEngine thymeleaf) {
+    ICacheManager cacheManager = thymeleaf.getCacheManager();
+    return cacheManager == null ? null : cacheManager.getTemplateCache();
+  }
+
+}
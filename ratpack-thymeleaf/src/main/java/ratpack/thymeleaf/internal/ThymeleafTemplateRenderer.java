@@ -16,30 +16,64 @@
 
 package ratpack.thymeleaf.internal;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.ICache;
 import ratpack.handling.Context;
 import ratpack.render.RendererSupport;
+import ratpack.render.internal.ByteBufWriter;
+import ratpack.render.internal.RenderingPublisher;
 import ratpack.thymeleaf.Template;
+import ratpack.thymeleaf.ThymeleafModule;
 
 import javax.inject.Inject;
 
 public class ThymeleafTemplateRenderer extends RendererSupport<Template> {
 
   private final TemplateEngine thymeleaf;
+  private final int chunkSize;
 
   @Inject
-  public ThymeleafTemplateRenderer(TemplateEngine thymeleaf) {
+  public ThymeleafTemplateRenderer(TemplateEngine thymeleaf, ThymeleafModule.Config config) {
     this.thymeleaf = thymeleaf;
+    this.chunkSize = config.getChunkSize();
   }
 
   @Override
   public void render(Context context, Template template) {
-    String contentType = template.getContentType();
-    contentType = contentType == null ? "text/html" : contentType;
+    String contentType = template.getContentType() == null ? "text/html" : template.getContentType();
+    ByteBufAllocator allocator = context.get(ByteBufAllocator.class);
+
+    if (chunkSize > 0) {
+      context.getResponse().contentType(contentType).sendStream(
+        new RenderingPublisher(context.getController().getBlockingExecutor(), allocator, chunkSize, writer -> thymeleaf.process(template.getName(), template.getModel(), writer))
+      );
+      return;
+    }
+
+    ICache<String, org.thymeleaf.Template> templateCache = ThymeleafPrecompiler.getTemplateCache(thymeleaf);
+    if (templateCache == null) {
+      // every render parses the template, so render entirely on a blocking thread
+      context.blocking(() -> process(allocator, template)).then(buffer -> context.getResponse().send(contentType, buffer));
+    } else if (templateCache.get(template.getName()) == null) {
+      context.blocking(() -> {
+        ThymeleafPrecompiler.compile(thymeleaf, template.getName());
+        return template;
+      }).then(compiled -> context.getResponse().send(contentType, process(allocator, compiled)));
+    } else {
+      context.getResponse().send(contentType, process(allocator, template));
+    }
+  }
+
+  private ByteBuf process(ByteBufAllocator allocator, Template template) {
+    ByteBufWriter writer = new ByteBufWriter(allocator);
     try {
-      context.getResponse().send(contentType, thymeleaf.process(template.getName(), template.getModel()));
-    } catch (Exception e) {
-      context.error(e);
+      thymeleaf.process(template.getName(), template.getModel(), writer);
+    } catch (RuntimeException e) {
+      writer.release();
+      throw e;
     }
+    return writer.getBuffer();
   }
 }
@@ -23,6 +23,7 @@ import spock.lang.Unroll
 
 import static Template.thymeleafTemplate
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE
+import static io.netty.handler.codec.http.HttpHeaderNames.TRANSFER_ENCODING
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR
 
 class ThymeleafTemplateSpec extends RatpackGroovyDslSpec {
@@ -300,4 +301,46 @@ class ThymeleafTemplateSpec extends RatpackGroovyDslSpec {
     then:
     text == '<p>Hello, World!</p>'
   }
+
+  void 'can precompile templates at startup'() {
+    given:
+    file 'thymeleaf/simple.html', '<p>precompiled</p>'
+    file 'thymeleaf/broken.html', '<p>'
+
+    when:
+    bindings {
+      add ThymeleafModule, { ThymeleafModule.Config config -> config.templatesCacheSize(10).precompile(true) }
+    }
+    handlers {
+      get {
+        render thymeleafTemplate('simple')
+      }
+    }
+    server.start()
+    file 'thymeleaf/simple.html', '<p>changed</p>'
+
+    then:
+    text == '<p>precompiled</p>'
+  }
+
+  void 'can render a template in chunks'() {
+    given:
+    file 'thymeleaf/list.html', '<ul><li th:each="item : ${items}" th:text="${item}"/></ul>'
+    def items = (1..1000).collect { "item ${it}".toString() }
+
+    when:
+    bindings {
+      add ThymeleafModule, { ThymeleafModule.Config config -> config.chunkSize(16) }
+    }
+    handlers {
+      get {
+        render thymeleafTemplate('list', items: items)
+      }
+    }
+
+    then:
+    get()
+    response.headers.get(TRANSFER_ENCODING) == 'chunked'
+    response.body.text == '<ul>' + items.collect { "<li>${it}</li>" }.join('') + '</ul>'
+  }
 }